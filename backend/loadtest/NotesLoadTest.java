@@ -0,0 +1,132 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load test for the authenticated read path, used to compare platform-thread and
+ * virtual-thread request handling (VIRTUAL_THREADS_ENABLED=true on a -Pjava21 build).
+ *
+ * Registers a fresh user, creates a few notes, then runs a fixed number of clients that keep
+ * requesting the note list and single notes for the given duration. Prints throughput, latency
+ * percentiles and the status code mix (503s mean the connection pool was the limit).
+ *
+ * Usage: java loadtest/NotesLoadTest.java [baseUrl] [clients] [seconds]
+ */
+public class NotesLoadTest {
+
+	private static final Pattern TOKEN = Pattern.compile("\"token\":\"([^\"]+)\"");
+	private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+	private static final int NOTES = 20;
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+		int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+		HttpClient http = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+
+		String username = "load" + System.currentTimeMillis();
+		String credentials = "{\"username\":\"" + username + "\",\"password\":\"loadtest123\"}";
+		HttpResponse<String> registered = http.send(post(baseUrl + "/api/auth/register", credentials, null),
+				HttpResponse.BodyHandlers.ofString());
+		Matcher tokenMatcher = TOKEN.matcher(registered.body());
+		if (!tokenMatcher.find()) {
+			throw new IllegalStateException("Registration failed: " + registered.statusCode() + " " + registered.body());
+		}
+		String token = tokenMatcher.group(1);
+
+		List<String> noteIds = new ArrayList<>();
+		for (int i = 0; i < NOTES; i++) {
+			String note = "{\"title\":\"Load test note " + i + "\",\"content\":\"" + "lorem ipsum ".repeat(50) + "\"}";
+			HttpResponse<String> created = http.send(post(baseUrl + "/api/notes", note, token),
+					HttpResponse.BodyHandlers.ofString());
+			Matcher idMatcher = ID.matcher(created.body());
+			if (idMatcher.find()) {
+				noteIds.add(idMatcher.group(1));
+			}
+		}
+
+		long[][] latencies = new long[clients][];
+		Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+		AtomicLong failures = new AtomicLong();
+		long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+		CountDownLatch done = new CountDownLatch(clients);
+
+		for (int c = 0; c < clients; c++) {
+			int client = c;
+			Thread worker = new Thread(() -> {
+				long[] samples = new long[1024];
+				int count = 0;
+				int i = client;
+				while (System.nanoTime() < deadline) {
+					String path = (i++ % 2 == 0)
+							? "/api/notes?view=summary"
+							: "/api/notes/" + noteIds.get(i % noteIds.size());
+					HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+							.header("Authorization", "Bearer " + token)
+							.timeout(Duration.ofSeconds(30))
+							.GET()
+							.build();
+					long start = System.nanoTime();
+					try {
+						HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+						statuses.computeIfAbsent(response.statusCode(), k -> new AtomicLong()).incrementAndGet();
+					} catch (Exception e) {
+						failures.incrementAndGet();
+						continue;
+					}
+					if (count == samples.length) {
+						samples = Arrays.copyOf(samples, count * 2);
+					}
+					samples[count++] = System.nanoTime() - start;
+				}
+				latencies[client] = Arrays.copyOf(samples, count);
+				done.countDown();
+			}, "load-client-" + c);
+			worker.start();
+		}
+		done.await();
+
+		long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+		System.out.printf("clients=%d duration=%ds requests=%d throughput=%.1f req/s%n",
+				clients, seconds, all.length, all.length / (double) seconds);
+		if (all.length > 0) {
+			System.out.printf("latency ms: p50=%.1f p95=%.1f p99=%.1f max=%.1f%n",
+					percentile(all, 0.50), percentile(all, 0.95), percentile(all, 0.99), all[all.length - 1] / 1e6);
+		}
+		Map<Integer, Long> mix = new TreeMap<>();
+		statuses.forEach((status, n) -> mix.put(status, n.get()));
+		System.out.println("status codes: " + mix + " connection failures: " + failures.get());
+	}
+
+	private static HttpRequest post(String url, String json, String token) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json));
+		if (token != null) {
+			builder.header("Authorization", "Bearer " + token);
+		}
+		return builder.build();
+	}
+
+	private static double percentile(long[] sorted, double p) {
+		int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+
+}
@@ -0,0 +1,75 @@
+package com.vibenotes.security;
+
+import com.vibenotes.util.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of turning a bearer token into a username in {@link JwtAuthenticationFilter}.
+ *
+ * {@code legacy} reproduces the filter before the parser was shared: the key is derived and a
+ * parser built for each call, and the token is verified twice. {@code parseOnce} uses the shared
+ * parser with the verified-token cache disabled, and {@code parseCached} is the default setup.
+ *
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec -Dbenchmark=JwtAuthBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+	private static final String SECRET = "BenchmarkSecretKeyForJWTTokenGenerationAndValidationOnlyUsedHere0123456789";
+	private static final long EXPIRATION = TimeUnit.HOURS.toMillis(1);
+
+	private JwtUtil uncached;
+	private JwtUtil cached;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		uncached = new JwtUtil(SECRET, EXPIRATION, 0);
+		cached = new JwtUtil(SECRET, EXPIRATION, 10000);
+		token = cached.generateToken(1L, "benchmark-user", 0);
+	}
+
+	@Benchmark
+	public String legacy() {
+		Jwts.parserBuilder()
+				.setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+				.build()
+				.parseClaimsJws(token);
+		return Jwts.parserBuilder()
+				.setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+				.build()
+				.parseClaimsJws(token)
+				.getBody()
+				.getSubject();
+	}
+
+	@Benchmark
+	public String parseOnce() {
+		return uncached.parseToken(token).orElseThrow().getSubject();
+	}
+
+	@Benchmark
+	public String parseCached() {
+		return cached.parseToken(token).orElseThrow().getSubject();
+	}
+
+}
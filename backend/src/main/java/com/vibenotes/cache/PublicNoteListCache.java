@@ -0,0 +1,284 @@
+package com.vibenotes.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+// A load started before an invalidation is not stored: the owner's stamp has moved on by then.
+// Stamps of owners with nothing cached are folded into one floor so they do not pile up.
+@Component
+@ManagedResource(objectName = "com.vibenotes:type=Cache,name=PublicNoteListCache")
+public class PublicNoteListCache {
+
+	// Stamps kept beyond those of owners with cached entries before the extra ones are dropped
+	private static final int STAMP_SLACK = 1024;
+
+	private final long maxBytes;
+	private final long ttlNanos;
+
+	// A ReentrantLock rather than a monitor, so contended virtual threads unmount instead of pinning
+	private final ReentrantLock lock = new ReentrantLock();
+
+	// Guarded by lock
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+	private final Map<String, Set<String>> keysByOwner = new HashMap<>();
+	private final Map<String, Long> stamps = new HashMap<>();
+	private long lastStamp;
+	// Stamp of every owner without an entry in stamps; at least any stamp dropped from it
+	private long stampFloor;
+	private long currentBytes;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	public PublicNoteListCache(
+			@Value("${cache.public-notes.max-bytes:16777216}") long maxBytes,
+			@Value("${cache.public-notes.ttl-seconds:60}") long ttlSeconds) {
+		this.maxBytes = maxBytes;
+		this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+	}
+
+	public boolean isEnabled() {
+		return maxBytes > 0 && ttlNanos > 0;
+	}
+
+	public Entry get(String owner, String listing) {
+		if (!isEnabled()) {
+			return null;
+		}
+		String key = keyOf(owner, listing);
+		lock.lock();
+		try {
+			Entry entry = entries.get(key);
+			if (entry == null) {
+				misses++;
+				return null;
+			}
+			if (entry.expiresAt - System.nanoTime() <= 0) {
+				removeLocked(key, entry);
+				evictions++;
+				misses++;
+				return null;
+			}
+			hits++;
+			return entry;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	// Returns the owner's current stamp. Take it before loading a listing and hand it
+	// back to put so a load that raced with a write is discarded.
+	public long stamp(String owner) {
+		lock.lock();
+		try {
+			return stamps.getOrDefault(owner, stampFloor);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void put(String owner, String listing, long stamp, String eTag, byte[] body) {
+		if (!isEnabled() || body.length > maxBytes) {
+			return;
+		}
+		String key = keyOf(owner, listing);
+		Entry entry = new Entry(owner, eTag, body, System.nanoTime() + ttlNanos);
+		lock.lock();
+		try {
+			if (stamps.getOrDefault(owner, stampFloor) != stamp) {
+				return;
+			}
+			Entry previous = entries.put(key, entry);
+			if (previous != null) {
+				currentBytes -= previous.body.length;
+			}
+			currentBytes += body.length;
+			keysByOwner.computeIfAbsent(owner, k -> new HashSet<>()).add(key);
+			evictLocked();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	public void invalidate(String owner) {
+		lock.lock();
+		try {
+			stamps.put(owner, ++lastStamp);
+			Set<String> keys = keysByOwner.remove(owner);
+			if (stamps.size() > keysByOwner.size() + STAMP_SLACK) {
+				pruneStampsLocked();
+			}
+			if (keys == null) {
+				return;
+			}
+			for (String key : keys) {
+				Entry entry = entries.remove(key);
+				if (entry != null) {
+					currentBytes -= entry.body.length;
+					invalidations++;
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedOperation
+	public void clear() {
+		lock.lock();
+		try {
+			entries.clear();
+			keysByOwner.clear();
+			currentBytes = 0;
+			pruneStampsLocked();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public long getHitCount() {
+		lock.lock();
+		try {
+			return hits;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public long getMissCount() {
+		lock.lock();
+		try {
+			return misses;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public long getEvictionCount() {
+		lock.lock();
+		try {
+			return evictions;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public long getInvalidationCount() {
+		lock.lock();
+		try {
+			return invalidations;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public int getEntryCount() {
+		lock.lock();
+		try {
+			return entries.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public int getStampCount() {
+		lock.lock();
+		try {
+			return stamps.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	@ManagedAttribute
+	public long getSizeInBytes() {
+		lock.lock();
+		try {
+			return currentBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void evictLocked() {
+		Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+		while (currentBytes > maxBytes && eldest.hasNext()) {
+			Map.Entry<String, Entry> next = eldest.next();
+			eldest.remove();
+			Entry entry = next.getValue();
+			currentBytes -= entry.body.length;
+			forgetKeyLocked(entry.owner, next.getKey());
+			evictions++;
+		}
+	}
+
+	// Loads in flight for the dropped owners are discarded on put, which only costs a cache fill
+	private void pruneStampsLocked() {
+		stamps.keySet().removeIf(owner -> !keysByOwner.containsKey(owner));
+		stampFloor = lastStamp;
+	}
+
+	private void removeLocked(String key, Entry entry) {
+		entries.remove(key);
+		currentBytes -= entry.body.length;
+		forgetKeyLocked(entry.owner, key);
+	}
+
+	private void forgetKeyLocked(String owner, String key) {
+		Set<String> keys = keysByOwner.get(owner);
+		if (keys != null) {
+			keys.remove(key);
+			if (keys.isEmpty()) {
+				keysByOwner.remove(owner);
+			}
+		}
+	}
+
+	private static String keyOf(String owner, String listing) {
+		return owner + '\n' + listing;
+	}
+
+	public static final class Entry {
+
+		private final String owner;
+		private final String eTag;
+		private final byte[] body;
+		private final long expiresAt;
+
+		private Entry(String owner, String eTag, byte[] body, long expiresAt) {
+			this.owner = owner;
+			this.eTag = eTag;
+			this.body = body;
+			this.expiresAt = expiresAt;
+		}
+
+		public String getETag() {
+			return eTag;
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.vibenotes.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Upgrades an existing database before Hibernate validates it
+@Configuration
+public class SchemaUpgradeConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(SchemaUpgradeConfig.class);
+
+	@Bean
+	public InitializingBean schemaUpgrade(DataSource dataSource) {
+		return () -> {
+			if (!tableExists(dataSource, "users")) {
+				return;
+			}
+			ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("schema-upgrade.sql"));
+			DatabasePopulatorUtils.execute(populator, dataSource);
+			logger.info("Applied schema-upgrade.sql");
+		};
+	}
+
+	@Bean
+	public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaUpgrade() {
+		return new EntityManagerFactoryDependsOnPostProcessor("schemaUpgrade");
+	}
+
+	private static boolean tableExists(DataSource dataSource, String table) throws SQLException {
+		try (Connection connection = dataSource.getConnection();
+				ResultSet tables = connection.getMetaData().getTables(null, connection.getSchema(), table, new String[] {"TABLE"})) {
+			return tables.next();
+		}
+	}
+
+}
@@ -1,8 +1,13 @@
 package com.vibenotes.config;
 
+import com.vibenotes.security.CostAwareBCryptPasswordEncoder;
 import com.vibenotes.security.JwtAuthenticationFilter;
 import com.vibenotes.service.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,7 +16,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -25,6 +29,8 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class SecurityConfig {
 
+	private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
+
 	private final CustomUserDetailsService userDetailsService;
 	private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
@@ -34,16 +40,26 @@ public class SecurityConfig {
 		this.jwtAuthenticationFilter = jwtAuthenticationFilter;
 	}
 
+	// With a target latency set, the BCrypt strength is measured on this host at startup
+	// instead of taken from auth.bcrypt.strength
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(
+			@Value("${auth.bcrypt.strength:10}") int strength,
+			@Value("${auth.bcrypt.target-millis:0}") long targetMillis) {
+		if (targetMillis > 0) {
+			strength = CostAwareBCryptPasswordEncoder.calibrate(targetMillis);
+			logger.info("Calibrated BCrypt strength {} for a target of {} ms", strength, targetMillis);
+		}
+		return new CostAwareBCryptPasswordEncoder(strength);
 	}
 
 	@Bean
-	public DaoAuthenticationProvider authenticationProvider() {
+	public DaoAuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
 		DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 		authProvider.setUserDetailsService(userDetailsService);
-		authProvider.setPasswordEncoder(passwordEncoder());
+		authProvider.setPasswordEncoder(passwordEncoder);
+		// Stores the re-hashed password when the configured strength has changed
+		authProvider.setUserDetailsPasswordService(userDetailsService);
 		return authProvider;
 	}
 
@@ -53,12 +69,15 @@ public class SecurityConfig {
 	}
 
 	@Bean
-	public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+	public SecurityFilterChain filterChain(HttpSecurity http, DaoAuthenticationProvider authenticationProvider) throws Exception {
 		http
 				.csrf(csrf -> csrf.disable())
 				.cors(cors -> cors.configurationSource(corsConfigurationSource()))
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests(auth -> auth
+						// Completes a streamed response whose request was already authorized
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+						.requestMatchers("/api/auth/logout").authenticated()
 						.requestMatchers("/api/auth/**").permitAll()
 						.requestMatchers("/uploads/**").permitAll()
 						.requestMatchers("/api/public/**").permitAll()
@@ -76,7 +95,7 @@ public class SecurityConfig {
 								.includeSubdomains(true)
 						)
 				)
-				.authenticationProvider(authenticationProvider())
+				.authenticationProvider(authenticationProvider)
 				.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
 		return http.build();
@@ -91,10 +110,10 @@ public class SecurityConfig {
 			"http://localhost:3000,http://localhost:8081,http://localhost:8080");
 		configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
 		
-		configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+		configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
 		// Restrict allowed headers instead of using wildcard
-		configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
-		configuration.setExposedHeaders(Arrays.asList("Authorization"));
+		configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "If-None-Match", "If-Match"));
+		configuration.setExposedHeaders(Arrays.asList("Authorization", "ETag"));
 		configuration.setAllowCredentials(true);
 		configuration.setMaxAge(3600L);
 		
@@ -1,16 +1,25 @@
 package com.vibenotes.config;
 
+import com.vibenotes.util.ETagUtil;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+	// Avatar and thumbnail names are fresh UUIDs and never rewritten, so browsers may keep them for good
+	private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+
 	@Value("${file.upload.avatar.dir}")
 	private String avatarUploadDir;
 
@@ -23,8 +32,18 @@ public class WebConfig implements WebMvcConfigurer {
 		String avatarPathString = avatarPath.toUri().toString();
 
 		registry.addResourceHandler("/uploads/avatars/**")
-				.addResourceLocations(avatarPathString + "/");
+				.addResourceLocations(avatarPathString + "/")
+				.setCacheControl(IMMUTABLE)
+				.setUseLastModified(true)
+				.setEtagGenerator(WebConfig::strongETag);
 	}
 
-}
+	private static String strongETag(Resource resource) {
+		try {
+			return ETagUtil.fromParts(resource.getFilename(), resource.contentLength(), resource.lastModified());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
 
+}
@@ -3,12 +3,16 @@ package com.vibenotes.controller;
 import com.vibenotes.dto.AuthResponse;
 import com.vibenotes.dto.LoginRequest;
 import com.vibenotes.dto.RegisterRequest;
+import com.vibenotes.security.AuthenticatedUser;
 import com.vibenotes.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin
@@ -17,16 +21,23 @@ public class AuthController {
 	@Autowired
 	private AuthService authService;
 
+	// Hashing completes asynchronously, so the request thread is released while BCrypt runs
+
 	@PostMapping("/register")
-	public ResponseEntity<AuthResponse> register(@Valid @RequestBody RegisterRequest request) {
-		AuthResponse response = authService.register(request);
-		return ResponseEntity.ok(response);
+	public CompletableFuture<ResponseEntity<AuthResponse>> register(@Valid @RequestBody RegisterRequest request) {
+		return authService.register(request).thenApply(ResponseEntity::ok);
 	}
 
 	@PostMapping("/login")
-	public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest request) {
-		AuthResponse response = authService.login(request);
-		return ResponseEntity.ok(response);
+	public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody LoginRequest request) {
+		return authService.login(request).thenApply(ResponseEntity::ok);
+	}
+
+	@PostMapping("/logout")
+	public ResponseEntity<Void> logout(Authentication authentication) {
+		AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+		authService.logout(user.getId());
+		return ResponseEntity.noContent().build();
 	}
 
 }
@@ -1,6 +1,10 @@
 package com.vibenotes.controller;
 
+import com.vibenotes.service.AvatarImageService;
 import com.vibenotes.service.FileStorageService;
+import com.vibenotes.service.StoredFile;
+import com.vibenotes.util.MultipartStreamUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,9 +21,13 @@ public class FileUploadController {
 	@Autowired
 	private FileStorageService fileStorageService;
 
+	@Autowired
+	private AvatarImageService avatarImageService;
+
 	@PostMapping("/avatar")
 	public ResponseEntity<Map<String, String>> uploadAvatar(@RequestParam("file") MultipartFile file) {
 		String filename = fileStorageService.storeAvatar(file);
+		avatarImageService.submit(filename);
 		String fileUrl = "/uploads/avatars/" + filename;
 
 		Map<String, String> response = new HashMap<>();
@@ -30,11 +38,11 @@ public class FileUploadController {
 	}
 
 	@PostMapping("/attachment")
-	public ResponseEntity<Map<String, Object>> uploadAttachment(@RequestParam("file") MultipartFile file) {
-		String filename = fileStorageService.storeAttachment(file);
+	public ResponseEntity<Map<String, Object>> uploadAttachment(HttpServletRequest request) {
+		StoredFile file = MultipartStreamUtil.readFilePart(request, "file", fileStorageService::storeAttachment);
 
 		Map<String, Object> response = new HashMap<>();
-		response.put("filename", filename);
+		response.put("filename", file.getFilename());
 		response.put("originalFilename", file.getOriginalFilename());
 		response.put("fileSize", file.getSize());
 		response.put("contentType", file.getContentType());
@@ -0,0 +1,59 @@
+package com.vibenotes.controller;
+
+import com.vibenotes.dto.ImportJobResponse;
+import com.vibenotes.security.AuthenticatedUser;
+import com.vibenotes.service.NoteImportService;
+import com.vibenotes.service.NoteImporter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+
+// A failed upload is resumed by sending the same archive to the same job again
+@RestController
+@RequestMapping("/api/imports")
+@CrossOrigin
+public class ImportController {
+
+	@Autowired
+	private NoteImportService importService;
+
+	@Autowired
+	private NoteImporter importer;
+
+	@PostMapping
+	public ResponseEntity<ImportJobResponse> createJob(@AuthenticationPrincipal AuthenticatedUser user) {
+		ImportJobResponse job = importService.createJob(user);
+		URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+				.path("/{id}")
+				.buildAndExpand(job.getId())
+				.toUri();
+		return ResponseEntity.created(location).body(job);
+	}
+
+	@GetMapping("/{id}")
+	public ResponseEntity<ImportJobResponse> getJob(
+			@PathVariable Long id,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		ImportJobResponse job = importService.getJob(user, id);
+		return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(job);
+	}
+
+	// The request body is the archive itself (ZIP, tar or tar.gz), read as it arrives
+	@PutMapping(value = "/{id}/archive", consumes = {"application/zip", "application/x-tar", "application/gzip",
+			"application/octet-stream"})
+	public ResponseEntity<ImportJobResponse> uploadArchive(
+			@PathVariable Long id,
+			@AuthenticationPrincipal AuthenticatedUser user,
+			HttpServletRequest request) throws IOException {
+		ImportJobResponse job = importer.run(user, id, request.getInputStream());
+		return ResponseEntity.ok(job);
+	}
+
+}
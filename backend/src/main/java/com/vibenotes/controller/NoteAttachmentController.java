@@ -1,20 +1,29 @@
 package com.vibenotes.controller;
 
+import com.vibenotes.cache.PublicNoteListCache;
 import com.vibenotes.dto.AttachmentResponse;
+import com.vibenotes.events.NoteEvent;
+import com.vibenotes.events.NoteEventBroadcaster;
 import com.vibenotes.exception.ResourceNotFoundException;
 import com.vibenotes.model.Note;
 import com.vibenotes.model.NoteAttachment;
 import com.vibenotes.repository.NoteAttachmentRepository;
 import com.vibenotes.repository.NoteRepository;
+import com.vibenotes.security.AuthenticatedUser;
+import com.vibenotes.service.AttachmentService;
 import com.vibenotes.service.FileStorageService;
+import com.vibenotes.service.StoredFile;
+import com.vibenotes.util.FileResponseUtil;
+import com.vibenotes.util.MultipartStreamUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
 
 @RestController
 @RequestMapping("/api/notes/{noteId}/attachments")
@@ -30,30 +39,39 @@ public class NoteAttachmentController {
 	@Autowired
 	private FileStorageService fileStorageService;
 
+	@Autowired
+	private AttachmentService attachmentService;
+
+	@Autowired
+	private PublicNoteListCache publicListCache;
+
+	@Autowired
+	private NoteEventBroadcaster eventBroadcaster;
+
+	// The file part is streamed straight into storage rather than bound as a MultipartFile
 	@PostMapping
 	public ResponseEntity<AttachmentResponse> uploadAttachment(
 			@PathVariable Long noteId,
-			@RequestParam("file") MultipartFile file,
-			Authentication authentication) {
-		
-		String username = authentication.getName();
+			@AuthenticationPrincipal AuthenticatedUser user,
+			HttpServletRequest request) {
 		
 		// Verify note belongs to user
-		Note note = noteRepository.findByIdAndUserUsername(noteId, username)
+		Note note = noteRepository.findByIdAndUserId(noteId, user.getId())
 				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
 
 		// Store file
-		String filename = fileStorageService.storeAttachment(file);
-
-		// Create attachment record
-		NoteAttachment attachment = new NoteAttachment();
-		attachment.setFilename(filename);
-		attachment.setOriginalFilename(file.getOriginalFilename());
-		attachment.setFileSize(file.getSize());
-		attachment.setContentType(file.getContentType());
-		attachment.setNote(note);
-
-		NoteAttachment savedAttachment = attachmentRepository.save(attachment);
+		StoredFile file = MultipartStreamUtil.readFilePart(request, "file", fileStorageService::stageAttachment);
+		NoteAttachment savedAttachment;
+		try {
+			savedAttachment = attachmentService.addAttachment(note, file);
+		} finally {
+			fileStorageService.discardStaged(file);
+		}
+		if (note.getIsPublic()) {
+			publicListCache.invalidate(user.getName());
+		}
+		eventBroadcaster.publish(user.getId(),
+				NoteEvent.attachment(NoteEvent.ATTACHMENT_ADDED, noteId, savedAttachment.getId()));
 
 		AttachmentResponse response = new AttachmentResponse(
 				savedAttachment.getId(),
@@ -66,64 +84,50 @@ public class NoteAttachmentController {
 		return ResponseEntity.ok(response);
 	}
 
+	// Supports conditional requests and byte ranges (206, multipart/byteranges), so large
+	// downloads can be resumed and seeked; the body is sent without copying it into the heap.
+	// Text attachments come from their precompressed gzip copy when the client accepts it.
 	@GetMapping("/{attachmentId}")
-	public ResponseEntity<Resource> downloadAttachment(
+	public void downloadAttachment(
 			@PathVariable Long noteId,
 			@PathVariable Long attachmentId,
-			Authentication authentication) {
+			@AuthenticationPrincipal AuthenticatedUser user,
+			HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
 		
-		String username = authentication.getName();
-		
-		// Verify note belongs to user
-		noteRepository.findByIdAndUserUsername(noteId, username)
-				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
-
-		NoteAttachment attachment = attachmentRepository.findById(attachmentId)
+		// Verify attachment belongs to a note of the user
+		NoteAttachment attachment = attachmentRepository.findByIdAndNoteIdAndNoteUserId(attachmentId, noteId, user.getId())
 				.orElseThrow(() -> new ResourceNotFoundException("Attachment not found"));
 
-		// Verify attachment belongs to note
-		if (!attachment.getNote().getId().equals(noteId)) {
-			throw new ResourceNotFoundException("Attachment not found");
-		}
-
-		Resource resource = fileStorageService.loadAttachment(attachment.getFilename());
+		Path file = fileStorageService.loadAttachment(attachment.getFilename());
 
 		String contentType = attachment.getContentType();
 		if (contentType == null) {
 			contentType = "application/octet-stream";
 		}
 
-		return ResponseEntity.ok()
-				.contentType(MediaType.parseMediaType(contentType))
-				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + attachment.getOriginalFilename() + "\"")
-				.body(resource);
+		FileResponseUtil.write(request, response, file, fileStorageService.findGzipVariant(attachment.getFilename()), contentType,
+				"attachment; filename=\"" + attachment.getOriginalFilename() + "\"");
 	}
 
 	@DeleteMapping("/{attachmentId}")
 	public ResponseEntity<Void> deleteAttachment(
 			@PathVariable Long noteId,
 			@PathVariable Long attachmentId,
-			Authentication authentication) {
+			@AuthenticationPrincipal AuthenticatedUser user) {
 		
-		String username = authentication.getName();
-		
-		// Verify note belongs to user
-		noteRepository.findByIdAndUserUsername(noteId, username)
-				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
-
-		NoteAttachment attachment = attachmentRepository.findById(attachmentId)
+		// Verify attachment belongs to a note of the user
+		NoteAttachment attachment = attachmentRepository.findWithNoteByIdAndNoteIdAndNoteUserId(attachmentId, noteId, user.getId())
 				.orElseThrow(() -> new ResourceNotFoundException("Attachment not found"));
+		Note note = attachment.getNote();
 
-		// Verify attachment belongs to note
-		if (!attachment.getNote().getId().equals(noteId)) {
-			throw new ResourceNotFoundException("Attachment not found");
+		// Delete database record, and the file once nothing else refers to it
+		attachmentService.deleteAttachment(attachment);
+		if (note.getIsPublic()) {
+			publicListCache.invalidate(user.getName());
 		}
-
-		// Delete file from storage
-		fileStorageService.deleteAttachment(attachment.getFilename());
-
-		// Delete database record
-		attachmentRepository.delete(attachment);
+		eventBroadcaster.publish(user.getId(),
+				NoteEvent.attachment(NoteEvent.ATTACHMENT_DELETED, noteId, attachmentId));
 
 		return ResponseEntity.noContent().build();
 	}
@@ -1,69 +1,254 @@
 package com.vibenotes.controller;
 
+import com.vibenotes.dto.AuthResponse;
 import com.vibenotes.dto.CreateNoteRequest;
+import com.vibenotes.dto.CursorPage;
+import com.vibenotes.dto.NoteBatchRequest;
+import com.vibenotes.dto.NoteBatchResponse;
+import com.vibenotes.dto.NoteChangesResponse;
 import com.vibenotes.dto.NoteResponse;
+import com.vibenotes.dto.NoteRevisionResponse;
+import com.vibenotes.dto.NoteSearchResult;
+import com.vibenotes.dto.NoteSummaryResponse;
+import com.vibenotes.dto.PatchNoteRequest;
 import com.vibenotes.dto.UpdateNoteRequest;
+import com.vibenotes.events.NoteEventBroadcaster;
+import com.vibenotes.exception.ServiceBusyException;
+import com.vibenotes.security.AuthenticatedUser;
+import com.vibenotes.service.AuthService;
+import com.vibenotes.service.NoteExportService;
+import com.vibenotes.service.NotebookStreamLimiter;
 import com.vibenotes.service.NoteService;
+import com.vibenotes.util.PaginationUtil;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/notes")
 @CrossOrigin
 public class NoteController {
 
+	private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
 	@Autowired
 	private NoteService noteService;
 
+	@Autowired
+	private NoteExportService noteExportService;
+
+	@Autowired
+	private NotebookStreamLimiter streamLimiter;
+
+	@Autowired
+	private NoteEventBroadcaster eventBroadcaster;
+
+	@Autowired
+	private AuthService authService;
+
 	@PostMapping
 	public ResponseEntity<NoteResponse> createNote(
 			@Valid @RequestBody CreateNoteRequest request,
-			Authentication authentication) {
-		String username = authentication.getName();
-		NoteResponse note = noteService.createNote(username, request);
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		NoteResponse note = noteService.createNote(user, request);
 		return ResponseEntity.status(HttpStatus.CREATED).body(note);
 	}
 
 	@GetMapping
-	public ResponseEntity<List<NoteResponse>> getUserNotes(Authentication authentication) {
-		String username = authentication.getName();
-		List<NoteResponse> notes = noteService.getUserNotes(username);
-		return ResponseEntity.ok(notes);
+	public ResponseEntity<CursorPage<NoteResponse>> getUserNotes(
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			@AuthenticationPrincipal AuthenticatedUser user,
+			WebRequest webRequest) {
+		if (webRequest.checkNotModified(noteService.getUserNotesETag(user, "full", cursor, limit))) {
+			return null;
+		}
+		CursorPage<NoteResponse> notes = noteService.getUserNotes(user, cursor, limit);
+		return ResponseEntity.ok().cacheControl(REVALIDATE).body(PaginationUtil.withNextLink(notes));
+	}
+
+	// One note per line, written as it is read
+	@GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public ResponseEntity<StreamingResponseBody> streamUserNotes(
+			@AuthenticationPrincipal AuthenticatedUser user,
+			WebRequest webRequest) {
+		if (webRequest.checkNotModified(noteService.getUserNotesETag(user, "ndjson", null, null))) {
+			return null;
+		}
+		NotebookStreamLimiter.Permit permit;
+		try {
+			permit = streamLimiter.acquire();
+		} catch (ServiceBusyException ex) {
+			// Without a body: an error in JSON would not satisfy Accept: application/x-ndjson
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+					.header(HttpHeaders.RETRY_AFTER, "1")
+					.build();
+		}
+		StreamingResponseBody body = out -> {
+			try (permit) {
+				noteService.writeUserNotes(user, out);
+			}
+		};
+		return ResponseEntity.ok()
+				.cacheControl(REVALIDATE)
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(body);
+	}
+
+	// Written on the request thread so a large archive is not cut off by the async timeout
+	@GetMapping(value = "/export", produces = "application/zip")
+	public void exportNotes(
+			@AuthenticationPrincipal AuthenticatedUser user,
+			HttpServletResponse response) throws IOException {
+		try (NotebookStreamLimiter.Permit permit = streamLimiter.acquire()) {
+			response.setContentType("application/zip");
+			response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+					.filename(user.getName() + "-notes.zip")
+					.build()
+					.toString());
+			response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+			noteExportService.writeExport(user, response.getOutputStream());
+		}
+	}
+
+	@GetMapping(params = "view=summary")
+	public ResponseEntity<CursorPage<NoteSummaryResponse>> getUserNoteSummaries(
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			@AuthenticationPrincipal AuthenticatedUser user,
+			WebRequest webRequest) {
+		if (webRequest.checkNotModified(noteService.getUserNotesETag(user, "summary", cursor, limit))) {
+			return null;
+		}
+		CursorPage<NoteSummaryResponse> notes = noteService.getUserNoteSummaries(user, cursor, limit);
+		return ResponseEntity.ok().cacheControl(REVALIDATE).body(PaginationUtil.withNextLink(notes));
+	}
+
+	@GetMapping("/search")
+	public ResponseEntity<CursorPage<NoteSearchResult>> searchNotes(
+			@RequestParam("q") String query,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		CursorPage<NoteSearchResult> results = noteService.searchUserNotes(user, query, cursor, limit);
+		return ResponseEntity.ok(PaginationUtil.withNextLink(results));
+	}
+
+	// 410 means deletions after since were pruned; sync again without it
+	@GetMapping("/changes")
+	public ResponseEntity<NoteChangesResponse> getChanges(
+			@RequestParam(required = false) Long since,
+			@RequestParam(required = false) Integer limit,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		NoteChangesResponse changes = noteService.getChanges(user, since, limit);
+		return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(changes);
+	}
+
+	// EventSource cannot set Authorization, so this also accepts ?token= from /events/token
+	@GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter streamEvents(@AuthenticationPrincipal AuthenticatedUser user) {
+		return eventBroadcaster.subscribe(user.getId());
+	}
+
+	@PostMapping("/events/token")
+	public ResponseEntity<AuthResponse> issueEventsToken(@AuthenticationPrincipal AuthenticatedUser user) {
+		return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(authService.issueEventsToken(user.getId()));
+	}
+
+	@PostMapping("/batch")
+	public ResponseEntity<NoteBatchResponse> applyBatch(
+			@RequestBody NoteBatchRequest request,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		NoteBatchResponse response = noteService.applyBatch(user, request.getOperations());
+		return ResponseEntity.ok(response);
 	}
 
 	@GetMapping("/{id}")
 	public ResponseEntity<NoteResponse> getNoteById(
 			@PathVariable Long id,
-			Authentication authentication) {
-		String username = authentication.getName();
-		NoteResponse note = noteService.getNoteById(username, id);
-		return ResponseEntity.ok(note);
+			@AuthenticationPrincipal AuthenticatedUser user,
+			WebRequest webRequest) {
+		// checkNotModified sets the ETag header itself and answers 304 when it matches
+		if (webRequest.checkNotModified(noteService.getNoteETag(user, id))) {
+			return null;
+		}
+		NoteResponse note = noteService.getNoteById(user, id);
+		return ResponseEntity.ok().cacheControl(REVALIDATE).body(note);
 	}
 
 	@PutMapping("/{id}")
 	public ResponseEntity<NoteResponse> updateNote(
 			@PathVariable Long id,
 			@Valid @RequestBody UpdateNoteRequest request,
-			Authentication authentication) {
-		String username = authentication.getName();
-		NoteResponse note = noteService.updateNote(username, id, request);
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		NoteResponse note = noteService.updateNote(user, id, request);
 		return ResponseEntity.ok(note);
 	}
 
+	// If-Match names the version the edits were made against
+	@PatchMapping("/{id}")
+	public ResponseEntity<NoteResponse> patchNote(
+			@PathVariable Long id,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@Valid @RequestBody PatchNoteRequest request,
+			@AuthenticationPrincipal AuthenticatedUser user,
+			HttpServletRequest servletRequest) {
+		NoteService.PatchedNote patched = noteService.patchNote(user, id, ifMatch, request,
+				servletRequest.getContentLengthLong());
+		return ResponseEntity.ok()
+				.eTag(patched.getETag())
+				.body(patched.getNote());
+	}
+
 	@DeleteMapping("/{id}")
 	public ResponseEntity<Void> deleteNote(
 			@PathVariable Long id,
-			Authentication authentication) {
-		String username = authentication.getName();
-		noteService.deleteNote(username, id);
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		noteService.deleteNote(user, id);
 		return ResponseEntity.noContent().build();
 	}
 
+	@GetMapping("/{id}/revisions")
+	public ResponseEntity<CursorPage<NoteRevisionResponse>> getNoteRevisions(
+			@PathVariable Long id,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		CursorPage<NoteRevisionResponse> revisions = noteService.getNoteRevisions(user, id, cursor, limit);
+		return ResponseEntity.ok(PaginationUtil.withNextLink(revisions));
+	}
+
+	@GetMapping("/{id}/revisions/{number}")
+	public ResponseEntity<NoteRevisionResponse> getNoteRevision(
+			@PathVariable Long id,
+			@PathVariable int number,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		NoteRevisionResponse revision = noteService.getNoteRevision(user, id, number);
+		return ResponseEntity.ok(revision);
+	}
+
+	@PostMapping("/{id}/revisions/{number}/restore")
+	public ResponseEntity<NoteResponse> restoreNoteRevision(
+			@PathVariable Long id,
+			@PathVariable int number,
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		NoteResponse note = noteService.restoreNoteRevision(user, id, number);
+		return ResponseEntity.ok(note);
+	}
+
 }
 
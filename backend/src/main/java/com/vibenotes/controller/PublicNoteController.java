@@ -1,26 +1,102 @@
 package com.vibenotes.controller;
 
-import com.vibenotes.dto.NoteResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vibenotes.cache.PublicNoteListCache;
+import com.vibenotes.dto.CursorPage;
+import com.vibenotes.dto.NoteSearchResult;
 import com.vibenotes.service.NoteService;
+import com.vibenotes.util.PaginationUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/public/users/{username}/notes")
 @CrossOrigin
 public class PublicNoteController {
 
+	// Anonymous listings may be stored by shared caches, but only served after revalidation
+	private static final CacheControl REVALIDATE = CacheControl.noCache();
+
 	@Autowired
 	private NoteService noteService;
 
+	@Autowired
+	private PublicNoteListCache listCache;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	@GetMapping
-	public ResponseEntity<List<NoteResponse>> getPublicNotes(@PathVariable String username) {
-		List<NoteResponse> notes = noteService.getPublicNotesByUsername(username);
-		return ResponseEntity.ok(notes);
+	public ResponseEntity<byte[]> getPublicNotes(
+			@PathVariable String username,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			WebRequest webRequest) throws JsonProcessingException {
+		return cachedListing(username, "full", cursor, limit, webRequest,
+				() -> noteService.getPublicNotesByUsername(username, cursor, limit));
 	}
 
-}
+	@GetMapping(params = "view=summary")
+	public ResponseEntity<byte[]> getPublicNoteSummaries(
+			@PathVariable String username,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit,
+			WebRequest webRequest) throws JsonProcessingException {
+		return cachedListing(username, "summary", cursor, limit, webRequest,
+				() -> noteService.getPublicNoteSummariesByUsername(username, cursor, limit));
+	}
 
+	@GetMapping("/search")
+	public ResponseEntity<CursorPage<NoteSearchResult>> searchPublicNotes(
+			@PathVariable String username,
+			@RequestParam("q") String query,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(required = false) Integer limit) {
+		CursorPage<NoteSearchResult> results = noteService.searchPublicNotesByUsername(username, query, cursor, limit);
+		return ResponseEntity.ok(PaginationUtil.withNextLink(results));
+	}
+
+	// Serves the listing from the serialized-bytes cache, keyed by the normalized parameters
+	// only, so made-up query parameters cannot multiply the entries of one owner
+	private ResponseEntity<byte[]> cachedListing(String username, String view, String cursor, Integer limit,
+			WebRequest webRequest, Supplier<CursorPage<?>> loader) throws JsonProcessingException {
+		int pageSize = noteService.resolvePageSize(limit);
+		String key = view + '\n' + pageSize + '\n' + (cursor != null ? cursor : "");
+		PublicNoteListCache.Entry cached = listCache.get(username, key);
+		if (cached != null) {
+			if (webRequest.checkNotModified(cached.getETag())) {
+				return null;
+			}
+			return jsonResponse(cached.getBody());
+		}
+
+		long stamp = listCache.stamp(username);
+		String eTag = noteService.getPublicNotesETag(username, view, cursor, limit);
+		if (webRequest.checkNotModified(eTag)) {
+			return null;
+		}
+		Map<String, Object> linkParams = new LinkedHashMap<>();
+		linkParams.put("view", "summary".equals(view) ? view : null);
+		linkParams.put("limit", pageSize);
+		byte[] body = objectMapper.writeValueAsBytes(PaginationUtil.withNextLink(loader.get(), linkParams));
+		listCache.put(username, key, stamp, eTag, body);
+		return jsonResponse(body);
+	}
+
+	private ResponseEntity<byte[]> jsonResponse(byte[] body) {
+		return ResponseEntity.ok()
+				.cacheControl(REVALIDATE)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(body);
+	}
+
+}
@@ -2,12 +2,15 @@ package com.vibenotes.controller;
 
 import com.vibenotes.dto.UpdateProfileRequest;
 import com.vibenotes.dto.UserProfileResponse;
+import com.vibenotes.security.AuthenticatedUser;
 import com.vibenotes.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,35 +19,46 @@ import java.util.List;
 @CrossOrigin
 public class UserController {
 
+	private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
 	@Autowired
 	private UserService userService;
 
 	@GetMapping("/profile")
-	public ResponseEntity<UserProfileResponse> getCurrentUserProfile(Authentication authentication) {
-		String username = authentication.getName();
-		UserProfileResponse profile = userService.getCurrentUserProfile(username);
-		return ResponseEntity.ok(profile);
+	public ResponseEntity<UserProfileResponse> getCurrentUserProfile(
+			@AuthenticationPrincipal AuthenticatedUser user,
+			WebRequest webRequest) {
+		if (webRequest.checkNotModified(userService.getCurrentUserProfileETag(user.getId()))) {
+			return null;
+		}
+		UserProfileResponse profile = userService.getCurrentUserProfile(user.getId());
+		return ResponseEntity.ok().cacheControl(REVALIDATE).body(profile);
 	}
 
 	@PutMapping("/profile")
 	public ResponseEntity<UserProfileResponse> updateProfile(
 			@Valid @RequestBody UpdateProfileRequest request,
-			Authentication authentication) {
-		String username = authentication.getName();
-		UserProfileResponse profile = userService.updateProfile(username, request);
+			@AuthenticationPrincipal AuthenticatedUser user) {
+		UserProfileResponse profile = userService.updateProfile(user.getId(), request);
 		return ResponseEntity.ok(profile);
 	}
 
 	@GetMapping
-	public ResponseEntity<List<UserProfileResponse>> getAllUsers() {
+	public ResponseEntity<List<UserProfileResponse>> getAllUsers(WebRequest webRequest) {
+		if (webRequest.checkNotModified(userService.getAllUsersETag())) {
+			return null;
+		}
 		List<UserProfileResponse> users = userService.getAllUsers();
-		return ResponseEntity.ok(users);
+		return ResponseEntity.ok().cacheControl(REVALIDATE).body(users);
 	}
 
 	@GetMapping("/{id}")
-	public ResponseEntity<UserProfileResponse> getUserById(@PathVariable Long id) {
+	public ResponseEntity<UserProfileResponse> getUserById(@PathVariable Long id, WebRequest webRequest) {
+		if (webRequest.checkNotModified(userService.getUserETag(id))) {
+			return null;
+		}
 		UserProfileResponse user = userService.getUserById(id);
-		return ResponseEntity.ok(user);
+		return ResponseEntity.ok().cacheControl(REVALIDATE).body(user);
 	}
 
 }
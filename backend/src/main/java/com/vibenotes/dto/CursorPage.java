@@ -0,0 +1,43 @@
+package com.vibenotes.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+
+	private List<T> items;
+	private String nextCursor;
+	private String next;
+
+	public CursorPage() {
+	}
+
+	public CursorPage(List<T> items, String nextCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<T> getItems() {
+		return items;
+	}
+
+	public void setItems(List<T> items) {
+		this.items = items;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
+	public String getNext() {
+		return next;
+	}
+
+	public void setNext(String next) {
+		this.next = next;
+	}
+
+}
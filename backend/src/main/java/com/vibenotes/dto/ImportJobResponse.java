@@ -0,0 +1,113 @@
+package com.vibenotes.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobResponse {
+
+	private Long id;
+	private String status;
+	private long bytesRead;
+	private long entriesProcessed;
+	private int notesImported;
+	private int attachmentsImported;
+	private int entriesSkipped;
+	private String error;
+	private LocalDateTime createdAt;
+	private LocalDateTime updatedAt;
+	private LocalDateTime completedAt;
+
+	public ImportJobResponse() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public void setBytesRead(long bytesRead) {
+		this.bytesRead = bytesRead;
+	}
+
+	public long getEntriesProcessed() {
+		return entriesProcessed;
+	}
+
+	public void setEntriesProcessed(long entriesProcessed) {
+		this.entriesProcessed = entriesProcessed;
+	}
+
+	public int getNotesImported() {
+		return notesImported;
+	}
+
+	public void setNotesImported(int notesImported) {
+		this.notesImported = notesImported;
+	}
+
+	public int getAttachmentsImported() {
+		return attachmentsImported;
+	}
+
+	public void setAttachmentsImported(int attachmentsImported) {
+		this.attachmentsImported = attachmentsImported;
+	}
+
+	public int getEntriesSkipped() {
+		return entriesSkipped;
+	}
+
+	public void setEntriesSkipped(int entriesSkipped) {
+		this.entriesSkipped = entriesSkipped;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(LocalDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	public LocalDateTime getCompletedAt() {
+		return completedAt;
+	}
+
+	public void setCompletedAt(LocalDateTime completedAt) {
+		this.completedAt = completedAt;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.vibenotes.dto;
+
+// op is create, update or delete; the other fields follow Create/UpdateNoteRequest
+public class NoteBatchOperation {
+
+	private String op;
+	private Long id;
+	private String title;
+	private String content;
+	private Boolean isPublic;
+
+	public NoteBatchOperation() {
+	}
+
+	public String getOp() {
+		return op;
+	}
+
+	public void setOp(String op) {
+		this.op = op;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	public void setContent(String content) {
+		this.content = content;
+	}
+
+	public Boolean getIsPublic() {
+		return isPublic;
+	}
+
+	public void setIsPublic(Boolean isPublic) {
+		this.isPublic = isPublic;
+	}
+
+}
@@ -0,0 +1,20 @@
+package com.vibenotes.dto;
+
+import java.util.List;
+
+public class NoteBatchRequest {
+
+	private List<NoteBatchOperation> operations;
+
+	public NoteBatchRequest() {
+	}
+
+	public List<NoteBatchOperation> getOperations() {
+		return operations;
+	}
+
+	public void setOperations(List<NoteBatchOperation> operations) {
+		this.operations = operations;
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.vibenotes.dto;
+
+import java.util.List;
+
+public class NoteBatchResponse {
+
+	private List<NoteBatchResult> results;
+	private int succeeded;
+	private int failed;
+
+	public NoteBatchResponse() {
+	}
+
+	public NoteBatchResponse(List<NoteBatchResult> results, int succeeded, int failed) {
+		this.results = results;
+		this.succeeded = succeeded;
+		this.failed = failed;
+	}
+
+	public List<NoteBatchResult> getResults() {
+		return results;
+	}
+
+	public void setResults(List<NoteBatchResult> results) {
+		this.results = results;
+	}
+
+	public int getSucceeded() {
+		return succeeded;
+	}
+
+	public void setSucceeded(int succeeded) {
+		this.succeeded = succeeded;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public void setFailed(int failed) {
+		this.failed = failed;
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.vibenotes.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Outcome of one item of a bulk request, in request order. status uses the code the
+// single-note endpoint would have answered with (201, 200, 204, 400 or 404).
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteBatchResult {
+
+	private int index;
+	private String op;
+	private int status;
+	private Long id;
+	private String error;
+
+	public NoteBatchResult() {
+	}
+
+	public NoteBatchResult(int index, String op, int status, Long id, String error) {
+		this.index = index;
+		this.op = op;
+		this.status = status;
+		this.id = id;
+		this.error = error;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
+	public String getOp() {
+		return op;
+	}
+
+	public void setOp(String op) {
+		this.op = op;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public void setStatus(int status) {
+		this.status = status;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+}
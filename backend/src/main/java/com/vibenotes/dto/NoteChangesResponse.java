@@ -0,0 +1,55 @@
+package com.vibenotes.dto;
+
+import java.util.List;
+
+// A negative cursor marks a full sync still paging and is passed back unchanged
+public class NoteChangesResponse {
+
+	private List<NoteResponse> notes;
+	private List<TombstoneResponse> deleted;
+	private long cursor;
+	private boolean hasMore;
+
+	public NoteChangesResponse() {
+	}
+
+	public NoteChangesResponse(List<NoteResponse> notes, List<TombstoneResponse> deleted, long cursor, boolean hasMore) {
+		this.notes = notes;
+		this.deleted = deleted;
+		this.cursor = cursor;
+		this.hasMore = hasMore;
+	}
+
+	public List<NoteResponse> getNotes() {
+		return notes;
+	}
+
+	public void setNotes(List<NoteResponse> notes) {
+		this.notes = notes;
+	}
+
+	public List<TombstoneResponse> getDeleted() {
+		return deleted;
+	}
+
+	public void setDeleted(List<TombstoneResponse> deleted) {
+		this.deleted = deleted;
+	}
+
+	public long getCursor() {
+		return cursor;
+	}
+
+	public void setCursor(long cursor) {
+		this.cursor = cursor;
+	}
+
+	public boolean isHasMore() {
+		return hasMore;
+	}
+
+	public void setHasMore(boolean hasMore) {
+		this.hasMore = hasMore;
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.vibenotes.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.vibenotes.model.NoteRevision;
+
+import java.time.LocalDateTime;
+
+// The content is only filled in when a single revision is requested
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteRevisionResponse {
+
+	private Integer number;
+	private String kind;
+	private String title;
+	private String content;
+	private Integer contentLength;
+	private Integer storedBytes;
+	private LocalDateTime savedAt;
+
+	public NoteRevisionResponse() {
+	}
+
+	// Used by repository projections
+	public NoteRevisionResponse(Integer number, NoteRevision.Kind kind, String title, Integer contentLength,
+			Integer storedBytes, LocalDateTime savedAt) {
+		this.number = number;
+		this.kind = kind.name().toLowerCase();
+		this.title = title;
+		this.contentLength = contentLength;
+		this.storedBytes = storedBytes;
+		this.savedAt = savedAt;
+	}
+
+	public Integer getNumber() {
+		return number;
+	}
+
+	public void setNumber(Integer number) {
+		this.number = number;
+	}
+
+	public String getKind() {
+		return kind;
+	}
+
+	public void setKind(String kind) {
+		this.kind = kind;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	public void setContent(String content) {
+		this.content = content;
+	}
+
+	public Integer getContentLength() {
+		return contentLength;
+	}
+
+	public void setContentLength(Integer contentLength) {
+		this.contentLength = contentLength;
+	}
+
+	public Integer getStoredBytes() {
+		return storedBytes;
+	}
+
+	public void setStoredBytes(Integer storedBytes) {
+		this.storedBytes = storedBytes;
+	}
+
+	public LocalDateTime getSavedAt() {
+		return savedAt;
+	}
+
+	public void setSavedAt(LocalDateTime savedAt) {
+		this.savedAt = savedAt;
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.vibenotes.dto;
+
+import java.time.LocalDateTime;
+
+public class NoteSearchResult {
+
+	private Long id;
+	private String title;
+	// Matched terms are wrapped in <mark></mark>; everything else is raw note text
+	private String snippet;
+	private String username;
+	private LocalDateTime createdAt;
+	private LocalDateTime updatedAt;
+	private Boolean isPublic;
+	private Float rank;
+
+	public NoteSearchResult() {
+	}
+
+	public NoteSearchResult(Long id, String title, String snippet, String username, LocalDateTime createdAt, LocalDateTime updatedAt, Boolean isPublic, Float rank) {
+		this.id = id;
+		this.title = title;
+		this.snippet = snippet;
+		this.username = username;
+		this.createdAt = createdAt;
+		this.updatedAt = updatedAt;
+		this.isPublic = isPublic;
+		this.rank = rank;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getSnippet() {
+		return snippet;
+	}
+
+	public void setSnippet(String snippet) {
+		this.snippet = snippet;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(LocalDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	public Boolean getIsPublic() {
+		return isPublic;
+	}
+
+	public void setIsPublic(Boolean isPublic) {
+		this.isPublic = isPublic;
+	}
+
+	public Float getRank() {
+		return rank;
+	}
+
+	public void setRank(Float rank) {
+		this.rank = rank;
+	}
+
+}
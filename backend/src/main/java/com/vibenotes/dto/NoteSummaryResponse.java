@@ -0,0 +1,99 @@
+package com.vibenotes.dto;
+
+import java.time.LocalDateTime;
+
+public class NoteSummaryResponse {
+
+	private Long id;
+	private String title;
+	private String preview;
+	private String username;
+	private LocalDateTime createdAt;
+	private LocalDateTime updatedAt;
+	private Boolean isPublic;
+	private Long attachmentCount;
+
+	public NoteSummaryResponse() {
+	}
+
+	// Used by repository projections; the owner's username is filled in by the service
+	public NoteSummaryResponse(Long id, String title, String preview, LocalDateTime createdAt, LocalDateTime updatedAt, Boolean isPublic, Long attachmentCount) {
+		this(id, title, preview, null, createdAt, updatedAt, isPublic, attachmentCount);
+	}
+
+	public NoteSummaryResponse(Long id, String title, String preview, String username, LocalDateTime createdAt, LocalDateTime updatedAt, Boolean isPublic, Long attachmentCount) {
+		this.id = id;
+		this.title = title;
+		this.preview = preview;
+		this.username = username;
+		this.createdAt = createdAt;
+		this.updatedAt = updatedAt;
+		this.isPublic = isPublic;
+		this.attachmentCount = attachmentCount;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getPreview() {
+		return preview;
+	}
+
+	public void setPreview(String preview) {
+		this.preview = preview;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public void setUsername(String username) {
+		this.username = username;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(LocalDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	public Boolean getIsPublic() {
+		return isPublic;
+	}
+
+	public void setIsPublic(Boolean isPublic) {
+		this.isPublic = isPublic;
+	}
+
+	public Long getAttachmentCount() {
+		return attachmentCount;
+	}
+
+	public void setAttachmentCount(Long attachmentCount) {
+		this.attachmentCount = attachmentCount;
+	}
+
+}
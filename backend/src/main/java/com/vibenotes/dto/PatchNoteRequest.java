@@ -0,0 +1,45 @@
+package com.vibenotes.dto;
+
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Edit offsets refer to the If-Match version, ascending and not overlapping
+public class PatchNoteRequest {
+
+	@Size(max = 10000, message = "At most 10000 edits are allowed")
+	private List<TextEdit> edits;
+
+	@Size(min = 1, max = 200, message = "Title must be between 1 and 200 characters")
+	private String title;
+
+	private Boolean isPublic;
+
+	public PatchNoteRequest() {
+	}
+
+	public List<TextEdit> getEdits() {
+		return edits;
+	}
+
+	public void setEdits(List<TextEdit> edits) {
+		this.edits = edits;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public Boolean getIsPublic() {
+		return isPublic;
+	}
+
+	public void setIsPublic(Boolean isPublic) {
+		this.isPublic = isPublic;
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.vibenotes.dto;
+
+// Replaces delete characters at offset of the base text with insert.
+// Offsets and lengths count UTF-16 code units, the same as JavaScript string indexes.
+public class TextEdit {
+
+	private Integer offset;
+	private Integer delete;
+	private String insert;
+
+	public TextEdit() {
+	}
+
+	public TextEdit(Integer offset, Integer delete, String insert) {
+		this.offset = offset;
+		this.delete = delete;
+		this.insert = insert;
+	}
+
+	public Integer getOffset() {
+		return offset;
+	}
+
+	public void setOffset(Integer offset) {
+		this.offset = offset;
+	}
+
+	public Integer getDelete() {
+		return delete;
+	}
+
+	public void setDelete(Integer delete) {
+		this.delete = delete;
+	}
+
+	public String getInsert() {
+		return insert;
+	}
+
+	public void setInsert(String insert) {
+		this.insert = insert;
+	}
+
+}
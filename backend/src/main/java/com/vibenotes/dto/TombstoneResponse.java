@@ -0,0 +1,54 @@
+package com.vibenotes.dto;
+
+import java.time.LocalDateTime;
+
+public class TombstoneResponse {
+
+	private String type;
+	private Long id;
+	private Long noteId;
+	private LocalDateTime deletedAt;
+
+	public TombstoneResponse() {
+	}
+
+	public TombstoneResponse(String type, Long id, Long noteId, LocalDateTime deletedAt) {
+		this.type = type;
+		this.id = id;
+		this.noteId = noteId;
+		this.deletedAt = deletedAt;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public void setType(String type) {
+		this.type = type;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getNoteId() {
+		return noteId;
+	}
+
+	public void setNoteId(Long noteId) {
+		this.noteId = noteId;
+	}
+
+	public LocalDateTime getDeletedAt() {
+		return deletedAt;
+	}
+
+	public void setDeletedAt(LocalDateTime deletedAt) {
+		this.deletedAt = deletedAt;
+	}
+
+}
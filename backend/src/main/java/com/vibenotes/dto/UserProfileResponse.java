@@ -1,6 +1,7 @@
 package com.vibenotes.dto;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 public class UserProfileResponse {
 
@@ -8,6 +9,8 @@ public class UserProfileResponse {
 	private String username;
 	private String description;
 	private String avatarUrl;
+	// Square thumbnails keyed by edge length (32, 64, 256); the original URL until one is ready
+	private Map<Integer, String> avatarUrls;
 	private LocalDateTime createdAt;
 
 	public UserProfileResponse() {
@@ -53,6 +56,14 @@ public class UserProfileResponse {
 		this.avatarUrl = avatarUrl;
 	}
 
+	public Map<Integer, String> getAvatarUrls() {
+		return avatarUrls;
+	}
+
+	public void setAvatarUrls(Map<Integer, String> avatarUrls) {
+		this.avatarUrls = avatarUrls;
+	}
+
 	public LocalDateTime getCreatedAt() {
 		return createdAt;
 	}
@@ -0,0 +1,42 @@
+package com.vibenotes.events;
+
+// Carries no note content; clients catch up through the change feed
+public class NoteEvent {
+
+	public static final String NOTE_CREATED = "note-created";
+	public static final String NOTE_UPDATED = "note-updated";
+	public static final String NOTE_DELETED = "note-deleted";
+	public static final String ATTACHMENT_ADDED = "attachment-added";
+	public static final String ATTACHMENT_DELETED = "attachment-deleted";
+
+	private final String type;
+	private final Long noteId;
+	private final Long attachmentId;
+
+	public NoteEvent(String type, Long noteId, Long attachmentId) {
+		this.type = type;
+		this.noteId = noteId;
+		this.attachmentId = attachmentId;
+	}
+
+	public static NoteEvent note(String type, Long noteId) {
+		return new NoteEvent(type, noteId, null);
+	}
+
+	public static NoteEvent attachment(String type, Long noteId, Long attachmentId) {
+		return new NoteEvent(type, noteId, attachmentId);
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public Long getNoteId() {
+		return noteId;
+	}
+
+	public Long getAttachmentId() {
+		return attachmentId;
+	}
+
+}
@@ -0,0 +1,289 @@
+package com.vibenotes.events;
+
+import com.vibenotes.exception.ServiceBusyException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Fans note events out to each user's open SSE streams. Dispatcher threads do the writing, so a
+// slow client never delays publishers, and an overflowing buffer becomes one "resync" event.
+// Subscriptions live in this instance only.
+@Component
+public class NoteEventBroadcaster {
+
+	static final String RESYNC = "resync";
+
+	private final int bufferSize;
+	private final int maxConnectionsPerUser;
+	private final int maxConnections;
+	private final long timeoutMillis;
+	private final long reconnectMillis;
+	private final long sendTimeoutNanos;
+	private final int maxStandInThreads;
+	private final ThreadPoolExecutor dispatcher;
+
+	private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+	private final AtomicInteger connectionCount = new AtomicInteger();
+	// Guards resizing the dispatcher pool and standInThreads
+	private final ReentrantLock poolLock = new ReentrantLock();
+	private int standInThreads;
+
+	public NoteEventBroadcaster(
+			@Value("${notes.events.buffer-size:64}") int bufferSize,
+			@Value("${notes.events.max-connections-per-user:5}") int maxConnectionsPerUser,
+			@Value("${notes.events.max-connections:10000}") int maxConnections,
+			@Value("${notes.events.timeout-ms:1800000}") long timeoutMillis,
+			@Value("${notes.events.reconnect-ms:3000}") long reconnectMillis,
+			@Value("${notes.events.dispatch-threads:4}") int dispatchThreads,
+			@Value("${notes.events.send-timeout-ms:5000}") long sendTimeoutMillis) {
+		this.bufferSize = bufferSize;
+		this.maxConnectionsPerUser = maxConnectionsPerUser;
+		this.maxConnections = maxConnections;
+		this.timeoutMillis = timeoutMillis;
+		this.reconnectMillis = reconnectMillis;
+		this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+		// Stand-ins are capped so a wave of dead clients cannot spawn threads without limit
+		this.maxStandInThreads = dispatchThreads * 4;
+		this.dispatcher = new ThreadPoolExecutor(dispatchThreads, dispatchThreads, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(), namedThreads());
+	}
+
+	public SseEmitter subscribe(Long userId) {
+		if (connectionCount.incrementAndGet() > maxConnections) {
+			connectionCount.decrementAndGet();
+			throw new ServiceBusyException("Too many open event streams");
+		}
+		SseEmitter emitter = new SseEmitter(timeoutMillis);
+		Subscription subscription = new Subscription(userId, emitter);
+		Set<Subscription> userSubscriptions = subscriptions.compute(userId, (id, current) -> {
+			Set<Subscription> set = current != null ? current : ConcurrentHashMap.newKeySet();
+			set.add(subscription);
+			return set;
+		});
+		if (userSubscriptions.size() > maxConnectionsPerUser) {
+			subscription.close();
+			throw new ServiceBusyException("Too many open event streams for user " + userId);
+		}
+
+		emitter.onCompletion(subscription::close);
+		emitter.onTimeout(emitter::complete);
+		emitter.onError(error -> subscription.close());
+		// Confirms the stream is live and tells EventSource clients how soon to reconnect
+		subscription.offer(SseEmitter.event().name("ready").reconnectTime(reconnectMillis), false);
+		return emitter;
+	}
+
+	public void publish(Long userId, NoteEvent event) {
+		Set<Subscription> userSubscriptions = subscriptions.get(userId);
+		if (userSubscriptions == null) {
+			return;
+		}
+		for (Subscription subscription : userSubscriptions) {
+			subscription.offer(SseEmitter.event().name(event.getType()).data(event, MediaType.APPLICATION_JSON), false);
+		}
+	}
+
+	// Inside a transaction the event waits for the commit, so clients never fetch a change that is not there yet
+	public void publishAfterCommit(Long userId, NoteEvent event) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publish(userId, event);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				publish(userId, event);
+			}
+		});
+	}
+
+	@Scheduled(fixedDelayString = "${notes.events.heartbeat-interval-ms:15000}",
+			initialDelayString = "${notes.events.heartbeat-interval-ms:15000}")
+	public void heartbeat() {
+		for (Set<Subscription> userSubscriptions : subscriptions.values()) {
+			for (Subscription subscription : userSubscriptions) {
+				subscription.offer(SseEmitter.event().comment("heartbeat"), true);
+			}
+		}
+	}
+
+	// Drops connections whose current write has not finished in time and replaces their thread
+	@Scheduled(fixedDelayString = "${notes.events.send-timeout-ms:5000}",
+			initialDelayString = "${notes.events.send-timeout-ms:5000}")
+	public void dropStalledConnections() {
+		long now = System.nanoTime();
+		for (Set<Subscription> userSubscriptions : subscriptions.values()) {
+			for (Subscription subscription : userSubscriptions) {
+				long started = subscription.sendStartedAt;
+				if (started != 0 && now - started > sendTimeoutNanos) {
+					subscription.stall();
+				}
+			}
+		}
+	}
+
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		dispatcher.shutdownNow();
+		subscriptions.values().forEach(userSubscriptions -> userSubscriptions.forEach(subscription -> {
+			subscription.close();
+			subscription.emitter.complete();
+		}));
+	}
+
+	private static ThreadFactory namedThreads() {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "note-events-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private final class Subscription implements Runnable {
+
+		private final Long userId;
+		private final SseEmitter emitter;
+		private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> buffer;
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private final AtomicBoolean closed = new AtomicBoolean();
+		private final AtomicBoolean standIn = new AtomicBoolean();
+		// Makes clear-and-resync atomic against other publishers; a lock rather than a monitor
+		// so a virtual-thread publisher waiting here does not pin its carrier
+		private final ReentrantLock offerLock = new ReentrantLock();
+		// System.nanoTime() when the write in progress began, 0 while not writing
+		private volatile long sendStartedAt;
+
+		private Subscription(Long userId, SseEmitter emitter) {
+			this.userId = userId;
+			this.emitter = emitter;
+			this.buffer = new ArrayBlockingQueue<>(bufferSize);
+		}
+
+		// Heartbeats are optional: one that does not fit is skipped rather than forcing a resync
+		private void offer(SseEmitter.SseEventBuilder event, boolean optional) {
+			offerLock.lock();
+			try {
+				if (closed.get()) {
+					return;
+				}
+				if (!buffer.offer(event)) {
+					if (optional) {
+						return;
+					}
+					buffer.clear();
+					buffer.offer(SseEmitter.event().name(RESYNC).data("{}", MediaType.APPLICATION_JSON));
+				}
+			} finally {
+				offerLock.unlock();
+			}
+			schedule();
+		}
+
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true)) {
+				try {
+					dispatcher.execute(this);
+				} catch (RejectedExecutionException ex) {
+					scheduled.set(false);
+				}
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				SseEmitter.SseEventBuilder event;
+				while (!closed.get() && (event = buffer.poll()) != null) {
+					sendStartedAt = System.nanoTime();
+					emitter.send(event);
+					sendStartedAt = 0;
+				}
+			} catch (IOException | IllegalStateException ex) {
+				// Client went away or the stream already ended; the container finishes the request
+				close();
+			} finally {
+				sendStartedAt = 0;
+				scheduled.set(false);
+				// This thread is free again, so the pool gives up the thread that stood in for it
+				releaseStandIn();
+			}
+			// An event offered after the loop ended but before the flag was cleared still needs a writer
+			if (!closed.get() && !buffer.isEmpty()) {
+				schedule();
+			}
+		}
+
+		// Called while this connection's write is blocked: no more events go to it, and the pool
+		// gets a thread to replace the blocked one until its write returns
+		private void stall() {
+			close();
+			poolLock.lock();
+			try {
+				if (standInThreads >= maxStandInThreads || !standIn.compareAndSet(false, true)) {
+					return;
+				}
+				standInThreads++;
+				dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() + 1);
+				dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() + 1);
+			} finally {
+				poolLock.unlock();
+			}
+			// The write may have returned before standIn was set, with the writer seeing no stand-in
+			if (sendStartedAt == 0) {
+				releaseStandIn();
+			}
+		}
+
+		private void releaseStandIn() {
+			if (!standIn.compareAndSet(true, false)) {
+				return;
+			}
+			poolLock.lock();
+			try {
+				standInThreads--;
+				dispatcher.setCorePoolSize(dispatcher.getCorePoolSize() - 1);
+				dispatcher.setMaximumPoolSize(dispatcher.getMaximumPoolSize() - 1);
+			} finally {
+				poolLock.unlock();
+			}
+		}
+
+		private void close() {
+			if (!closed.compareAndSet(false, true)) {
+				return;
+			}
+			buffer.clear();
+			subscriptions.computeIfPresent(userId, (id, set) -> {
+				set.remove(this);
+				return set.isEmpty() ? null : set;
+			});
+			connectionCount.decrementAndGet();
+		}
+
+	}
+
+}
@@ -4,10 +4,13 @@ import com.vibenotes.dto.ErrorResponse;
 import jakarta.validation.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -36,6 +39,20 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
 	}
 
+	@ExceptionHandler(ConflictException.class)
+	public ResponseEntity<ErrorResponse> handleConflictException(ConflictException ex) {
+		logger.warn("Conflict: {}", ex.getMessage());
+		ErrorResponse error = new ErrorResponse("Conflict", "The request conflicts with the current state of the resource");
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+	}
+
+	@ExceptionHandler(ResyncRequiredException.class)
+	public ResponseEntity<ErrorResponse> handleResyncRequiredException(ResyncRequiredException ex) {
+		logger.info("Change feed resync required: {}", ex.getMessage());
+		ErrorResponse error = new ErrorResponse("Resync required", "Changes since the given cursor are no longer available; sync again without since");
+		return ResponseEntity.status(HttpStatus.GONE).body(error);
+	}
+
 	@ExceptionHandler(BadCredentialsException.class)
 	public ResponseEntity<ErrorResponse> handleBadCredentialsException(BadCredentialsException ex) {
 		logger.warn("Authentication failed: Invalid credentials");
@@ -64,6 +81,33 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(error);
 	}
 
+	@ExceptionHandler(PayloadTooLargeException.class)
+	public ResponseEntity<ErrorResponse> handlePayloadTooLargeException(PayloadTooLargeException ex) {
+		logger.warn("File size exceeded: {}", ex.getMessage());
+		ErrorResponse error = new ErrorResponse("File too large", "The uploaded file exceeds the maximum allowed size");
+		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(error);
+	}
+
+	@ExceptionHandler(ServiceBusyException.class)
+	public ResponseEntity<ErrorResponse> handleServiceBusyException(ServiceBusyException ex) {
+		logger.warn("Request rejected: {}", ex.getMessage());
+		ErrorResponse error = new ErrorResponse("Service busy", "Too many requests are being processed, please retry shortly");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(error);
+	}
+
+	// Raised when no pooled database connection frees up within the pool's connection timeout,
+	// either while opening a transaction or for a repository call outside one
+	@ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+	public ResponseEntity<ErrorResponse> handleDatabaseUnavailable(Exception ex) {
+		logger.warn("Database unavailable: {}", ex.getMessage());
+		ErrorResponse error = new ErrorResponse("Service busy", "Too many requests are being processed, please retry shortly");
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(error);
+	}
+
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNotValidException ex) {
 		Map<String, String> errors = new HashMap<>();
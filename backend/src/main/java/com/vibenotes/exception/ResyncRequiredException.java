@@ -0,0 +1,7 @@
+package com.vibenotes.exception;
+
+public class ResyncRequiredException extends RuntimeException {
+	public ResyncRequiredException(String message) {
+		super(message);
+	}
+}
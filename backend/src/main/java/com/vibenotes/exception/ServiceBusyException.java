@@ -0,0 +1,11 @@
+package com.vibenotes.exception;
+
+public class ServiceBusyException extends RuntimeException {
+	public ServiceBusyException(String message) {
+		super(message);
+	}
+
+	public ServiceBusyException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
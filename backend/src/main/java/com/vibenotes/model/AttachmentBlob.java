@@ -0,0 +1,65 @@
+package com.vibenotes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Only changed through AttachmentBlobRepository, whose row lock also serializes file operations
+@Entity
+@Table(name = "attachment_blobs")
+public class AttachmentBlob {
+
+	@Id
+	@Column(length = 64)
+	private String sha256;
+
+	@Column(nullable = false)
+	private Long size;
+
+	@Column(name = "ref_count", nullable = false)
+	private Integer refCount;
+
+	@Column(name = "created_at", updatable = false)
+	private LocalDateTime createdAt;
+
+	public AttachmentBlob() {
+	}
+
+	public String getSha256() {
+		return sha256;
+	}
+
+	public void setSha256(String sha256) {
+		this.sha256 = sha256;
+	}
+
+	public Long getSize() {
+		return size;
+	}
+
+	public void setSize(Long size) {
+		this.size = size;
+	}
+
+	public Integer getRefCount() {
+		return refCount;
+	}
+
+	public void setRefCount(Integer refCount) {
+		this.refCount = refCount;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@PrePersist
+	protected void onCreate() {
+		createdAt = LocalDateTime.now();
+	}
+
+}
@@ -0,0 +1,168 @@
+package com.vibenotes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A running job whose progress has not moved for a while may be taken over
+@Entity
+@Table(name = "import_jobs", indexes = {
+	@Index(name = "idx_import_jobs_user_id", columnList = "user_id")
+})
+public class ImportJob {
+
+	public enum Status {
+		PENDING, RUNNING, COMPLETED, FAILED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_jobs_seq")
+	@SequenceGenerator(name = "import_jobs_seq", sequenceName = "import_jobs_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private Status status = Status.PENDING;
+
+	// Archive bytes consumed by the latest upload
+	@Column(name = "bytes_read", nullable = false)
+	private long bytesRead;
+
+	@Column(name = "entries_processed", nullable = false)
+	private long entriesProcessed;
+
+	@Column(name = "notes_imported", nullable = false)
+	private int notesImported;
+
+	@Column(name = "attachments_imported", nullable = false)
+	private int attachmentsImported;
+
+	@Column(name = "entries_skipped", nullable = false)
+	private int entriesSkipped;
+
+	@Column(length = 500)
+	private String error;
+
+	@Column(name = "created_at", updatable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "updated_at")
+	private LocalDateTime updatedAt;
+
+	@Column(name = "completed_at")
+	private LocalDateTime completedAt;
+
+	public ImportJob() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	public void setBytesRead(long bytesRead) {
+		this.bytesRead = bytesRead;
+	}
+
+	public long getEntriesProcessed() {
+		return entriesProcessed;
+	}
+
+	public void setEntriesProcessed(long entriesProcessed) {
+		this.entriesProcessed = entriesProcessed;
+	}
+
+	public int getNotesImported() {
+		return notesImported;
+	}
+
+	public void setNotesImported(int notesImported) {
+		this.notesImported = notesImported;
+	}
+
+	public int getAttachmentsImported() {
+		return attachmentsImported;
+	}
+
+	public void setAttachmentsImported(int attachmentsImported) {
+		this.attachmentsImported = attachmentsImported;
+	}
+
+	public int getEntriesSkipped() {
+		return entriesSkipped;
+	}
+
+	public void setEntriesSkipped(int entriesSkipped) {
+		this.entriesSkipped = entriesSkipped;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(LocalDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	public LocalDateTime getCompletedAt() {
+		return completedAt;
+	}
+
+	public void setCompletedAt(LocalDateTime completedAt) {
+		this.completedAt = completedAt;
+	}
+
+	@PrePersist
+	protected void onCreate() {
+		createdAt = LocalDateTime.now();
+		updatedAt = LocalDateTime.now();
+	}
+
+	@PreUpdate
+	protected void onUpdate() {
+		updatedAt = LocalDateTime.now();
+	}
+
+}
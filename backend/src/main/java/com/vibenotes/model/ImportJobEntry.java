@@ -0,0 +1,109 @@
+package com.vibenotes.model;
+
+import jakarta.persistence.*;
+
+// One archive entry handled by an import job, keyed by its path in the archive. A note file
+// is PENDING when its note was created early to hold attachments that came before it.
+@Entity
+@Table(name = "import_job_entries", uniqueConstraints = {
+	@UniqueConstraint(name = "uk_import_job_entries_job_path", columnNames = {"job_id", "path"})
+})
+public class ImportJobEntry {
+
+	public enum Status {
+		PENDING, IMPORTED, SKIPPED
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_job_entries_seq")
+	@SequenceGenerator(name = "import_job_entries_seq", sequenceName = "import_job_entries_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "job_id", nullable = false)
+	private Long jobId;
+
+	@Column(nullable = false, length = 1024)
+	private String path;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private Status status;
+
+	@Column(name = "note_id")
+	private Long noteId;
+
+	@Column(name = "attachment_id")
+	private Long attachmentId;
+
+	@Column(length = 500)
+	private String message;
+
+	public ImportJobEntry() {
+	}
+
+	public ImportJobEntry(Long jobId, String path, Status status, Long noteId, Long attachmentId, String message) {
+		this.jobId = jobId;
+		this.path = path;
+		this.status = status;
+		this.noteId = noteId;
+		this.attachmentId = attachmentId;
+		this.message = message;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getJobId() {
+		return jobId;
+	}
+
+	public void setJobId(Long jobId) {
+		this.jobId = jobId;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	public void setStatus(Status status) {
+		this.status = status;
+	}
+
+	public Long getNoteId() {
+		return noteId;
+	}
+
+	public void setNoteId(Long noteId) {
+		this.noteId = noteId;
+	}
+
+	public Long getAttachmentId() {
+		return attachmentId;
+	}
+
+	public void setAttachmentId(Long attachmentId) {
+		this.attachmentId = attachmentId;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	public void setMessage(String message) {
+		this.message = message;
+	}
+
+}
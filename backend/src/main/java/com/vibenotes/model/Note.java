@@ -3,15 +3,24 @@ package com.vibenotes.model;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 
+// Updates list only the changed columns, so an unchanged content value keeps its TOAST storage
+// instead of being written again with every title or visibility change
 @Entity
-@Table(name = "notes")
+@DynamicUpdate
+@Table(name = "notes", indexes = {
+	@Index(name = "idx_notes_user_updated", columnList = "user_id, updated_at, id"),
+	@Index(name = "idx_notes_user_public_updated", columnList = "user_id, is_public, updated_at, id"),
+	@Index(name = "idx_notes_user_change_seq", columnList = "user_id, change_seq")
+})
 public class Note {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+	@SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = 50)
 	private Long id;
 
 	@NotBlank
@@ -23,7 +32,7 @@ public class Note {
 	@Column(nullable = false, columnDefinition = "TEXT")
 	private String content;
 
-	@ManyToOne(fetch = FetchType.EAGER)
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "user_id", nullable = false)
 	private User user;
 
@@ -36,6 +45,10 @@ public class Note {
 	@Column(name = "is_public", nullable = false, columnDefinition = "BOOLEAN DEFAULT false")
 	private Boolean isPublic = false;
 
+	// Assigned by a database trigger on every write to the note or its attachments (schema.sql)
+	@Column(name = "change_seq", insertable = false, updatable = false)
+	private Long changeSeq;
+
 	public Note() {
 	}
 
@@ -104,6 +117,14 @@ public class Note {
 		this.isPublic = isPublic;
 	}
 
+	public Long getChangeSeq() {
+		return changeSeq;
+	}
+
+	public void setChangeSeq(Long changeSeq) {
+		this.changeSeq = changeSeq;
+	}
+
 	@PrePersist
 	protected void onCreate() {
 		createdAt = LocalDateTime.now();
@@ -5,11 +5,14 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "note_attachments")
+@Table(name = "note_attachments", indexes = {
+	@Index(name = "idx_note_attachments_note", columnList = "note_id")
+})
 public class NoteAttachment {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_attachments_seq")
+	@SequenceGenerator(name = "note_attachments_seq", sequenceName = "note_attachments_seq", allocationSize = 50)
 	private Long id;
 
 	@Column(nullable = false)
@@ -24,6 +27,10 @@ public class NoteAttachment {
 	@Column(name = "content_type")
 	private String contentType;
 
+	// Hex SHA-256 of the stored content, computed while the upload was written
+	@Column(length = 64)
+	private String sha256;
+
 	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "note_id", nullable = false)
 	private Note note;
@@ -74,6 +81,14 @@ public class NoteAttachment {
 		this.contentType = contentType;
 	}
 
+	public String getSha256() {
+		return sha256;
+	}
+
+	public void setSha256(String sha256) {
+		this.sha256 = sha256;
+	}
+
 	public Note getNote() {
 		return note;
 	}
@@ -0,0 +1,123 @@
+package com.vibenotes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A DELTA holds the edits that turn the next newer version back into this one
+@Entity
+@Table(name = "note_revisions", uniqueConstraints = {
+	@UniqueConstraint(name = "uk_note_revisions_note_number", columnNames = {"note_id", "number"})
+})
+public class NoteRevision {
+
+	public enum Kind {
+		SNAPSHOT, DELTA
+	}
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_revisions_seq")
+	@SequenceGenerator(name = "note_revisions_seq", sequenceName = "note_revisions_seq", allocationSize = 50)
+	private Long id;
+
+	@Column(name = "note_id", nullable = false)
+	private Long noteId;
+
+	@Column(nullable = false)
+	private int number;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private Kind kind;
+
+	@Column(nullable = false, length = 200)
+	private String title;
+
+	@Column(nullable = false)
+	private byte[] data;
+
+	// Length of data, kept so listings need not read it
+	@Column(name = "stored_size", nullable = false)
+	private int storedSize;
+
+	// Of the content this revision stands for, in characters
+	@Column(name = "content_length", nullable = false)
+	private int contentLength;
+
+	// When this version was saved, i.e. the note's updated_at while it was current
+	@Column(name = "saved_at")
+	private LocalDateTime savedAt;
+
+	public NoteRevision() {
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public Long getNoteId() {
+		return noteId;
+	}
+
+	public void setNoteId(Long noteId) {
+		this.noteId = noteId;
+	}
+
+	public int getNumber() {
+		return number;
+	}
+
+	public void setNumber(int number) {
+		this.number = number;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public void setKind(Kind kind) {
+		this.kind = kind;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public byte[] getData() {
+		return data;
+	}
+
+	public void setData(byte[] data) {
+		this.data = data;
+		this.storedSize = data != null ? data.length : 0;
+	}
+
+	public int getStoredSize() {
+		return storedSize;
+	}
+
+	public int getContentLength() {
+		return contentLength;
+	}
+
+	public void setContentLength(int contentLength) {
+		this.contentLength = contentLength;
+	}
+
+	public LocalDateTime getSavedAt() {
+		return savedAt;
+	}
+
+	public void setSavedAt(LocalDateTime savedAt) {
+		this.savedAt = savedAt;
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.vibenotes.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// Written by triggers (schema.sql), numbered from the same sequence as notes.change_seq
+@Entity
+@Table(name = "note_tombstones", indexes = {
+	@Index(name = "idx_note_tombstones_user_change_seq", columnList = "user_id, change_seq")
+})
+public class NoteTombstone {
+
+	public enum Type {
+		NOTE, ATTACHMENT
+	}
+
+	@Id
+	@Column(name = "change_seq")
+	private Long changeSeq;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "entity_type", nullable = false, length = 16)
+	private Type entityType;
+
+	@Column(name = "entity_id", nullable = false)
+	private Long entityId;
+
+	@Column(name = "note_id", nullable = false)
+	private Long noteId;
+
+	@Column(name = "deleted_at", nullable = false)
+	private LocalDateTime deletedAt;
+
+	public NoteTombstone() {
+	}
+
+	public Long getChangeSeq() {
+		return changeSeq;
+	}
+
+	public void setChangeSeq(Long changeSeq) {
+		this.changeSeq = changeSeq;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public Type getEntityType() {
+		return entityType;
+	}
+
+	public void setEntityType(Type entityType) {
+		this.entityType = entityType;
+	}
+
+	public Long getEntityId() {
+		return entityId;
+	}
+
+	public void setEntityId(Long entityId) {
+		this.entityId = entityId;
+	}
+
+	public Long getNoteId() {
+		return noteId;
+	}
+
+	public void setNoteId(Long noteId) {
+		this.noteId = noteId;
+	}
+
+	public LocalDateTime getDeletedAt() {
+		return deletedAt;
+	}
+
+	public void setDeletedAt(LocalDateTime deletedAt) {
+		this.deletedAt = deletedAt;
+	}
+
+}
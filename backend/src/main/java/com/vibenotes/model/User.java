@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 public class User {
 
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+	@SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
 	private Long id;
 
 	@NotBlank
@@ -29,12 +30,19 @@ public class User {
 	@Column(name = "created_at", updatable = false)
 	private LocalDateTime createdAt;
 
+	@Column(name = "updated_at")
+	private LocalDateTime updatedAt;
+
 	@Column(columnDefinition = "TEXT")
 	private String description;
 
 	@Column(name = "avatar_url")
 	private String avatarUrl;
 
+	// Bumped to revoke every token issued so far; tokens carry the version they were issued at
+	@Column(name = "token_version", nullable = false, columnDefinition = "integer default 0")
+	private Integer tokenVersion = 0;
+
 	public User() {
 	}
 
@@ -79,6 +87,14 @@ public class User {
 		this.createdAt = createdAt;
 	}
 
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(LocalDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
 	public String getDescription() {
 		return description;
 	}
@@ -95,9 +111,23 @@ public class User {
 		this.avatarUrl = avatarUrl;
 	}
 
+	public Integer getTokenVersion() {
+		return tokenVersion;
+	}
+
+	public void setTokenVersion(Integer tokenVersion) {
+		this.tokenVersion = tokenVersion;
+	}
+
 	@PrePersist
 	protected void onCreate() {
 		createdAt = LocalDateTime.now();
+		updatedAt = createdAt;
+	}
+
+	@PreUpdate
+	protected void onUpdate() {
+		updatedAt = LocalDateTime.now();
 	}
 
 }
@@ -0,0 +1,30 @@
+package com.vibenotes.repository;
+
+import com.vibenotes.model.AttachmentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+// Each statement locks the blob's row until the transaction ends
+@Repository
+public interface AttachmentBlobRepository extends JpaRepository<AttachmentBlob, String> {
+
+	@Modifying
+	@Query(value = "INSERT INTO attachment_blobs (sha256, size, ref_count, created_at) " +
+			"VALUES (:sha256, :size, 1, now()) " +
+			"ON CONFLICT (sha256) DO UPDATE SET ref_count = attachment_blobs.ref_count + 1",
+			nativeQuery = true)
+	void acquire(@Param("sha256") String sha256, @Param("size") long size);
+
+	@Modifying
+	@Query("UPDATE AttachmentBlob b SET b.refCount = b.refCount - 1 WHERE b.sha256 = :sha256")
+	int release(@Param("sha256") String sha256);
+
+	// Returns 1 when this call removed the last reference and the file must go
+	@Modifying
+	@Query("DELETE FROM AttachmentBlob b WHERE b.sha256 = :sha256 AND b.refCount <= 0")
+	int deleteIfUnreferenced(@Param("sha256") String sha256);
+
+}
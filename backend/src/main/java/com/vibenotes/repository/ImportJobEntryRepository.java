@@ -0,0 +1,17 @@
+package com.vibenotes.repository;
+
+import com.vibenotes.model.ImportJobEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ImportJobEntryRepository extends JpaRepository<ImportJobEntry, Long> {
+
+	List<ImportJobEntry> findByJobId(Long jobId);
+
+	List<ImportJobEntry> findByJobIdAndPathIn(Long jobId, Collection<String> paths);
+
+}
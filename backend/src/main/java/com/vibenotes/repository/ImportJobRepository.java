@@ -0,0 +1,23 @@
+package com.vibenotes.repository;
+
+import com.vibenotes.model.ImportJob;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+
+	Optional<ImportJob> findByIdAndUserId(Long id, Long userId);
+
+	// Held while a run claims the job, so two uploads to the same job cannot both start
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT j FROM ImportJob j WHERE j.id = :id AND j.userId = :userId")
+	Optional<ImportJob> findForUpdate(@Param("id") Long id, @Param("userId") Long userId);
+
+}
@@ -1,17 +1,39 @@
 package com.vibenotes.repository;
 
 import com.vibenotes.model.NoteAttachment;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NoteAttachmentRepository extends JpaRepository<NoteAttachment, Long> {
 
 	List<NoteAttachment> findByNoteId(Long noteId);
 
+	// Resolve an attachment and check its note and owner in a single statement
+	Optional<NoteAttachment> findByIdAndNoteIdAndNoteUserId(Long id, Long noteId, Long userId);
+
+	@EntityGraph(attributePaths = "note")
+	Optional<NoteAttachment> findWithNoteByIdAndNoteIdAndNoteUserId(Long id, Long noteId, Long userId);
+
+	// Batched lookup for a page of notes, grouped by note in the service layer
+	List<NoteAttachment> findByNoteIdIn(Collection<Long> noteIds);
+
 	void deleteByNoteId(Long noteId);
 
+	@Query("SELECT a.note.user.id FROM NoteAttachment a WHERE a.id = :id")
+	Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+	// Attachments still stored under a per-upload name, walked in id order by the deduplication job
+	@Query("SELECT a FROM NoteAttachment a WHERE a.id > :id AND (a.sha256 IS NULL OR a.filename <> a.sha256) ORDER BY a.id")
+	List<NoteAttachment> findNotContentAddressedAfter(@Param("id") Long id, Limit limit);
+
 }
 
@@ -0,0 +1,17 @@
+package com.vibenotes.repository;
+
+import java.time.LocalDateTime;
+
+// Aggregate state of a note listing: any create, update or delete of a note or
+// attachment in scope changes at least one of these values.
+public interface NoteListVersion {
+
+	Long getNoteCount();
+
+	LocalDateTime getLastUpdatedAt();
+
+	Long getAttachmentCount();
+
+	Long getLastAttachmentId();
+
+}
@@ -1,20 +1,169 @@
 package com.vibenotes.repository;
 
+import com.vibenotes.dto.NoteSummaryResponse;
 import com.vibenotes.model.Note;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+// Queries never fetch the owner: callers already know whose notes they asked for
 @Repository
 public interface NoteRepository extends JpaRepository<Note, Long> {
 
-	List<Note> findByUserUsernameOrderByUpdatedAtDesc(String username);
+	String HEADLINE_OPTIONS = "StartSel=<mark>, StopSel=</mark>, MaxWords=35, MinWords=15, MaxFragments=2";
 
-	Optional<Note> findByIdAndUserUsername(Long id, String username);
+	// Rows per round trip for streamed queries; PostgreSQL only honours it inside a transaction
+	int STREAM_FETCH_SIZE = 100;
 
-	List<Note> findByUserUsernameAndIsPublicTrueOrderByUpdatedAtDesc(String username);
+	Optional<Note> findByIdAndUserId(Long id, Long userId);
 
-}
+	boolean existsByIdAndUserId(Long id, Long userId);
+
+	List<Note> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
+
+	// Version data for conditional GETs; cheap aggregates that never read note content
+
+	@Query("SELECT n.id AS id, n.updatedAt AS updatedAt, COUNT(a) AS attachmentCount, MAX(a.id) AS lastAttachmentId " +
+			"FROM Note n LEFT JOIN NoteAttachment a ON a.note = n " +
+			"WHERE n.id = :id AND n.user.id = :userId GROUP BY n.id, n.updatedAt")
+	Optional<NoteVersion> findVersionByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+	@Query("SELECT COUNT(n) AS noteCount, MAX(n.updatedAt) AS lastUpdatedAt, " +
+			"(SELECT COUNT(a) FROM NoteAttachment a WHERE a.note.user.id = :userId) AS attachmentCount, " +
+			"(SELECT MAX(a.id) FROM NoteAttachment a WHERE a.note.user.id = :userId) AS lastAttachmentId " +
+			"FROM Note n WHERE n.user.id = :userId")
+	NoteListVersion findListVersionByUserId(@Param("userId") Long userId);
+
+	@Query("SELECT COUNT(n) AS noteCount, MAX(n.updatedAt) AS lastUpdatedAt, " +
+			"(SELECT COUNT(a) FROM NoteAttachment a WHERE a.note.user.username = :username AND a.note.isPublic = true) AS attachmentCount, " +
+			"(SELECT MAX(a.id) FROM NoteAttachment a WHERE a.note.user.username = :username AND a.note.isPublic = true) AS lastAttachmentId " +
+			"FROM Note n WHERE n.user.username = :username AND n.isPublic = true")
+	NoteListVersion findPublicListVersionByUsername(@Param("username") String username);
+
+	// Walks every note in id order, used to rebuild the embedded search index
+	List<Note> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+	// Keyset pages ordered by (updatedAt DESC, id DESC). The "after" variants continue
+	// strictly below the given position so deep pages cost the same as the first one.
+
+	List<Note> findByUserIdOrderByUpdatedAtDescIdDesc(Long userId, Limit limit);
+
+	// Change feed: notes written after the given change sequence number, oldest change first
+	List<Note> findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(Long userId, Long changeSeq, Limit limit);
+
+	// Serializes a user's note writes from here until commit, so change sequence numbers become
+	// visible in the order they were assigned and a poller never skips over one (see schema.sql)
+	@Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:userId)", nativeQuery = true)
+	int lockChanges(@Param("userId") long userId);
+
+	// Every note of a user in list order, read through a server-side cursor; must be consumed
+	// within a transaction and closed
+	@QueryHints({
+			@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+	})
+	@Query("SELECT n FROM Note n WHERE n.user.id = :userId ORDER BY n.updatedAt DESC, n.id DESC")
+	Stream<Note> streamByUserId(@Param("userId") Long userId);
 
+	@Query("SELECT n FROM Note n WHERE n.user.id = :userId " +
+			"AND n.updatedAt <= :updatedAt AND (n.updatedAt < :updatedAt OR n.id < :id) " +
+			"ORDER BY n.updatedAt DESC, n.id DESC")
+	List<Note> findPageByUserIdAfter(@Param("userId") Long userId,
+			@Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id, Limit limit);
+
+	List<Note> findByUserUsernameAndIsPublicTrueOrderByUpdatedAtDescIdDesc(String username, Limit limit);
+
+	@Query("SELECT n FROM Note n WHERE n.user.username = :username AND n.isPublic = true " +
+			"AND n.updatedAt <= :updatedAt AND (n.updatedAt < :updatedAt OR n.id < :id) " +
+			"ORDER BY n.updatedAt DESC, n.id DESC")
+	List<Note> findPublicPageByUsernameAfter(@Param("username") String username,
+			@Param("updatedAt") LocalDateTime updatedAt, @Param("id") Long id, Limit limit);
+
+	// Summary projections for list views. Only a prefix of the content column is read,
+	// and attachments are counted rather than loaded.
+
+	@Query("SELECT new com.vibenotes.dto.NoteSummaryResponse(n.id, n.title, SUBSTRING(n.content, 1, :previewLength), " +
+			"n.createdAt, n.updatedAt, n.isPublic, " +
+			"(SELECT COUNT(a) FROM NoteAttachment a WHERE a.note.id = n.id)) " +
+			"FROM Note n WHERE n.user.id = :userId " +
+			"ORDER BY n.updatedAt DESC, n.id DESC")
+	List<NoteSummaryResponse> findSummaryPageByUserId(@Param("userId") Long userId,
+			@Param("previewLength") int previewLength, Limit limit);
+
+	@Query("SELECT new com.vibenotes.dto.NoteSummaryResponse(n.id, n.title, SUBSTRING(n.content, 1, :previewLength), " +
+			"n.createdAt, n.updatedAt, n.isPublic, " +
+			"(SELECT COUNT(a) FROM NoteAttachment a WHERE a.note.id = n.id)) " +
+			"FROM Note n WHERE n.user.id = :userId " +
+			"AND n.updatedAt <= :updatedAt AND (n.updatedAt < :updatedAt OR n.id < :id) " +
+			"ORDER BY n.updatedAt DESC, n.id DESC")
+	List<NoteSummaryResponse> findSummaryPageByUserIdAfter(@Param("userId") Long userId,
+			@Param("previewLength") int previewLength, @Param("updatedAt") LocalDateTime updatedAt,
+			@Param("id") Long id, Limit limit);
+
+	@Query("SELECT new com.vibenotes.dto.NoteSummaryResponse(n.id, n.title, SUBSTRING(n.content, 1, :previewLength), " +
+			"n.createdAt, n.updatedAt, n.isPublic, " +
+			"(SELECT COUNT(a) FROM NoteAttachment a WHERE a.note.id = n.id)) " +
+			"FROM Note n WHERE n.user.username = :username AND n.isPublic = true " +
+			"ORDER BY n.updatedAt DESC, n.id DESC")
+	List<NoteSummaryResponse> findPublicSummaryPageByUsername(@Param("username") String username,
+			@Param("previewLength") int previewLength, Limit limit);
+
+	@Query("SELECT new com.vibenotes.dto.NoteSummaryResponse(n.id, n.title, SUBSTRING(n.content, 1, :previewLength), " +
+			"n.createdAt, n.updatedAt, n.isPublic, " +
+			"(SELECT COUNT(a) FROM NoteAttachment a WHERE a.note.id = n.id)) " +
+			"FROM Note n WHERE n.user.username = :username AND n.isPublic = true " +
+			"AND n.updatedAt <= :updatedAt AND (n.updatedAt < :updatedAt OR n.id < :id) " +
+			"ORDER BY n.updatedAt DESC, n.id DESC")
+	List<NoteSummaryResponse> findPublicSummaryPageByUsernameAfter(@Param("username") String username,
+			@Param("previewLength") int previewLength, @Param("updatedAt") LocalDateTime updatedAt,
+			@Param("id") Long id, Limit limit);
+
+	// Ranked full-text search over the generated search_vector column (see schema.sql).
+	// Matches are ranked and cut to one page first; snippets are only highlighted for that page.
+
+	@Query(value = "WITH query AS (SELECT websearch_to_tsquery('english', :query) AS q), " +
+			"hits AS (SELECT n.id, ts_rank(n.search_vector, query.q) AS rank " +
+			"FROM notes n, query " +
+			"WHERE n.user_id = :userId AND n.search_vector @@ query.q), " +
+			"page AS (SELECT hits.id, hits.rank FROM hits " +
+			"WHERE hits.rank < :rank OR (hits.rank = :rank AND hits.id < :id) " +
+			"ORDER BY hits.rank DESC, hits.id DESC LIMIT :limit) " +
+			"SELECT n.id AS id, n.title AS title, " +
+			"ts_headline('english', n.content, query.q, '" + HEADLINE_OPTIONS + "') AS snippet, " +
+			"n.created_at AS createdAt, n.updated_at AS updatedAt, " +
+			"n.is_public AS isPublic, page.rank AS rank " +
+			"FROM page JOIN notes n ON n.id = page.id, query " +
+			"ORDER BY page.rank DESC, page.id DESC",
+			nativeQuery = true)
+	List<NoteSearchRow> searchByUserId(@Param("userId") Long userId, @Param("query") String query,
+			@Param("rank") float rank, @Param("id") Long id, @Param("limit") int limit);
+
+	@Query(value = "WITH query AS (SELECT websearch_to_tsquery('english', :query) AS q), " +
+			"hits AS (SELECT n.id, ts_rank(n.search_vector, query.q) AS rank " +
+			"FROM notes n JOIN users u ON u.id = n.user_id, query " +
+			"WHERE u.username = :username AND n.is_public = true AND n.search_vector @@ query.q), " +
+			"page AS (SELECT hits.id, hits.rank FROM hits " +
+			"WHERE hits.rank < :rank OR (hits.rank = :rank AND hits.id < :id) " +
+			"ORDER BY hits.rank DESC, hits.id DESC LIMIT :limit) " +
+			"SELECT n.id AS id, n.title AS title, " +
+			"ts_headline('english', n.content, query.q, '" + HEADLINE_OPTIONS + "') AS snippet, " +
+			"n.created_at AS createdAt, n.updated_at AS updatedAt, " +
+			"n.is_public AS isPublic, page.rank AS rank " +
+			"FROM page JOIN notes n ON n.id = page.id, query " +
+			"ORDER BY page.rank DESC, page.id DESC",
+			nativeQuery = true)
+	List<NoteSearchRow> searchPublicByUsername(@Param("username") String username, @Param("query") String query,
+			@Param("rank") float rank, @Param("id") Long id, @Param("limit") int limit);
+
+}
@@ -0,0 +1,46 @@
+package com.vibenotes.repository;
+
+import com.vibenotes.dto.NoteRevisionResponse;
+import com.vibenotes.model.NoteRevision;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+
+	@Query("SELECT MAX(r.number) FROM NoteRevision r WHERE r.noteId = :noteId")
+	Integer findLatestNumber(@Param("noteId") Long noteId);
+
+	@Query("SELECT r.noteId AS noteId, MAX(r.number) AS number FROM NoteRevision r " +
+			"WHERE r.noteId IN :noteIds GROUP BY r.noteId")
+	List<LatestNumber> findLatestNumbers(@Param("noteIds") Collection<Long> noteIds);
+
+	// Newest first, without reading the stored data
+	@Query("SELECT new com.vibenotes.dto.NoteRevisionResponse(r.number, r.kind, r.title, r.contentLength, r.storedSize, r.savedAt) " +
+			"FROM NoteRevision r WHERE r.noteId = :noteId AND r.number < :before " +
+			"ORDER BY r.number DESC")
+	List<NoteRevisionResponse> findPageByNoteId(@Param("noteId") Long noteId, @Param("before") int before, Limit limit);
+
+	// A revision and the ones after it, as far as needed to rebuild it
+	List<NoteRevision> findByNoteIdAndNumberGreaterThanEqualOrderByNumberAsc(Long noteId, int number, Limit limit);
+
+	@Modifying
+	@Query("DELETE FROM NoteRevision r WHERE r.noteId IN :noteIds")
+	int deleteByNoteIdIn(@Param("noteIds") Collection<Long> noteIds);
+
+	interface LatestNumber {
+
+		Long getNoteId();
+
+		Integer getNumber();
+
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.vibenotes.repository;
+
+import java.time.LocalDateTime;
+
+// Row shape returned by the native full-text search queries in NoteRepository.
+public interface NoteSearchRow {
+
+	Long getId();
+
+	String getTitle();
+
+	String getSnippet();
+
+	LocalDateTime getCreatedAt();
+
+	LocalDateTime getUpdatedAt();
+
+	Boolean getIsPublic();
+
+	Float getRank();
+
+}
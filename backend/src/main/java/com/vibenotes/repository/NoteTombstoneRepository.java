@@ -0,0 +1,37 @@
+package com.vibenotes.repository;
+
+import com.vibenotes.model.NoteTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NoteTombstoneRepository extends JpaRepository<NoteTombstone, Long> {
+
+	List<NoteTombstone> findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(Long userId, Long changeSeq, Limit limit);
+
+	// Highest change_seq of any pruned tombstone (see schema.sql)
+	@Query(value = "SELECT pruned_through FROM note_change_horizon WHERE id = 1", nativeQuery = true)
+	long findPrunedThrough();
+
+	// Deletes the oldest batch of tombstones from before the cutoff and moves the horizon past
+	// them in the same statement; returns 0 once nothing was left to prune
+	@Modifying
+	@Transactional
+	@Query(value = "WITH pruned AS (" +
+			"DELETE FROM note_tombstones WHERE change_seq IN (" +
+			"SELECT change_seq FROM note_tombstones WHERE deleted_at < :cutoff ORDER BY change_seq LIMIT :batchSize) " +
+			"RETURNING change_seq) " +
+			"UPDATE note_change_horizon SET pruned_through = GREATEST(pruned_through, (SELECT MAX(change_seq) FROM pruned)) " +
+			"WHERE id = 1 AND EXISTS (SELECT 1 FROM pruned)",
+			nativeQuery = true)
+	int pruneBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
+
+}
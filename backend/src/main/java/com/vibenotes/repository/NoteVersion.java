@@ -0,0 +1,17 @@
+package com.vibenotes.repository;
+
+import java.time.LocalDateTime;
+
+// Everything a single note response depends on, read without loading the note body.
+// Attachment ids only grow, so count plus highest id changes on every add or delete.
+public interface NoteVersion {
+
+	Long getId();
+
+	LocalDateTime getUpdatedAt();
+
+	Long getAttachmentCount();
+
+	Long getLastAttachmentId();
+
+}
@@ -0,0 +1,11 @@
+package com.vibenotes.repository;
+
+import java.time.LocalDateTime;
+
+public interface UserListVersion {
+
+	Long getUserCount();
+
+	LocalDateTime getLastModifiedAt();
+
+}
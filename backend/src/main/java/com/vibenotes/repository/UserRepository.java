@@ -2,8 +2,12 @@ package com.vibenotes.repository;
 
 import com.vibenotes.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,5 +17,21 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 	Boolean existsByUsername(String username);
 
+	@Query("SELECT u.id FROM User u WHERE u.username = :username")
+	Optional<Long> findIdByUsername(@Param("username") String username);
+
+	// Version data for conditional GETs on profiles
+
+	@Query("SELECT COALESCE(u.updatedAt, u.createdAt) FROM User u WHERE u.id = :id")
+	Optional<LocalDateTime> findLastModifiedById(@Param("id") Long id);
+
+	@Query("SELECT COUNT(u) AS userCount, MAX(COALESCE(u.updatedAt, u.createdAt)) AS lastModifiedAt FROM User u")
+	UserListVersion findListVersion();
+
+	// Users whose tokens were revoked at least once, for the in-memory revocation registry
+	@Query("SELECT u.id AS id, u.tokenVersion AS tokenVersion, u.updatedAt AS updatedAt FROM User u " +
+			"WHERE u.tokenVersion > 0 AND u.updatedAt > :since")
+	List<UserTokenVersion> findTokenVersionsUpdatedAfter(@Param("since") LocalDateTime since);
+
 }
 
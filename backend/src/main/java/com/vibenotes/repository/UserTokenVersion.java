@@ -0,0 +1,13 @@
+package com.vibenotes.repository;
+
+import java.time.LocalDateTime;
+
+public interface UserTokenVersion {
+
+	Long getId();
+
+	Integer getTokenVersion();
+
+	LocalDateTime getUpdatedAt();
+
+}
@@ -0,0 +1,195 @@
+package com.vibenotes.search;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Immutable segment mapped from a file written by {@link SegmentWriter}; only deletions live on the heap.
+ *
+ * <pre>
+ * header      magic, version, docCount, termCount, docTable, termIndex, termData, postings (8 ints)
+ * doc table   per doc: noteId (long), ownerId (long), length (int), public (byte)
+ * term index  per term: absolute offset of its entry in term data (int), in TERM_ORDER
+ * term data   per term: UTF-8 length (short), UTF-8 bytes, docFreq (int), postings offset (int)
+ * postings    per term: docFreq pairs of (doc, termFrequency) ints, ascending by doc
+ * </pre>
+ */
+final class MappedSegment implements Segment {
+
+	static final int MAGIC = 0x564E5358;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8 * Integer.BYTES;
+	static final int DOC_ENTRY_SIZE = Long.BYTES + Long.BYTES + Integer.BYTES + 1;
+
+	private final Path path;
+	private final MappedByteBuffer buffer;
+	private final int docCount;
+	private final int termCount;
+	private final int docTableOffset;
+	private final int termIndexOffset;
+	private final BitSet deleted = new BitSet();
+
+	private MappedSegment(Path path, MappedByteBuffer buffer) throws IOException {
+		this.path = path;
+		this.buffer = buffer;
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("Not a search segment or unsupported version: " + path);
+		}
+		this.docCount = buffer.getInt(8);
+		this.termCount = buffer.getInt(12);
+		this.docTableOffset = buffer.getInt(16);
+		this.termIndexOffset = buffer.getInt(20);
+	}
+
+	static MappedSegment open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Search segment exceeds 2GB and cannot be mapped: " + path);
+			}
+			// The mapping stays valid after the channel is closed
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MappedSegment(path, buffer);
+		}
+	}
+
+	Path getPath() {
+		return path;
+	}
+
+	@Override
+	public int docCount() {
+		return docCount;
+	}
+
+	@Override
+	public long noteId(int doc) {
+		return buffer.getLong(docTableOffset + doc * DOC_ENTRY_SIZE);
+	}
+
+	@Override
+	public long ownerId(int doc) {
+		return buffer.getLong(docTableOffset + doc * DOC_ENTRY_SIZE + Long.BYTES);
+	}
+
+	@Override
+	public int docLength(int doc) {
+		return buffer.getInt(docTableOffset + doc * DOC_ENTRY_SIZE + 2 * Long.BYTES);
+	}
+
+	@Override
+	public boolean isPublic(int doc) {
+		return buffer.get(docTableOffset + doc * DOC_ENTRY_SIZE + 2 * Long.BYTES + Integer.BYTES) != 0;
+	}
+
+	@Override
+	public boolean isDeleted(int doc) {
+		return deleted.get(doc);
+	}
+
+	@Override
+	public void delete(int doc) {
+		deleted.set(doc);
+	}
+
+	@Override
+	public BitSet deletedDocs() {
+		return (BitSet) deleted.clone();
+	}
+
+	@Override
+	public int docFreq(String term) {
+		int ord = findTerm(term);
+		return ord >= 0 ? buffer.getInt(termEntryTail(ord)) : 0;
+	}
+
+	@Override
+	public void postings(String term, PostingsVisitor visitor) {
+		int ord = findTerm(term);
+		if (ord < 0) {
+			return;
+		}
+		int tail = termEntryTail(ord);
+		int docFreq = buffer.getInt(tail);
+		int position = buffer.getInt(tail + Integer.BYTES);
+		for (int i = 0; i < docFreq; i++) {
+			visitor.visit(buffer.getInt(position), buffer.getInt(position + Integer.BYTES));
+			position += 2 * Integer.BYTES;
+		}
+	}
+
+	@Override
+	public void termsWithPrefix(String prefix, int max, Consumer<String> consumer) {
+		int ord = findTerm(prefix);
+		if (ord < 0) {
+			ord = -ord - 1;
+		}
+		for (int emitted = 0; ord < termCount && emitted < max; ord++, emitted++) {
+			String term = termAt(ord);
+			if (!term.startsWith(prefix)) {
+				return;
+			}
+			consumer.accept(term);
+		}
+	}
+
+	@Override
+	public Iterator<String> terms() {
+		return new Iterator<>() {
+			private int ord;
+
+			@Override
+			public boolean hasNext() {
+				return ord < termCount;
+			}
+
+			@Override
+			public String next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return termAt(ord++);
+			}
+		};
+	}
+
+	// Binary search over the term index; same contract as Arrays.binarySearch
+	private int findTerm(String term) {
+		int low = 0;
+		int high = termCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int cmp = Tokenizer.TERM_ORDER.compare(termAt(mid), term);
+			if (cmp < 0) {
+				low = mid + 1;
+			} else if (cmp > 0) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+
+	private String termAt(int ord) {
+		int entry = buffer.getInt(termIndexOffset + ord * Integer.BYTES);
+		int length = buffer.getShort(entry);
+		byte[] bytes = new byte[length];
+		buffer.get(entry + Short.BYTES, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Offset of the docFreq field that follows the term bytes
+	private int termEntryTail(int ord) {
+		int entry = buffer.getInt(termIndexOffset + ord * Integer.BYTES);
+		return entry + Short.BYTES + buffer.getShort(entry);
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.vibenotes.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// Heap-resident segment that absorbs incremental updates between merges.
+// Postings are kept in growable primitive arrays, one pair per term.
+final class MutableSegment implements Segment {
+
+	private final TreeMap<String, Postings> postings = new TreeMap<>(Tokenizer.TERM_ORDER);
+
+	private long[] noteIds = new long[64];
+	private long[] ownerIds = new long[64];
+	private int[] lengths = new int[64];
+	private final BitSet publicDocs = new BitSet();
+	private final BitSet deleted = new BitSet();
+	private int docCount;
+
+	int add(long noteId, long ownerId, boolean isPublic, List<String> tokens) {
+		int doc = docCount++;
+		if (doc == noteIds.length) {
+			int capacity = noteIds.length * 2;
+			noteIds = Arrays.copyOf(noteIds, capacity);
+			ownerIds = Arrays.copyOf(ownerIds, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+		}
+		noteIds[doc] = noteId;
+		ownerIds[doc] = ownerId;
+		lengths[doc] = tokens.size();
+		publicDocs.set(doc, isPublic);
+
+		Map<String, Integer> frequencies = new HashMap<>();
+		for (String token : tokens) {
+			frequencies.merge(token, 1, Integer::sum);
+		}
+		frequencies.forEach((term, frequency) ->
+				postings.computeIfAbsent(term, key -> new Postings()).add(doc, frequency));
+		return doc;
+	}
+
+	@Override
+	public int docCount() {
+		return docCount;
+	}
+
+	@Override
+	public long noteId(int doc) {
+		return noteIds[doc];
+	}
+
+	@Override
+	public long ownerId(int doc) {
+		return ownerIds[doc];
+	}
+
+	@Override
+	public boolean isPublic(int doc) {
+		return publicDocs.get(doc);
+	}
+
+	@Override
+	public int docLength(int doc) {
+		return lengths[doc];
+	}
+
+	@Override
+	public boolean isDeleted(int doc) {
+		return deleted.get(doc);
+	}
+
+	@Override
+	public void delete(int doc) {
+		deleted.set(doc);
+	}
+
+	@Override
+	public BitSet deletedDocs() {
+		return (BitSet) deleted.clone();
+	}
+
+	@Override
+	public int docFreq(String term) {
+		Postings list = postings.get(term);
+		return list != null ? list.size : 0;
+	}
+
+	@Override
+	public void postings(String term, PostingsVisitor visitor) {
+		Postings list = postings.get(term);
+		if (list == null) {
+			return;
+		}
+		for (int i = 0; i < list.size; i++) {
+			visitor.visit(list.docs[i], list.frequencies[i]);
+		}
+	}
+
+	@Override
+	public void termsWithPrefix(String prefix, int max, Consumer<String> consumer) {
+		int emitted = 0;
+		for (String term : postings.tailMap(prefix, true).keySet()) {
+			if (!term.startsWith(prefix) || emitted++ >= max) {
+				return;
+			}
+			consumer.accept(term);
+		}
+	}
+
+	@Override
+	public Iterator<String> terms() {
+		return postings.keySet().iterator();
+	}
+
+	private static final class Postings {
+
+		private int[] docs = new int[4];
+		private int[] frequencies = new int[4];
+		private int size;
+
+		private void add(int doc, int frequency) {
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+			docs[size] = doc;
+			frequencies[size] = frequency;
+			size++;
+		}
+
+	}
+
+}
@@ -0,0 +1,541 @@
+package com.vibenotes.search;
+
+import com.vibenotes.model.Note;
+import com.vibenotes.repository.NoteRepository;
+import com.vibenotes.util.SearchCursor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// In-process BM25 index used when search.engine=embedded: a memory-mapped base segment plus a
+// heap segment, merged in the background once it reaches flush-threshold documents.
+// The index lives in this instance only and sees only this instance's writes: with several
+// instances it goes stale, and a segment loaded with rebuild-on-startup=false misses writes
+// made while this instance was down or since its last flush.
+@Component
+public class NoteSearchIndex {
+
+	private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+	private static final int MAX_PREFIX_EXPANSIONS = 64;
+	private static final int REBUILD_BATCH_SIZE = 500;
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".idx";
+
+	private final NoteRepository noteRepository;
+	private final boolean enabled;
+	private final Path indexDirectory;
+	private final boolean rebuildOnStartup;
+	private final int flushThreshold;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ExecutorService merger = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "search-index-merge");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Guarded by lock. Document ordinals are global: base docs first, then sealed heap
+	// segments waiting to be merged, then the heap segment taking writes.
+	private MappedSegment base;
+	private final List<MutableSegment> sealed = new ArrayList<>();
+	private MutableSegment buffer = new MutableSegment();
+	private final Map<Long, Integer> ordinalsByNote = new HashMap<>();
+	private long liveDocs;
+	private long liveLength;
+	private long generation;
+
+	// Notes removed while a rebuild is running must not be re-added by a stale batch
+	private Set<Long> removedDuringRebuild;
+
+	// The running merge, and the notes deleted since it started: their copies in the merged
+	// file are already stale when it is swapped in
+	private CompletableFuture<Void> merge;
+	private Set<Long> deletedDuringMerge;
+
+	public NoteSearchIndex(
+			NoteRepository noteRepository,
+			@Value("${search.engine:database}") String engine,
+			@Value("${search.index.dir:search-index}") String indexDir,
+			@Value("${search.index.rebuild-on-startup:true}") boolean rebuildOnStartup,
+			@Value("${search.index.flush-threshold:10000}") int flushThreshold) {
+		this.noteRepository = noteRepository;
+		this.enabled = "embedded".equalsIgnoreCase(engine);
+		this.indexDirectory = Paths.get(indexDir).toAbsolutePath().normalize();
+		this.rebuildOnStartup = rebuildOnStartup;
+		this.flushThreshold = flushThreshold;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void initialize() {
+		if (!enabled) {
+			return;
+		}
+		try {
+			Files.createDirectories(indexDirectory);
+			Path latest = latestSegment();
+			if (latest != null) {
+				generation = generationOf(latest);
+			}
+			if (!rebuildOnStartup && latest != null) {
+				load(latest);
+				logger.info("Loaded search index {} with {} notes", latest.getFileName(), liveDocs);
+			} else {
+				rebuild();
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Could not initialize search index in " + indexDirectory, ex);
+		}
+	}
+
+	public void index(Note note) {
+		if (!enabled) {
+			return;
+		}
+		List<String> tokens = Tokenizer.tokenize(note.getTitle());
+		tokens.addAll(Tokenizer.tokenize(note.getContent()));
+
+		lock.writeLock().lock();
+		try {
+			deleteLocked(note.getId());
+			addLocked(note.getId(), note.getUser().getId(), note.getIsPublic(), tokens);
+			if (buffer.docCount() >= flushThreshold) {
+				startMergeLocked();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(Long noteId) {
+		if (!enabled) {
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			deleteLocked(noteId);
+			if (removedDuringRebuild != null) {
+				removedDuringRebuild.add(noteId);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Inside a transaction the change waits for the commit, so a rollback never reaches the index.
+	// The note is read at commit time, which picks up later changes made in the same transaction.
+	public void indexAfterCommit(Note note) {
+		if (enabled) {
+			afterCommit(() -> index(note));
+		}
+	}
+
+	public void removeAfterCommit(Long noteId) {
+		if (enabled) {
+			afterCommit(() -> remove(noteId));
+		}
+	}
+
+	private static void afterCommit(Runnable change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			change.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+		});
+	}
+
+	// Up to limit hits ordered by (score DESC, noteId DESC) past the cursor. A null owner
+	// searches every owner; publicOnly drops private notes.
+	public List<SearchHit> search(SearchQuery query, Long ownerId, boolean publicOnly, SearchCursor after, int limit) {
+		lock.readLock().lock();
+		try {
+			if (liveDocs == 0 || query.isEmpty()) {
+				return new ArrayList<>();
+			}
+			List<Segment> segments = segments();
+			float averageLength = (float) liveLength / liveDocs;
+
+			Set<String> terms = new LinkedHashSet<>(query.getTerms());
+			for (String prefix : query.getPrefixes()) {
+				for (Segment segment : segments) {
+					segment.termsWithPrefix(prefix, MAX_PREFIX_EXPANSIONS, terms::add);
+				}
+			}
+
+			ScoreAccumulator scores = new ScoreAccumulator();
+			for (String term : terms) {
+				int docFreq = 0;
+				for (Segment segment : segments) {
+					docFreq += segment.docFreq(term);
+				}
+				if (docFreq == 0) {
+					continue;
+				}
+				float idf = (float) Math.log(1 + (liveDocs - docFreq + 0.5) / (docFreq + 0.5));
+
+				int ordinalBase = 0;
+				for (Segment segment : segments) {
+					int offset = ordinalBase;
+					segment.postings(term, (doc, frequency) -> {
+						if (segment.isDeleted(doc)
+								|| (ownerId != null && segment.ownerId(doc) != ownerId)
+								|| (publicOnly && !segment.isPublic(doc))) {
+							return;
+						}
+						float norm = K1 * (1 - B + B * segment.docLength(doc) / averageLength);
+						scores.add(offset + doc, idf * frequency * (K1 + 1) / (frequency + norm));
+					});
+					ordinalBase += segment.docCount();
+				}
+			}
+
+			// Bounded min-heap keeps the best hits that sort after the cursor
+			Comparator<SearchHit> order = Comparator.comparingDouble(SearchHit::getScore)
+					.thenComparingLong(SearchHit::getNoteId);
+			PriorityQueue<SearchHit> top = new PriorityQueue<>(limit + 1, order);
+			scores.forEach((ordinal, score) -> {
+				long noteId = noteIdAt(segments, ordinal);
+				if (score > after.getRank() || (score == after.getRank() && noteId >= after.getId())) {
+					return;
+				}
+				top.add(new SearchHit(noteId, score));
+				if (top.size() > limit) {
+					top.poll();
+				}
+			});
+
+			List<SearchHit> hits = new ArrayList<>(top);
+			hits.sort(order.reversed());
+			return hits;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Writes arriving during the rebuild win over stale batches
+	public void rebuild() throws IOException {
+		logger.info("Rebuilding search index from the database");
+		// A merge still running would swap in the old contents after the reset
+		while (true) {
+			CompletableFuture<Void> running;
+			lock.writeLock().lock();
+			try {
+				running = merge;
+				if (running == null) {
+					resetLocked();
+					removedDuringRebuild = new HashSet<>();
+					break;
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+			awaitQuietly(running);
+		}
+
+		try {
+			long lastId = 0;
+			List<Note> batch;
+			do {
+				batch = noteRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(REBUILD_BATCH_SIZE));
+				CompletableFuture<Void> flushed = null;
+				lock.writeLock().lock();
+				try {
+					for (Note note : batch) {
+						if (!ordinalsByNote.containsKey(note.getId()) && !removedDuringRebuild.contains(note.getId())) {
+							List<String> tokens = Tokenizer.tokenize(note.getTitle());
+							tokens.addAll(Tokenizer.tokenize(note.getContent()));
+							addLocked(note.getId(), note.getUser().getId(), note.getIsPublic(), tokens);
+						}
+					}
+					if (buffer.docCount() >= flushThreshold) {
+						flushed = startMergeLocked();
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+				if (flushed != null) {
+					awaitQuietly(flushed);
+				}
+				if (!batch.isEmpty()) {
+					lastId = batch.get(batch.size() - 1).getId();
+				}
+			} while (batch.size() == REBUILD_BATCH_SIZE);
+		} finally {
+			lock.writeLock().lock();
+			try {
+				removedDuringRebuild = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			flush();
+		}
+		logger.info("Search index rebuilt with {} notes", liveDocs);
+	}
+
+	@PreDestroy
+	public void close() {
+		if (enabled) {
+			flush();
+		}
+		merger.shutdown();
+	}
+
+	private void addLocked(long noteId, long ownerId, boolean isPublic, List<String> tokens) {
+		int doc = buffer.add(noteId, ownerId, isPublic, tokens);
+		ordinalsByNote.put(noteId, bufferOffset() + doc);
+		liveDocs++;
+		liveLength += tokens.size();
+	}
+
+	private void deleteLocked(long noteId) {
+		Integer ordinal = ordinalsByNote.remove(noteId);
+		if (ordinal == null) {
+			return;
+		}
+		if (deletedDuringMerge != null) {
+			deletedDuringMerge.add(noteId);
+		}
+		int doc = ordinal;
+		for (Segment segment : segments()) {
+			if (doc < segment.docCount()) {
+				segment.delete(doc);
+				liveDocs--;
+				liveLength -= segment.docLength(doc);
+				return;
+			}
+			doc -= segment.docCount();
+		}
+	}
+
+	// Merges everything written so far to disk and waits for it, e.g. before shutdown
+	private void flush() {
+		while (true) {
+			CompletableFuture<Void> running;
+			boolean ours;
+			lock.writeLock().lock();
+			try {
+				ours = merge == null;
+				running = startMergeLocked();
+			} finally {
+				lock.writeLock().unlock();
+			}
+			awaitQuietly(running);
+			if (ours) {
+				return;
+			}
+		}
+	}
+
+	// Seals the heap segment and merges it with the base and any segments sealed before into the
+	// next generation's file, on the merge thread. Returns the running merge if there is one.
+	private CompletableFuture<Void> startMergeLocked() {
+		if (merge != null) {
+			return merge;
+		}
+		if (buffer.docCount() == 0 && sealed.isEmpty() && base != null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		if (buffer.docCount() > 0 || sealed.isEmpty()) {
+			sealed.add(buffer);
+			buffer = new MutableSegment();
+		}
+		List<Segment> inputs = new ArrayList<>();
+		if (base != null) {
+			inputs.add(base);
+		}
+		inputs.addAll(sealed);
+		List<BitSet> deletions = new ArrayList<>(inputs.size());
+		inputs.forEach(segment -> deletions.add(segment.deletedDocs()));
+		int sealedCount = sealed.size();
+		Path next = indexDirectory.resolve(SEGMENT_PREFIX + (generation + 1) + SEGMENT_SUFFIX);
+
+		deletedDuringMerge = new HashSet<>();
+		merge = CompletableFuture.runAsync(() -> merge(next, inputs, deletions, sealedCount), merger);
+		return merge;
+	}
+
+	// Runs without the lock; sealed segments take no more documents, only deletions
+	private void merge(Path next, List<Segment> inputs, List<BitSet> deletions, int sealedCount) {
+		MappedSegment merged = null;
+		try {
+			SegmentWriter.write(next, inputs, deletions);
+			merged = MappedSegment.open(next);
+		} catch (IOException | RuntimeException ex) {
+			// The sealed segments keep serving queries; the merge is retried on the next flush
+			logger.error("Could not write search index segment {}", next, ex);
+		}
+		lock.writeLock().lock();
+		try {
+			if (merged != null) {
+				swapLocked(merged, sealedCount);
+			}
+		} finally {
+			deletedDuringMerge = null;
+			merge = null;
+			lock.writeLock().unlock();
+		}
+		if (merged != null) {
+			try {
+				deleteSegmentsOtherThan(next);
+			} catch (IOException ex) {
+				logger.warn("Could not delete old search index segments", ex);
+			}
+		}
+	}
+
+	// Replaces the merged inputs with the new base and renumbers the documents after it
+	private void swapLocked(MappedSegment merged, int sealedCount) {
+		generation = generationOf(merged.getPath());
+		base = merged;
+		sealed.subList(0, sealedCount).clear();
+		ordinalsByNote.clear();
+		liveDocs = 0;
+		liveLength = 0;
+		int ordinal = 0;
+		for (Segment segment : segments()) {
+			for (int doc = 0; doc < segment.docCount(); doc++, ordinal++) {
+				if (segment == base && deletedDuringMerge.contains(segment.noteId(doc))) {
+					segment.delete(doc);
+				}
+				if (!segment.isDeleted(doc)) {
+					ordinalsByNote.put(segment.noteId(doc), ordinal);
+					liveDocs++;
+					liveLength += segment.docLength(doc);
+				}
+			}
+		}
+	}
+
+	private static void awaitQuietly(CompletableFuture<Void> future) {
+		try {
+			future.join();
+		} catch (CompletionException ex) {
+			// Already logged by the merge
+		}
+	}
+
+	private void load(Path segmentPath) throws IOException {
+		MappedSegment segment = MappedSegment.open(segmentPath);
+		generation = generationOf(segmentPath);
+
+		base = segment;
+		sealed.clear();
+		buffer = new MutableSegment();
+		ordinalsByNote.clear();
+		liveDocs = 0;
+		liveLength = 0;
+		for (int doc = 0; doc < segment.docCount(); doc++) {
+			ordinalsByNote.put(segment.noteId(doc), doc);
+			liveDocs++;
+			liveLength += segment.docLength(doc);
+		}
+	}
+
+	private void resetLocked() {
+		base = null;
+		sealed.clear();
+		buffer = new MutableSegment();
+		ordinalsByNote.clear();
+		liveDocs = 0;
+		liveLength = 0;
+	}
+
+	private List<Segment> segments() {
+		List<Segment> segments = new ArrayList<>(sealed.size() + 2);
+		if (base != null) {
+			segments.add(base);
+		}
+		segments.addAll(sealed);
+		segments.add(buffer);
+		return segments;
+	}
+
+	private int bufferOffset() {
+		int offset = base != null ? base.docCount() : 0;
+		for (MutableSegment segment : sealed) {
+			offset += segment.docCount();
+		}
+		return offset;
+	}
+
+	private static long noteIdAt(List<Segment> segments, int ordinal) {
+		for (Segment segment : segments) {
+			if (ordinal < segment.docCount()) {
+				return segment.noteId(ordinal);
+			}
+			ordinal -= segment.docCount();
+		}
+		throw new IllegalStateException("Unknown document ordinal " + ordinal);
+	}
+
+	private Path latestSegment() throws IOException {
+		try (Stream<Path> files = Files.list(indexDirectory)) {
+			return files
+					.filter(NoteSearchIndex::isSegmentFile)
+					.max(Comparator.comparingLong(NoteSearchIndex::generationOf))
+					.orElse(null);
+		}
+	}
+
+	// Mapped files can be unlinked while still mapped; the old base stays readable until collected
+	private void deleteSegmentsOtherThan(Path keep) throws IOException {
+		try (Stream<Path> files = Files.list(indexDirectory)) {
+			for (Path path : (Iterable<Path>) files.filter(NoteSearchIndex::isSegmentFile)::iterator) {
+				if (!path.equals(keep)) {
+					Files.deleteIfExists(path);
+				}
+			}
+		}
+	}
+
+	private static boolean isSegmentFile(Path path) {
+		String name = path.getFileName().toString();
+		return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+	}
+
+	private static long generationOf(Path path) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.vibenotes.search;
+
+import java.util.Arrays;
+
+// Open-addressing int-to-float map used to sum per-document scores during a query
+// without boxing. Keys are non-negative document ordinals.
+final class ScoreAccumulator {
+
+	private static final int EMPTY = -1;
+
+	private int[] keys;
+	private float[] values;
+	private int size;
+
+	ScoreAccumulator() {
+		keys = new int[64];
+		values = new float[64];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	void add(int key, float value) {
+		if (size * 2 >= keys.length) {
+			grow();
+		}
+		int slot = slot(keys, key);
+		if (keys[slot] == EMPTY) {
+			keys[slot] = key;
+			size++;
+		}
+		values[slot] += value;
+	}
+
+	void forEach(Visitor visitor) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != EMPTY) {
+				visitor.visit(keys[i], values[i]);
+			}
+		}
+	}
+
+	private void grow() {
+		int[] oldKeys = keys;
+		float[] oldValues = values;
+		keys = new int[oldKeys.length * 2];
+		values = new float[oldKeys.length * 2];
+		Arrays.fill(keys, EMPTY);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = slot(keys, oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				values[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private static int slot(int[] table, int key) {
+		int mask = table.length - 1;
+		int hash = key * 0x9E3779B9;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+		while (table[slot] != EMPTY && table[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	@FunctionalInterface
+	interface Visitor {
+		void visit(int key, float value);
+	}
+
+}
@@ -0,0 +1,21 @@
+package com.vibenotes.search;
+
+public class SearchHit {
+
+	private final long noteId;
+	private final float score;
+
+	public SearchHit(long noteId, float score) {
+		this.noteId = noteId;
+		this.score = score;
+	}
+
+	public long getNoteId() {
+		return noteId;
+	}
+
+	public float getScore() {
+		return score;
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.vibenotes.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Parsed form of a user query. Words are OR-ed together; a word ending in *
+// matches every indexed term that starts with it.
+public final class SearchQuery {
+
+	private final Set<String> terms;
+	private final Set<String> prefixes;
+
+	private SearchQuery(Set<String> terms, Set<String> prefixes) {
+		this.terms = terms;
+		this.prefixes = prefixes;
+	}
+
+	public static SearchQuery parse(String query) {
+		Set<String> terms = new LinkedHashSet<>();
+		Set<String> prefixes = new LinkedHashSet<>();
+		for (String word : query.trim().split("\\s+")) {
+			List<String> tokens = Tokenizer.tokenize(word);
+			if (tokens.isEmpty()) {
+				continue;
+			}
+			// Only the last token of a starred word is a prefix: "e-mail*" searches "e" and "mail*"
+			boolean prefix = word.endsWith("*");
+			for (int i = 0; i < tokens.size(); i++) {
+				if (prefix && i == tokens.size() - 1) {
+					prefixes.add(tokens.get(i));
+				} else {
+					terms.add(tokens.get(i));
+				}
+			}
+		}
+		return new SearchQuery(Collections.unmodifiableSet(terms), Collections.unmodifiableSet(prefixes));
+	}
+
+	public boolean isEmpty() {
+		return terms.isEmpty() && prefixes.isEmpty();
+	}
+
+	public Set<String> getTerms() {
+		return terms;
+	}
+
+	public Set<String> getPrefixes() {
+		return prefixes;
+	}
+
+	boolean matches(String normalizedToken) {
+		if (terms.contains(normalizedToken)) {
+			return true;
+		}
+		for (String prefix : prefixes) {
+			if (normalizedToken.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	List<String> allTerms() {
+		List<String> all = new ArrayList<>(terms);
+		all.addAll(prefixes);
+		return all;
+	}
+
+}
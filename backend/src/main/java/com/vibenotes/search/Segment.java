@@ -0,0 +1,42 @@
+package com.vibenotes.search;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+// A set of indexed notes with their postings. Documents are addressed by a
+// segment-local ordinal; deletions only flip a bit until the next merge.
+interface Segment {
+
+	int docCount();
+
+	long noteId(int doc);
+
+	long ownerId(int doc);
+
+	boolean isPublic(int doc);
+
+	int docLength(int doc);
+
+	boolean isDeleted(int doc);
+
+	void delete(int doc);
+
+	// A copy of the deletion bits, for a merge that runs while deletes go on
+	BitSet deletedDocs();
+
+	int docFreq(String term);
+
+	void postings(String term, PostingsVisitor visitor);
+
+	void termsWithPrefix(String prefix, int max, Consumer<String> consumer);
+
+	// All terms in Tokenizer.TERM_ORDER
+	Iterator<String> terms();
+
+	@FunctionalInterface
+	interface PostingsVisitor {
+		void visit(int doc, int termFrequency);
+	}
+
+}
@@ -0,0 +1,144 @@
+package com.vibenotes.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
+
+// Postings go to a scratch file first, so only the term dictionary is held in memory
+final class SegmentWriter {
+
+	private SegmentWriter() {
+	}
+
+	// deleted.get(i) is the deletion bitmap of segments.get(i) as of when the merge started
+	static void write(Path target, List<Segment> segments, List<BitSet> deleted) throws IOException {
+		// Renumber live documents densely, segment by segment, so merged postings stay sorted
+		int[][] remap = new int[segments.size()][];
+		int liveDocs = 0;
+		for (int s = 0; s < segments.size(); s++) {
+			Segment segment = segments.get(s);
+			remap[s] = new int[segment.docCount()];
+			Arrays.fill(remap[s], -1);
+			for (int doc = 0; doc < segment.docCount(); doc++) {
+				if (!deleted.get(s).get(doc)) {
+					remap[s][doc] = liveDocs++;
+				}
+			}
+		}
+
+		TreeSet<String> terms = new TreeSet<>(Tokenizer.TERM_ORDER);
+		for (Segment segment : segments) {
+			for (Iterator<String> it = segment.terms(); it.hasNext(); ) {
+				terms.add(it.next());
+			}
+		}
+
+		Path postingsFile = Files.createTempFile(target.getParent(), "postings", ".tmp");
+		Path partialFile = target.resolveSibling(target.getFileName() + ".partial");
+		try {
+			List<byte[]> termBytes = new ArrayList<>();
+			List<int[]> termStats = new ArrayList<>();
+			int postingsSize = 0;
+			try (DataOutputStream postings = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(postingsFile)))) {
+				for (String term : terms) {
+					int start = postings.size();
+					int[] docFreq = {0};
+					for (int s = 0; s < segments.size(); s++) {
+						int[] docs = remap[s];
+						segments.get(s).postings(term, (doc, frequency) -> {
+							if (docs[doc] >= 0) {
+								writeInt(postings, docs[doc]);
+								writeInt(postings, frequency);
+								docFreq[0]++;
+							}
+						});
+					}
+					if (docFreq[0] > 0) {
+						termBytes.add(term.getBytes(StandardCharsets.UTF_8));
+						termStats.add(new int[] {docFreq[0], start});
+					}
+				}
+				postingsSize = postings.size();
+			}
+
+			int termCount = termBytes.size();
+			long docTableOffset = MappedSegment.HEADER_SIZE;
+			long termIndexOffset = docTableOffset + (long) liveDocs * MappedSegment.DOC_ENTRY_SIZE;
+			long termDataOffset = termIndexOffset + (long) termCount * Integer.BYTES;
+			long termDataSize = 0;
+			for (byte[] bytes : termBytes) {
+				termDataSize += Short.BYTES + bytes.length + 2 * Integer.BYTES;
+			}
+			long postingsOffset = termDataOffset + termDataSize;
+			if (postingsOffset + postingsSize > Integer.MAX_VALUE) {
+				throw new IOException("Merged search segment would exceed 2GB");
+			}
+
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(Files.newOutputStream(partialFile)))) {
+				out.writeInt(MappedSegment.MAGIC);
+				out.writeInt(MappedSegment.VERSION);
+				out.writeInt(liveDocs);
+				out.writeInt(termCount);
+				out.writeInt((int) docTableOffset);
+				out.writeInt((int) termIndexOffset);
+				out.writeInt((int) termDataOffset);
+				out.writeInt((int) postingsOffset);
+
+				for (int s = 0; s < segments.size(); s++) {
+					Segment segment = segments.get(s);
+					for (int doc = 0; doc < segment.docCount(); doc++) {
+						if (remap[s][doc] >= 0) {
+							out.writeLong(segment.noteId(doc));
+							out.writeLong(segment.ownerId(doc));
+							out.writeInt(segment.docLength(doc));
+							out.writeByte(segment.isPublic(doc) ? 1 : 0);
+						}
+					}
+				}
+
+				int entry = (int) termDataOffset;
+				for (byte[] bytes : termBytes) {
+					out.writeInt(entry);
+					entry += Short.BYTES + bytes.length + 2 * Integer.BYTES;
+				}
+
+				for (int i = 0; i < termCount; i++) {
+					byte[] bytes = termBytes.get(i);
+					out.writeShort(bytes.length);
+					out.write(bytes);
+					out.writeInt(termStats.get(i)[0]);
+					out.writeInt((int) postingsOffset + termStats.get(i)[1]);
+				}
+
+				Files.copy(postingsFile, out);
+			}
+			Files.move(partialFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(postingsFile);
+			Files.deleteIfExists(partialFile);
+		}
+	}
+
+	// Lambdas cannot throw IOException; postings are written to a local scratch file
+	private static void writeInt(DataOutputStream out, int value) {
+		try {
+			out.writeInt(value);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.vibenotes.search;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Matcher;
+
+// Builds short highlighted excerpts for embedded search results, using the same
+// <mark></mark> markers as the database search.
+public final class Snippets {
+
+	private static final int CONTEXT_BEFORE = 6;
+	private static final int SNIPPET_TOKENS = 30;
+
+	private Snippets() {
+	}
+
+	public static String highlight(String text, SearchQuery query) {
+		if (text == null || text.isEmpty()) {
+			return "";
+		}
+
+		// Keep a few tokens of context before the first match, then fill the window after it
+		Deque<int[]> window = new ArrayDeque<>();
+		boolean matched = false;
+		int after = 0;
+		Matcher matcher = Tokenizer.matcher(text);
+		while (matcher.find()) {
+			window.addLast(new int[] {matcher.start(), matcher.end()});
+			if (!matched) {
+				if (window.size() > CONTEXT_BEFORE) {
+					window.removeFirst();
+				}
+				matched = query.matches(Tokenizer.normalize(matcher.group()));
+			} else if (++after >= SNIPPET_TOKENS - CONTEXT_BEFORE) {
+				break;
+			}
+		}
+
+		// Matched on the title only: fall back to the opening of the note
+		if (!matched) {
+			window.clear();
+			matcher = Tokenizer.matcher(text);
+			while (window.size() < SNIPPET_TOKENS && matcher.find()) {
+				window.addLast(new int[] {matcher.start(), matcher.end()});
+			}
+		}
+		if (window.isEmpty()) {
+			return "";
+		}
+
+		StringBuilder snippet = new StringBuilder();
+		int position = window.peekFirst()[0];
+		for (int[] span : window) {
+			snippet.append(text, position, span[0]);
+			String token = text.substring(span[0], span[1]);
+			if (query.matches(Tokenizer.normalize(token))) {
+				snippet.append("<mark>").append(token).append("</mark>");
+			} else {
+				snippet.append(token);
+			}
+			position = span[1];
+		}
+		return snippet.toString();
+	}
+
+}
@@ -0,0 +1,59 @@
+package com.vibenotes.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Splits text into lower-cased runs of letters and digits. The same rules are used
+// for indexing and for queries, so no stemming or stop-word handling is applied.
+public final class Tokenizer {
+
+	static final int MAX_TERM_LENGTH = 64;
+
+	private static final Pattern TOKEN = Pattern.compile("[\\p{L}\\p{N}]+");
+
+	// Code point order, used for every sorted term structure including the on-disk dictionary
+	static final Comparator<String> TERM_ORDER = (a, b) -> {
+		int i = 0;
+		int j = 0;
+		while (i < a.length() && j < b.length()) {
+			int ca = a.codePointAt(i);
+			int cb = b.codePointAt(j);
+			if (ca != cb) {
+				return Integer.compare(ca, cb);
+			}
+			i += Character.charCount(ca);
+			j += Character.charCount(cb);
+		}
+		return Integer.compare(a.length() - i, b.length() - j);
+	};
+
+	private Tokenizer() {
+	}
+
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		Matcher matcher = TOKEN.matcher(text);
+		while (matcher.find()) {
+			if (matcher.end() - matcher.start() <= MAX_TERM_LENGTH) {
+				tokens.add(normalize(matcher.group()));
+			}
+		}
+		return tokens;
+	}
+
+	static Matcher matcher(String text) {
+		return TOKEN.matcher(text);
+	}
+
+	static String normalize(String token) {
+		return token.toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.vibenotes.security;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+// Principal built from verified JWT claims, so authenticating a request needs no user lookup.
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+
+	private final Long id;
+	private final String username;
+
+	public AuthenticatedUser(Long id, String username) {
+		this.id = id;
+		this.username = username;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	@Override
+	public String getName() {
+		return username;
+	}
+
+	@Override
+	public String toString() {
+		return username;
+	}
+
+}
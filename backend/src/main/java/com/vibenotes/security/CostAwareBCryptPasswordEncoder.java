@@ -0,0 +1,61 @@
+package com.vibenotes.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Hashes with any other cost are upgraded on the next successful login
+public class CostAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+	public static final int MIN_STRENGTH = 10;
+	public static final int MAX_STRENGTH = 16;
+
+	private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+	private static final String CALIBRATION_PASSWORD = "calibration-password";
+	private static final int CALIBRATION_SAMPLES = 3;
+
+	private final int strength;
+
+	public CostAwareBCryptPasswordEncoder(int strength) {
+		super(strength);
+		this.strength = strength;
+	}
+
+	public int getStrength() {
+		return strength;
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		if (encodedPassword == null) {
+			return false;
+		}
+		Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+		return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+	}
+
+	// Highest strength within the target, never below MIN_STRENGTH
+	public static int calibrate(long targetMillis) {
+		int chosen = MIN_STRENGTH;
+		long elapsed = measure(chosen);
+		while (chosen < MAX_STRENGTH && elapsed * 2 <= targetMillis) {
+			chosen++;
+			elapsed = measure(chosen);
+		}
+		return chosen;
+	}
+
+	// Best of a few runs, so a GC pause or a cold JIT does not skew the choice
+	private static long measure(int strength) {
+		BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+			long start = System.nanoTime();
+			encoder.encode(CALIBRATION_PASSWORD);
+			best = Math.min(best, (System.nanoTime() - start) / 1_000_000);
+		}
+		return best;
+	}
+
+}
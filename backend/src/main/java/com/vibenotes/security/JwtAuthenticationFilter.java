@@ -1,33 +1,36 @@
 package com.vibenotes.security;
 
-import com.vibenotes.service.CustomUserDetailsService;
 import com.vibenotes.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+	private static final String EVENTS_PATH = "/api/notes/events";
+
 	private final JwtUtil jwtUtil;
-	private final CustomUserDetailsService userDetailsService;
+	private final TokenRevocationRegistry revocationRegistry;
 
 	@Autowired
-	public JwtAuthenticationFilter(JwtUtil jwtUtil, @Lazy CustomUserDetailsService userDetailsService) {
+	public JwtAuthenticationFilter(JwtUtil jwtUtil, TokenRevocationRegistry revocationRegistry) {
 		this.jwtUtil = jwtUtil;
-		this.userDetailsService = userDetailsService;
+		this.revocationRegistry = revocationRegistry;
 	}
 
 	@Override
@@ -35,13 +38,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			throws ServletException, IOException {
 		try {
 			String jwt = getJwtFromRequest(request);
+			String purpose = null;
+			if (jwt == null && isEventsRequest(request)) {
+				jwt = request.getParameter("token");
+				purpose = JwtUtil.EVENTS_PURPOSE;
+			}
 
-			if (StringUtils.hasText(jwt) && jwtUtil.validateToken(jwt)) {
-				String username = jwtUtil.getUsernameFromToken(jwt);
-
-				UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+			Optional<Claims> claims = StringUtils.hasText(jwt) ? jwtUtil.parseToken(jwt) : Optional.empty();
+			String expectedPurpose = purpose;
+			AuthenticatedUser user = claims
+					.filter(c -> Objects.equals(c.get(JwtUtil.PURPOSE_CLAIM, String.class), expectedPurpose))
+					.map(this::toAuthenticatedUser)
+					.orElse(null);
+			if (user != null) {
 				UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-						userDetails, null, userDetails.getAuthorities());
+						user, null, Collections.emptyList());
 				authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
 				SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -53,6 +64,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		filterChain.doFilter(request, response);
 	}
 
+	// The principal comes straight from the verified claims; only revocation is checked, in memory
+	private AuthenticatedUser toAuthenticatedUser(Claims claims) {
+		Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+		Integer tokenVersion = claims.get(JwtUtil.TOKEN_VERSION_CLAIM, Integer.class);
+		if (userId == null || tokenVersion == null || revocationRegistry.isRevoked(userId, tokenVersion)) {
+			return null;
+		}
+		return new AuthenticatedUser(userId, claims.getSubject());
+	}
+
+	// Event stream tokens travel in the query string and are accepted nowhere else
+	private static boolean isEventsRequest(HttpServletRequest request) {
+		return "GET".equals(request.getMethod())
+				&& (request.getContextPath() + EVENTS_PATH).equals(request.getRequestURI());
+	}
+
 	private String getJwtFromRequest(HttpServletRequest request) {
 		String bearerToken = request.getHeader("Authorization");
 		if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
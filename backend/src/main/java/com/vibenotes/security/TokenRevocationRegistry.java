@@ -0,0 +1,68 @@
+package com.vibenotes.security;
+
+import com.vibenotes.repository.UserRepository;
+import com.vibenotes.repository.UserTokenVersion;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Only users with token_version above zero are held; other instances' revocations are picked
+// up by a periodic query
+@Component
+public class TokenRevocationRegistry {
+
+	private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+	private final UserRepository userRepository;
+	private final long refreshOverlapMillis;
+
+	private final Map<Long, Integer> currentVersions = new ConcurrentHashMap<>();
+	private volatile LocalDateTime refreshedThrough = BEGINNING;
+
+	public TokenRevocationRegistry(
+			UserRepository userRepository,
+			@Value("${auth.revocation.refresh-overlap-ms:60000}") long refreshOverlapMillis) {
+		this.userRepository = userRepository;
+		this.refreshOverlapMillis = refreshOverlapMillis;
+	}
+
+	@PostConstruct
+	public void load() {
+		refresh();
+	}
+
+	// Re-reads a short overlap each time so rows committed late or stamped by a skewed clock are not missed
+	@Scheduled(fixedDelayString = "${auth.revocation.refresh-interval-ms:30000}",
+			initialDelayString = "${auth.revocation.refresh-interval-ms:30000}")
+	public void refresh() {
+		LocalDateTime latest = null;
+		for (UserTokenVersion row : userRepository.findTokenVersionsUpdatedAfter(refreshedThrough)) {
+			revoke(row.getId(), row.getTokenVersion());
+			if (latest == null || row.getUpdatedAt().isAfter(latest)) {
+				latest = row.getUpdatedAt();
+			}
+		}
+		if (latest != null) {
+			LocalDateTime next = latest.minusNanos(refreshOverlapMillis * 1_000_000L);
+			if (next.isAfter(refreshedThrough)) {
+				refreshedThrough = next;
+			}
+		}
+	}
+
+	// Records that tokens issued below currentVersion are no longer valid for the user.
+	public void revoke(Long userId, int currentVersion) {
+		currentVersions.merge(userId, currentVersion, Math::max);
+	}
+
+	public boolean isRevoked(Long userId, int tokenVersion) {
+		Integer current = currentVersions.get(userId);
+		return current != null && tokenVersion < current;
+	}
+
+}
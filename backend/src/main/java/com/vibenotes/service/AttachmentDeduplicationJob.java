@@ -0,0 +1,94 @@
+package com.vibenotes.service;
+
+import com.vibenotes.exception.FileStorageException;
+import com.vibenotes.model.NoteAttachment;
+import com.vibenotes.repository.NoteAttachmentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Migrates per-upload attachment files into content-addressed storage, one transaction each,
+// so the job can be stopped and rerun at any point
+@Component
+@ManagedResource(objectName = "com.vibenotes:type=Job,name=AttachmentDeduplicationJob")
+public class AttachmentDeduplicationJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(AttachmentDeduplicationJob.class);
+	private static final int BATCH_SIZE = 100;
+
+	@Autowired
+	private NoteAttachmentRepository attachmentRepository;
+
+	@Autowired
+	private AttachmentService attachmentService;
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	@Value("${file.upload.attachment.content-addressed:true}")
+	private boolean contentAddressed;
+
+	@Value("${file.upload.attachment.deduplicate-on-startup:false}")
+	private boolean deduplicateOnStartup;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onStartup() {
+		if (deduplicateOnStartup) {
+			deduplicate();
+		}
+	}
+
+	@ManagedOperation(description = "Migrate attachments to content-addressed storage; returns a summary")
+	public String deduplicate() {
+		if (!contentAddressed) {
+			return "Content-addressed storage is disabled";
+		}
+		if (!running.compareAndSet(false, true)) {
+			return "Deduplication is already running";
+		}
+		try {
+			long migrated = 0;
+			long failed = 0;
+			long reclaimedBytes = 0;
+			Long lastId = 0L;
+			List<NoteAttachment> batch;
+			do {
+				batch = attachmentRepository.findNotContentAddressedAfter(lastId, Limit.of(BATCH_SIZE));
+				for (NoteAttachment attachment : batch) {
+					lastId = attachment.getId();
+					try {
+						String sha256 = attachment.getSha256() != null
+								? attachment.getSha256()
+								: fileStorageService.sha256Of(attachment.getFilename());
+						long size = fileStorageService.sizeOf(attachment.getFilename());
+						reclaimedBytes += attachmentService.migrateToBlob(attachment.getId(), sha256, size);
+						migrated++;
+					} catch (FileStorageException ex) {
+						logger.warn("Could not migrate attachment {}: {}", attachment.getId(), ex.getMessage());
+						failed++;
+					}
+				}
+			} while (batch.size() == BATCH_SIZE);
+
+			String summary = String.format("Migrated %d attachments, reclaimed %d bytes, %d failed",
+					migrated, reclaimedBytes, failed);
+			logger.info("Attachment deduplication finished: {}", summary);
+			return summary;
+		} finally {
+			running.set(false);
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+package com.vibenotes.service;
+
+import com.vibenotes.model.Note;
+import com.vibenotes.model.NoteAttachment;
+import com.vibenotes.repository.AttachmentBlobRepository;
+import com.vibenotes.repository.NoteAttachmentRepository;
+import com.vibenotes.repository.NoteRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+// The blob row is locked before its file is published or reclaimed, so concurrent uploads
+// and deletes of the same content serialize
+@Service
+public class AttachmentService {
+
+	@Autowired
+	private NoteAttachmentRepository attachmentRepository;
+
+	@Autowired
+	private AttachmentBlobRepository blobRepository;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	@Transactional
+	public NoteAttachment addAttachment(Note note, StoredFile file) {
+		noteRepository.lockChanges(note.getUser().getId());
+		if (isContentAddressed(file.getFilename(), file.getSha256())) {
+			blobRepository.acquire(file.getSha256(), file.getSize());
+		}
+		fileStorageService.publishAttachment(file);
+
+		NoteAttachment attachment = new NoteAttachment();
+		attachment.setFilename(file.getFilename());
+		attachment.setOriginalFilename(file.getOriginalFilename());
+		attachment.setFileSize(file.getSize());
+		attachment.setContentType(file.getContentType());
+		attachment.setSha256(file.getSha256());
+		attachment.setNote(note);
+		NoteAttachment saved = attachmentRepository.save(attachment);
+
+		// Compressed after commit, outside the blob lock; downloads fall back to the plain file meanwhile
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				fileStorageService.precompress(file.getFilename(), file.getContentType());
+			}
+		});
+		return saved;
+	}
+
+	@Transactional
+	public void deleteAttachment(NoteAttachment attachment) {
+		noteRepository.lockChanges(attachment.getNote().getUser().getId());
+		attachmentRepository.delete(attachment);
+		releaseFile(attachment);
+	}
+
+	// Must run before the note itself is deleted, in a transaction holding the owner's change lock
+	@Transactional
+	public void deleteAttachments(Long noteId) {
+		deleteAttachments(List.of(noteId));
+	}
+
+	@Transactional
+	public void deleteAttachments(Collection<Long> noteIds) {
+		List<NoteAttachment> attachments = attachmentRepository.findByNoteIdIn(noteIds);
+		attachmentRepository.deleteAll(attachments);
+		attachments.forEach(this::releaseFile);
+	}
+
+	// Returns the bytes reclaimed
+	@Transactional
+	public long migrateToBlob(Long attachmentId, String sha256, long size) {
+		Long ownerId = attachmentRepository.findOwnerIdById(attachmentId).orElse(null);
+		if (ownerId == null) {
+			return 0;
+		}
+		// Read under the owner's lock, so a delete of the attachment or its note cannot interleave
+		noteRepository.lockChanges(ownerId);
+		NoteAttachment attachment = attachmentRepository.findById(attachmentId).orElse(null);
+		if (attachment == null || isContentAddressed(attachment.getFilename(), attachment.getSha256())) {
+			return 0;
+		}
+		String legacyFilename = attachment.getFilename();
+		blobRepository.acquire(sha256, size);
+		boolean created = fileStorageService.copyToBlob(legacyFilename, sha256);
+
+		attachment.setFilename(sha256);
+		attachment.setSha256(sha256);
+		attachmentRepository.save(attachment);
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				fileStorageService.deleteAttachment(legacyFilename);
+				fileStorageService.precompress(sha256, attachment.getContentType());
+			}
+		});
+		return created ? 0 : size;
+	}
+
+	private void releaseFile(NoteAttachment attachment) {
+		String filename = attachment.getFilename();
+		if (isContentAddressed(filename, attachment.getSha256())) {
+			blobRepository.release(filename);
+			if (blobRepository.deleteIfUnreferenced(filename) == 0) {
+				return;
+			}
+		}
+		Path trashed = fileStorageService.trashAttachment(filename);
+		if (trashed == null) {
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				if (status == STATUS_COMMITTED) {
+					fileStorageService.deleteTrashed(trashed);
+				} else {
+					fileStorageService.restoreTrashed(trashed, filename);
+				}
+			}
+		});
+	}
+
+	private static boolean isContentAddressed(String filename, String sha256) {
+		return filename.equals(sha256);
+	}
+
+}
@@ -6,6 +6,8 @@ import com.vibenotes.dto.RegisterRequest;
 import com.vibenotes.exception.ResourceNotFoundException;
 import com.vibenotes.model.User;
 import com.vibenotes.repository.UserRepository;
+import com.vibenotes.security.PasswordHashingExecutor;
+import com.vibenotes.security.TokenRevocationRegistry;
 import com.vibenotes.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,6 +16,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class AuthService {
 
@@ -29,12 +33,27 @@ public class AuthService {
 	@Autowired
 	private AuthenticationManager authenticationManager;
 
-	public AuthResponse register(RegisterRequest request) {
+	@Autowired
+	private TokenRevocationRegistry revocationRegistry;
+
+	@Autowired
+	private PasswordHashingExecutor hashingExecutor;
+
+	// Login and registration hash on the bounded hashing pool, never on the request thread
+
+	public CompletableFuture<AuthResponse> register(RegisterRequest request) {
 		// Check if username already exists
 		if (userRepository.existsByUsername(request.getUsername())) {
 			throw new IllegalArgumentException("Username already exists");
 		}
+		return hashingExecutor.submit(() -> createUser(request));
+	}
+
+	public CompletableFuture<AuthResponse> login(LoginRequest request) {
+		return hashingExecutor.submit(() -> authenticate(request));
+	}
 
+	private AuthResponse createUser(RegisterRequest request) {
 		// Create new user
 		User user = new User();
 		user.setUsername(request.getUsername());
@@ -43,13 +62,13 @@ public class AuthService {
 		userRepository.save(user);
 
 		// Generate token
-		String token = jwtUtil.generateToken(user.getUsername());
+		String token = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getTokenVersion());
 
 		return new AuthResponse(token, user.getUsername(), "User registered successfully");
 	}
 
-	public AuthResponse login(LoginRequest request) {
-		// Authenticate user
+	private AuthResponse authenticate(LoginRequest request) {
+		// Authenticate user; re-hashes the stored password if the BCrypt strength changed
 		Authentication authentication = authenticationManager.authenticate(
 				new UsernamePasswordAuthenticationToken(
 						request.getUsername(),
@@ -57,10 +76,35 @@ public class AuthService {
 				)
 		);
 
+		User user = userRepository.findByUsername(authentication.getName())
+				.orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
 		// Generate token
-		String token = jwtUtil.generateToken(request.getUsername());
+		String token = jwtUtil.generateToken(user.getId(), user.getUsername(), user.getTokenVersion());
+
+		return new AuthResponse(token, user.getUsername(), "Login successful");
+	}
+
+	// Valid for jwt.events-token.expiration only, and only for opening the event stream
+	public AuthResponse issueEventsToken(Long userId) {
+		User user = userRepository.findById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException("User not found"));
+		String token = jwtUtil.generateEventsToken(user.getId(), user.getUsername(), user.getTokenVersion());
+		return new AuthResponse(token, user.getUsername(), "Event stream token");
+	}
+
+	public void logout(Long userId) {
+		revokeTokens(userId);
+	}
 
-		return new AuthResponse(token, request.getUsername(), "Login successful");
+	// Invalidates every token issued to the user so far. Anything that must end existing
+	// sessions, such as a password change or account deletion, goes through here.
+	public void revokeTokens(Long userId) {
+		User user = userRepository.findById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException("User not found"));
+		user.setTokenVersion(user.getTokenVersion() + 1);
+		userRepository.save(user);
+		revocationRegistry.revoke(user.getId(), user.getTokenVersion());
 	}
 
 }
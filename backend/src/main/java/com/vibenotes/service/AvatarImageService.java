@@ -0,0 +1,243 @@
+package com.vibenotes.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Square JPEG thumbnails under <avatar dir>/<size>/, made on a bounded pool; skipped avatars
+// are picked up by the startup backfill and served at full size until then
+@Service
+public class AvatarImageService {
+
+	private static final Logger logger = LoggerFactory.getLogger(AvatarImageService.class);
+
+	public static final int[] SIZES = {32, 64, 256};
+
+	private static final String AVATAR_PATH = "/uploads/avatars/";
+	private static final String THUMBNAIL_EXTENSION = ".jpg";
+	private static final float JPEG_QUALITY = 0.85f;
+
+	private final Path avatarStorageLocation;
+	private final long maxPixels;
+	private final ThreadPoolExecutor executor;
+
+	// Bumped whenever thumbnails appear, so profile ETags change along with the URLs
+	private final AtomicLong generation = new AtomicLong();
+
+	public AvatarImageService(
+			@Value("${file.upload.avatar.dir}") String avatarUploadDir,
+			@Value("${avatar.resize.threads:2}") int threads,
+			@Value("${avatar.resize.queue-capacity:100}") int queueCapacity,
+			@Value("${avatar.resize.max-pixels:40000000}") long maxPixels) {
+		this.avatarStorageLocation = Paths.get(avatarUploadDir).toAbsolutePath().normalize();
+		this.maxPixels = maxPixels;
+		this.executor = new ThreadPoolExecutor(
+				threads, threads,
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity),
+				namedThreads(),
+				new ThreadPoolExecutor.AbortPolicy());
+		try {
+			for (int size : SIZES) {
+				Files.createDirectories(avatarStorageLocation.resolve(String.valueOf(size)));
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Could not create avatar thumbnail directories", ex);
+		}
+	}
+
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	// Queues thumbnails for an avatar just stored under the given name
+	public void submit(String filename) {
+		try {
+			executor.execute(() -> process(filename));
+		} catch (RejectedExecutionException ex) {
+			logger.warn("Avatar resize queue is full, {} is served at its original size for now", filename);
+		}
+	}
+
+	// Picks up avatars stored before thumbnails existed, or skipped while the pool was saturated
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		try (Stream<Path> files = Files.list(avatarStorageLocation)) {
+			files.filter(Files::isRegularFile)
+					.map(path -> path.getFileName().toString())
+					.filter(name -> !name.startsWith("."))
+					.filter(name -> !Files.exists(thumbnailPath(SIZES[SIZES.length - 1], name)))
+					.forEach(this::submit);
+		} catch (IOException ex) {
+			logger.warn("Could not scan {} for avatars without thumbnails", avatarStorageLocation, ex);
+		}
+	}
+
+	// Size-specific URLs for a stored avatar URL, keyed by edge length in pixels. Sizes whose
+	// thumbnail is not ready, and avatars hosted elsewhere, map to the original URL.
+	public Map<Integer, String> urlsFor(String avatarUrl) {
+		if (avatarUrl == null || avatarUrl.isEmpty()) {
+			return null;
+		}
+		Map<Integer, String> urls = new LinkedHashMap<>();
+		int index = avatarUrl.lastIndexOf(AVATAR_PATH);
+		String filename = index < 0 ? null : avatarUrl.substring(index + AVATAR_PATH.length());
+		boolean local = filename != null && !filename.isEmpty()
+				&& !filename.contains("/") && !filename.contains("\\") && !filename.contains("..");
+		for (int size : SIZES) {
+			if (local && Files.exists(thumbnailPath(size, filename))) {
+				urls.put(size, avatarUrl.substring(0, index + AVATAR_PATH.length())
+						+ size + "/" + baseName(filename) + THUMBNAIL_EXTENSION);
+			} else {
+				urls.put(size, avatarUrl);
+			}
+		}
+		return urls;
+	}
+
+	private void process(String filename) {
+		Path source = avatarStorageLocation.resolve(filename);
+		try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+			Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+			if (readers == null || !readers.hasNext()) {
+				logger.info("No decoder for avatar {}, it is served at its original size", filename);
+				return;
+			}
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				BufferedImage square = decodeCentreSquare(reader, filename);
+				if (square == null) {
+					return;
+				}
+				for (int size : SIZES) {
+					writeJpeg(scale(square, size), thumbnailPath(size, filename));
+				}
+				generation.incrementAndGet();
+			} finally {
+				reader.dispose();
+			}
+		} catch (IOException ex) {
+			// Usually a corrupt or truncated image; the original stays in use
+			logger.warn("Could not create thumbnails for avatar {}: {}", filename, ex.getMessage());
+		} catch (RuntimeException ex) {
+			logger.warn("Could not create thumbnails for avatar {}", filename, ex);
+		}
+	}
+
+	private BufferedImage decodeCentreSquare(ImageReader reader, String filename) throws IOException {
+		int width = reader.getWidth(0);
+		int height = reader.getHeight(0);
+		if ((long) width * height > maxPixels) {
+			logger.warn("Avatar {} is {}x{}, above the {} pixel limit; not resizing it", filename, width, height, maxPixels);
+			return null;
+		}
+		int side = Math.min(width, height);
+		ImageReadParam param = reader.getDefaultReadParam();
+		param.setSourceRegion(new Rectangle((width - side) / 2, (height - side) / 2, side, side));
+		// Keep at least twice the largest thumbnail so the final downscale still has detail to work with
+		int subsampling = Math.max(1, side / (2 * SIZES[SIZES.length - 1]));
+		param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+		return reader.read(0, param);
+	}
+
+	// Halves in steps before the last bicubic pass, which avoids the aliasing of one big jump.
+	// Transparent areas are flattened onto white since JPEG has no alpha channel.
+	private static BufferedImage scale(BufferedImage image, int size) {
+		BufferedImage current = image;
+		int side = image.getWidth();
+		do {
+			side = Math.max(size, side / 2);
+			BufferedImage next = new BufferedImage(side, side, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				g.drawImage(current, 0, 0, side, side, Color.WHITE, null);
+			} finally {
+				g.dispose();
+			}
+			current = next;
+		} while (side > size);
+		return current;
+	}
+
+	private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		Path tempFile = target.resolveSibling(".resize-" + UUID.randomUUID() + ".part");
+		try {
+			try (ImageOutputStream out = ImageIO.createImageOutputStream(tempFile.toFile())) {
+				ImageWriteParam param = writer.getDefaultWriteParam();
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(JPEG_QUALITY);
+				writer.setOutput(out);
+				writer.write(null, new IIOImage(image, null, null), param);
+			}
+			// Readers check for the thumbnail's existence, so it must appear complete
+			Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			writer.dispose();
+			Files.deleteIfExists(tempFile);
+		}
+	}
+
+	private Path thumbnailPath(int size, String filename) {
+		return avatarStorageLocation.resolve(String.valueOf(size)).resolve(baseName(filename) + THUMBNAIL_EXTENSION);
+	}
+
+	private static String baseName(String filename) {
+		int dot = filename.lastIndexOf('.');
+		return dot > 0 ? filename.substring(0, dot) : filename;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private static ThreadFactory namedThreads() {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "avatar-resize-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
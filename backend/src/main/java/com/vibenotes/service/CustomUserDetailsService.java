@@ -4,6 +4,7 @@ import com.vibenotes.model.User;
 import com.vibenotes.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -11,7 +12,7 @@ import org.springframework.stereotype.Service;
 import java.util.ArrayList;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
 	@Autowired
 	private UserRepository userRepository;
@@ -28,5 +29,19 @@ public class CustomUserDetailsService implements UserDetailsService {
 		);
 	}
 
+	@Override
+	public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+		User user = userRepository.findByUsername(userDetails.getUsername())
+				.orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
+		user.setPassword(newPassword);
+		userRepository.save(user);
+
+		return new org.springframework.security.core.userdetails.User(
+				user.getUsername(),
+				user.getPassword(),
+				userDetails.getAuthorities()
+		);
+	}
+
 }
 
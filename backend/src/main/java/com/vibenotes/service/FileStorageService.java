@@ -1,22 +1,34 @@
 package com.vibenotes.service;
 
 import com.vibenotes.exception.FileStorageException;
+import com.vibenotes.exception.PayloadTooLargeException;
+import com.vibenotes.util.FileTypeSniffer;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
 
 @Service
 public class FileStorageService {
@@ -39,11 +51,33 @@ public class FileStorageService {
 		"image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"
 	);
 
+	// Attachment types stored with a gzip sibling (<name>.gz) that downloads can be served from
+	private static final List<String> PRECOMPRESSED_TYPES = Arrays.asList("text/plain", "text/csv");
+	private static final String GZIP_SUFFIX = ".gz";
+	private static final long PRECOMPRESS_MIN_SIZE = 1024;
+	// A sibling that saves less than a tenth of the size is not worth the disk space
+	private static final double PRECOMPRESS_MAX_RATIO = 0.9;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final String TRASH_PREFIX = ".deleted-";
+	private static final String LEFTOVER_GLOB = ".{upload-*.part,deleted-*}";
+
+	private final long avatarMaxBytes;
+	private final long attachmentMaxBytes;
+	private final boolean contentAddressed;
+
 	public FileStorageService(
 			@Value("${file.upload.avatar.dir}") String avatarUploadDir,
-			@Value("${file.upload.attachment.dir}") String attachmentUploadDir) {
+			@Value("${file.upload.attachment.dir}") String attachmentUploadDir,
+			@Value("${file.upload.avatar.max-size:5MB}") DataSize avatarMaxSize,
+			@Value("${file.upload.attachment.max-size:10MB}") DataSize attachmentMaxSize,
+			@Value("${file.upload.attachment.content-addressed:true}") boolean contentAddressed) {
 		this.avatarStorageLocation = Paths.get(avatarUploadDir).toAbsolutePath().normalize();
 		this.attachmentStorageLocation = Paths.get(attachmentUploadDir).toAbsolutePath().normalize();
+		this.avatarMaxBytes = avatarMaxSize.toBytes();
+		this.attachmentMaxBytes = attachmentMaxSize.toBytes();
+		this.contentAddressed = contentAddressed;
 		try {
 			Files.createDirectories(this.avatarStorageLocation);
 			Files.createDirectories(this.attachmentStorageLocation);
@@ -53,86 +87,353 @@ public class FileStorageService {
 	}
 
 	public String storeAvatar(MultipartFile file) {
-		// Validate file
-		if (file.isEmpty()) {
-			throw new FileStorageException("File cannot be empty");
-		}
-
 		// Validate file type
 		String contentType = file.getContentType();
 		if (contentType == null || !ALLOWED_IMAGE_TYPES.contains(contentType.toLowerCase())) {
 			throw new FileStorageException("Only image files (JPEG, PNG, GIF, WebP) are allowed");
 		}
 
-		return storeFileInternal(file, avatarStorageLocation);
+		try (InputStream content = file.getInputStream()) {
+			StoredFile stored = stage(content, file.getOriginalFilename(), contentType.toLowerCase(),
+					avatarStorageLocation, avatarMaxBytes, false);
+			publish(stored, avatarStorageLocation);
+			return stored.getFilename();
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not store file. Please try again!", ex);
+		}
+	}
+
+	// Stores a standalone attachment under a fresh name, read directly from the request body
+	// (see MultipartStreamUtil).
+	public StoredFile storeAttachment(InputStream content, String originalFilename, String contentType) {
+		StoredFile stored = stage(content, originalFilename, validateAttachmentType(contentType),
+				attachmentStorageLocation, attachmentMaxBytes, false);
+		publish(stored, attachmentStorageLocation);
+		precompress(stored.getFilename(), stored.getContentType());
+		return stored;
+	}
+
+	// The caller publishes it while holding the blob's lock and always calls discardStaged after
+	public StoredFile stageAttachment(InputStream content, String originalFilename, String contentType) {
+		return stage(content, originalFilename, validateAttachmentType(contentType),
+				attachmentStorageLocation, attachmentMaxBytes, contentAddressed);
+	}
+
+	// Moves the staged file into place. Identical content may already be stored under a
+	// content-addressed name, in which case the staged copy is simply dropped.
+	public void publishAttachment(StoredFile file) {
+		publish(file, attachmentStorageLocation);
 	}
 
-	public String storeAttachment(MultipartFile file) {
-		// Validate file
-		if (file.isEmpty()) {
-			throw new FileStorageException("File cannot be empty");
+	public void discardStaged(StoredFile file) {
+		try {
+			Files.deleteIfExists(file.getStagedPath());
+		} catch (IOException ex) {
+			// Leftover .part files are harmless and never served
 		}
+	}
 
+	private static String validateAttachmentType(String contentType) {
 		// Validate file type
-		String contentType = file.getContentType();
 		if (contentType == null || !ALLOWED_ATTACHMENT_TYPES.contains(contentType.toLowerCase())) {
 			throw new FileStorageException("File type not allowed. Allowed types: PDF, DOC, DOCX, TXT, CSV, and images");
 		}
-
-		return storeFileInternal(file, attachmentStorageLocation);
+		return contentType.toLowerCase();
 	}
 
-	private String storeFileInternal(MultipartFile file, Path storageLocation) {
-		// Generate unique filename
-		String originalFilename = StringUtils.cleanPath(file.getOriginalFilename());
-		if (originalFilename.contains("..")) {
+	// Hashes, counts and sniffs in one pass; readers never see a partial file
+	private StoredFile stage(InputStream content, String originalFilename, String contentType,
+			Path storageLocation, long maxBytes, boolean nameByContent) {
+		String cleanFilename = StringUtils.cleanPath(originalFilename == null ? "" : originalFilename);
+		if (cleanFilename.contains("..")) {
 			throw new FileStorageException("Filename contains invalid path sequence");
 		}
-		
-		String fileExtension = "";
-		if (originalFilename.contains(".")) {
-			fileExtension = originalFilename.substring(originalFilename.lastIndexOf("."));
+		if (cleanFilename.isBlank()) {
+			throw new FileStorageException("Filename cannot be empty");
 		}
-		String newFilename = UUID.randomUUID().toString() + fileExtension;
 
+		Path tempFile = null;
 		try {
-			// Additional path traversal check
-			Path targetLocation = storageLocation.resolve(newFilename).normalize();
-			if (!targetLocation.startsWith(storageLocation)) {
-				throw new FileStorageException("Invalid file path");
+			tempFile = stagingPath(storageLocation);
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] head = new byte[FileTypeSniffer.SNIFF_LENGTH];
+			int headLength = 0;
+			boolean sniffed = false;
+			long size = 0;
+
+			try (OutputStream out = Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int read;
+				while ((read = content.read(buffer)) != -1) {
+					size += read;
+					if (size > maxBytes) {
+						throw new PayloadTooLargeException("File exceeds the maximum allowed size of " + maxBytes + " bytes");
+					}
+					if (!sniffed) {
+						int copied = Math.min(read, head.length - headLength);
+						System.arraycopy(buffer, 0, head, headLength, copied);
+						headLength += copied;
+						if (headLength == head.length) {
+							verifyContentType(contentType, head, headLength);
+							sniffed = true;
+						}
+					}
+					digest.update(buffer, 0, read);
+					out.write(buffer, 0, read);
+				}
+			}
+
+			// Validate file
+			if (size == 0) {
+				throw new FileStorageException("File cannot be empty");
+			}
+			if (!sniffed) {
+				verifyContentType(contentType, head, headLength);
 			}
 
-			// Copy file to the target location
-			Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+			String sha256 = HexFormat.of().formatHex(digest.digest());
+			String newFilename = nameByContent ? sha256 : UUID.randomUUID().toString() + extensionOf(cleanFilename);
+			StoredFile stored = new StoredFile(newFilename, cleanFilename, size, sha256, contentType, tempFile);
+			tempFile = null;
+			return stored;
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not store file. Please try again!", ex);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
+		} finally {
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException ex) {
+					// Leftover .part files are harmless and never served
+				}
+			}
+		}
+	}
+
+	// Staged next to the final location so publishing is a rename on the same file system.
+	// Created with default permissions, unlike Files.createTempFile, as the file is kept.
+	private static Path stagingPath(Path storageLocation) {
+		return storageLocation.resolve(".upload-" + UUID.randomUUID() + ".part");
+	}
+
+	private static String extensionOf(String filename) {
+		return filename.contains(".") ? filename.substring(filename.lastIndexOf(".")) : "";
+	}
 
-			return newFilename;
+	private void publish(StoredFile file, Path storageLocation) {
+		// Additional path traversal check
+		Path targetLocation = storageLocation.resolve(file.getFilename()).normalize();
+		if (!targetLocation.startsWith(storageLocation)) {
+			throw new FileStorageException("Invalid file path");
+		}
+		try {
+			if (file.getFilename().equals(file.getSha256()) && Files.exists(targetLocation)) {
+				Files.delete(file.getStagedPath());
+			} else {
+				Files.move(file.getStagedPath(), targetLocation, StandardCopyOption.ATOMIC_MOVE);
+			}
 		} catch (IOException ex) {
 			throw new FileStorageException("Could not store file. Please try again!", ex);
 		}
 	}
 
-	public Resource loadAttachment(String filename) {
+	private static void verifyContentType(String contentType, byte[] head, int length) {
+		if (!FileTypeSniffer.matches(contentType, head, length)) {
+			throw new FileStorageException("File content does not match its declared type " + contentType);
+		}
+	}
+
+	public Path loadAttachment(String filename) {
+		Path filePath = resolveAttachment(filename);
+		if (Files.isRegularFile(filePath) && Files.isReadable(filePath)) {
+			return filePath;
+		} else {
+			throw new FileStorageException("File not found or not readable");
+		}
+	}
+
+	// Writes a gzip copy next to a text attachment, so downloads that accept gzip are served
+	// from disk instead of being compressed on every request. Failures only cost that saving.
+	public void precompress(String filename, String contentType) {
+		if (contentType == null || !PRECOMPRESSED_TYPES.contains(contentType.toLowerCase())) {
+			return;
+		}
+		Path source = resolveAttachment(filename);
+		Path target = source.resolveSibling(filename + GZIP_SUFFIX);
+		Path tempFile = null;
 		try {
-			// Validate filename to prevent path traversal
-			if (filename == null || filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
-				throw new FileStorageException("Invalid filename");
+			long size = Files.size(source);
+			if (size < PRECOMPRESS_MIN_SIZE || Files.exists(target)) {
+				return;
 			}
-			
-			Path filePath = attachmentStorageLocation.resolve(filename).normalize();
-			
-			// Additional path traversal check
-			if (!filePath.startsWith(attachmentStorageLocation)) {
-				throw new FileStorageException("Invalid file path");
+			tempFile = stagingPath(attachmentStorageLocation);
+			try (InputStream in = Files.newInputStream(source);
+					OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW), BUFFER_SIZE) {
+						{
+							// Compressed once and served many times, so spend the CPU here
+							def.setLevel(Deflater.BEST_COMPRESSION);
+						}
+					}) {
+				in.transferTo(out);
 			}
-			
-			Resource resource = new UrlResource(filePath.toUri());
-			if (resource.exists() && resource.isReadable()) {
-				return resource;
-			} else {
-				throw new FileStorageException("File not found or not readable");
+			if (Files.size(tempFile) <= size * PRECOMPRESS_MAX_RATIO) {
+				Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+				tempFile = null;
+			}
+		} catch (IOException ex) {
+			// The attachment is still served uncompressed
+		} finally {
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException ex) {
+					// Leftover .part files are harmless and never served
+				}
+			}
+		}
+	}
+
+	// The gzip sibling written by precompress, or null when the attachment has none
+	public Path findGzipVariant(String filename) {
+		Path variant = resolveAttachment(filename).resolveSibling(filename + GZIP_SUFFIX);
+		return Files.isRegularFile(variant) && Files.isReadable(variant) ? variant : null;
+	}
+
+	private Path resolveAttachment(String filename) {
+		// Validate filename to prevent path traversal
+		if (filename == null || filename.contains("..") || filename.contains("/") || filename.contains("\\")) {
+			throw new FileStorageException("Invalid filename");
+		}
+
+		Path filePath = attachmentStorageLocation.resolve(filename).normalize();
+
+		// Additional path traversal check
+		if (!filePath.startsWith(attachmentStorageLocation)) {
+			throw new FileStorageException("Invalid file path");
+		}
+		return filePath;
+	}
+
+	// deleteTrashed once the transaction commits, restoreTrashed if it rolls back; null if gone
+	public Path trashAttachment(String filename) {
+		Path filePath = resolveAttachment(filename);
+		// Named by the time it was trashed, as the move keeps the attachment's own mtime
+		Path trashed = attachmentStorageLocation.resolve(
+				TRASH_PREFIX + System.currentTimeMillis() + "-" + UUID.randomUUID());
+		try {
+			// The gzip sibling is only a cache; a restored attachment is served uncompressed
+			Files.deleteIfExists(filePath.resolveSibling(filename + GZIP_SUFFIX));
+			Files.move(filePath, trashed, StandardCopyOption.ATOMIC_MOVE);
+			return trashed;
+		} catch (NoSuchFileException ex) {
+			return null;
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not delete file", ex);
+		}
+	}
+
+	public void restoreTrashed(Path trashed, String filename) {
+		try {
+			Files.move(trashed, attachmentStorageLocation.resolve(filename), StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not restore file " + filename, ex);
+		}
+	}
+
+	public void deleteTrashed(Path trashed) {
+		try {
+			Files.deleteIfExists(trashed);
+		} catch (IOException ex) {
+			// Log but don't throw - file deletion is not critical
+		}
+	}
+
+	// Deletes staging and trashed files left behind by a crash once they are older than
+	// maxAge, which must outlast any upload or transaction still using them.
+	public int deleteLeftovers(Duration maxAge) {
+		Instant cutoff = Instant.now().minus(maxAge);
+		int deleted = 0;
+		for (Path directory : List.of(avatarStorageLocation, attachmentStorageLocation)) {
+			try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, LEFTOVER_GLOB)) {
+				for (Path leftover : leftovers) {
+					try {
+						if (leftoverSince(leftover).isBefore(cutoff) && Files.deleteIfExists(leftover)) {
+							deleted++;
+						}
+					} catch (IOException ex) {
+						// Tried again on the next sweep
+					}
+				}
+			} catch (IOException ex) {
+				throw new FileStorageException("Could not list " + directory, ex);
+			}
+		}
+		return deleted;
+	}
+
+	private static Instant leftoverSince(Path leftover) throws IOException {
+		String name = leftover.getFileName().toString();
+		if (name.startsWith(TRASH_PREFIX)) {
+			int end = name.indexOf('-', TRASH_PREFIX.length());
+			try {
+				return Instant.ofEpochMilli(Long.parseLong(name.substring(TRASH_PREFIX.length(), end)));
+			} catch (NumberFormatException | IndexOutOfBoundsException ex) {
+				// Trashed before names carried the time
+			}
+		}
+		return Files.getLastModifiedTime(leftover).toInstant();
+	}
+
+	// Makes the content of an existing attachment available under its content-addressed name,
+	// leaving the source in place. Returns false when that blob already exists.
+	public boolean copyToBlob(String filename, String sha256) {
+		Path source = loadAttachment(filename);
+		Path target = attachmentStorageLocation.resolve(sha256);
+		if (Files.exists(target)) {
+			return false;
+		}
+		Path tempFile = null;
+		try {
+			tempFile = stagingPath(attachmentStorageLocation);
+			Files.copy(source, tempFile);
+			Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+			tempFile = null;
+			return true;
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not copy file " + filename, ex);
+		} finally {
+			if (tempFile != null) {
+				try {
+					Files.deleteIfExists(tempFile);
+				} catch (IOException ex) {
+					// Leftover .part files are harmless and never served
+				}
+			}
+		}
+	}
+
+	public long sizeOf(String filename) {
+		try {
+			return Files.size(loadAttachment(filename));
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not read file " + filename, ex);
+		}
+	}
+
+	public String sha256Of(String filename) {
+		try (InputStream in = Files.newInputStream(loadAttachment(filename))) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
 			}
-		} catch (MalformedURLException ex) {
-			throw new FileStorageException("Invalid file path", ex);
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not read file " + filename, ex);
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not available", ex);
 		}
 	}
 
@@ -148,6 +449,7 @@ public class FileStorageService {
 	public void deleteAttachment(String filename) {
 		try {
 			Path filePath = this.attachmentStorageLocation.resolve(filename).normalize();
+			Files.deleteIfExists(filePath.resolveSibling(filename + GZIP_SUFFIX));
 			Files.deleteIfExists(filePath);
 		} catch (IOException ex) {
 			// Log but don't throw - file deletion is not critical
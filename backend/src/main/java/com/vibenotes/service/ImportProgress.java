@@ -0,0 +1,29 @@
+package com.vibenotes.service;
+
+import com.vibenotes.model.ImportJob;
+
+// Counters of an import run, written to its job together with the work they count.
+class ImportProgress {
+
+	long bytesRead;
+	long entriesProcessed;
+	int notesImported;
+	int attachmentsImported;
+	int entriesSkipped;
+
+	ImportProgress(ImportJob job) {
+		this.entriesProcessed = job.getEntriesProcessed();
+		this.notesImported = job.getNotesImported();
+		this.attachmentsImported = job.getAttachmentsImported();
+		this.entriesSkipped = job.getEntriesSkipped();
+	}
+
+	void applyTo(ImportJob job) {
+		job.setBytesRead(bytesRead);
+		job.setEntriesProcessed(entriesProcessed);
+		job.setNotesImported(notesImported);
+		job.setAttachmentsImported(attachmentsImported);
+		job.setEntriesSkipped(entriesSkipped);
+	}
+
+}
@@ -0,0 +1,154 @@
+package com.vibenotes.service;
+
+import com.vibenotes.exception.FileStorageException;
+import com.vibenotes.model.Note;
+import com.vibenotes.model.NoteAttachment;
+import com.vibenotes.repository.NoteAttachmentRepository;
+import com.vibenotes.repository.NoteRepository;
+import com.vibenotes.security.AuthenticatedUser;
+import com.vibenotes.util.NoteMarkdown;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Notebook ZIP export, produced while it is sent without staging anything on disk
+@Service
+public class NoteExportService {
+
+	private static final Logger logger = LoggerFactory.getLogger(NoteExportService.class);
+
+	private static final String NOTES_DIR = "notes/";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private NoteAttachmentRepository attachmentRepository;
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Transactional(readOnly = true)
+	public void writeExport(AuthenticatedUser owner, OutputStream out) throws IOException {
+		ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, BUFFER_SIZE), StandardCharsets.UTF_8);
+		WritableByteChannel zipChannel = Channels.newChannel(zip);
+
+		List<Note> chunk = new ArrayList<>(NoteRepository.STREAM_FETCH_SIZE);
+		try (Stream<Note> notes = noteRepository.streamByUserId(owner.getId())) {
+			Iterator<Note> iterator = notes.iterator();
+			while (iterator.hasNext()) {
+				chunk.add(iterator.next());
+				if (chunk.size() < NoteRepository.STREAM_FETCH_SIZE && iterator.hasNext()) {
+					continue;
+				}
+				writeChunk(zip, zipChannel, chunk);
+				chunk.clear();
+				entityManager.clear();
+			}
+		}
+		// Finished rather than closed: the response stream belongs to the container
+		zip.finish();
+		zip.flush();
+	}
+
+	// One attachment query per chunk of notes
+	private void writeChunk(ZipOutputStream zip, WritableByteChannel zipChannel, List<Note> notes) throws IOException {
+		List<Long> noteIds = notes.stream()
+				.map(Note::getId)
+				.collect(Collectors.toList());
+		Map<Long, List<NoteAttachment>> attachmentsByNote = attachmentRepository.findByNoteIdIn(noteIds).stream()
+				.collect(Collectors.groupingBy(attachment -> attachment.getNote().getId()));
+
+		for (Note note : notes) {
+			String baseName = NoteMarkdown.baseName(note);
+			List<NoteAttachment> attachments = attachmentsByNote.getOrDefault(note.getId(), Collections.emptyList());
+			List<String> attachmentPaths = attachments.stream()
+					.map(attachment -> baseName + "/" + attachmentName(attachment))
+					.collect(Collectors.toList());
+
+			ZipEntry entry = new ZipEntry(NOTES_DIR + baseName + NoteMarkdown.EXTENSION);
+			if (note.getUpdatedAt() != null) {
+				entry.setTimeLocal(note.getUpdatedAt());
+			}
+			zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+			zip.putNextEntry(entry);
+			zip.write(NoteMarkdown.render(note, attachmentPaths).getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+
+			for (int i = 0; i < attachments.size(); i++) {
+				writeAttachment(zip, zipChannel, attachments.get(i), NOTES_DIR + attachmentPaths.get(i));
+			}
+		}
+	}
+
+	private void writeAttachment(ZipOutputStream zip, WritableByteChannel zipChannel, NoteAttachment attachment,
+			String entryName) throws IOException {
+		FileChannel file;
+		try {
+			Path path = fileStorageService.loadAttachment(attachment.getFilename());
+			file = FileChannel.open(path, StandardOpenOption.READ);
+		} catch (FileStorageException | NoSuchFileException ex) {
+			// Deleted since the note was read; the archive is still worth having without it
+			logger.warn("Skipping attachment {} of note {} in export: file is missing",
+					attachment.getId(), attachment.getNote().getId());
+			return;
+		}
+		try (file) {
+			ZipEntry entry = new ZipEntry(entryName);
+			if (attachment.getUploadedAt() != null) {
+				entry.setTimeLocal(attachment.getUploadedAt());
+			}
+			// Images and office documents are already compressed; deflating them again only costs CPU
+			zip.setLevel(isText(attachment.getContentType()) ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+			zip.putNextEntry(entry);
+			long position = 0;
+			long size = file.size();
+			while (position < size) {
+				long transferred = file.transferTo(position, size - position, zipChannel);
+				if (transferred <= 0) {
+					break;
+				}
+				position += transferred;
+			}
+			zip.closeEntry();
+		}
+	}
+
+	private static String attachmentName(NoteAttachment attachment) {
+		return attachment.getId() + "-" + NoteMarkdown.safeFileName(attachment.getOriginalFilename());
+	}
+
+	private static boolean isText(String contentType) {
+		return contentType != null && contentType.startsWith("text/");
+	}
+
+}
@@ -0,0 +1,284 @@
+package com.vibenotes.service;
+
+import com.vibenotes.cache.PublicNoteListCache;
+import com.vibenotes.dto.ImportJobResponse;
+import com.vibenotes.events.NoteEvent;
+import com.vibenotes.events.NoteEventBroadcaster;
+import com.vibenotes.exception.ConflictException;
+import com.vibenotes.exception.ResourceNotFoundException;
+import com.vibenotes.model.ImportJob;
+import com.vibenotes.model.ImportJobEntry;
+import com.vibenotes.model.Note;
+import com.vibenotes.model.NoteAttachment;
+import com.vibenotes.repository.ImportJobEntryRepository;
+import com.vibenotes.repository.ImportJobRepository;
+import com.vibenotes.repository.NoteRepository;
+import com.vibenotes.repository.UserRepository;
+import com.vibenotes.search.NoteSearchIndex;
+import com.vibenotes.security.AuthenticatedUser;
+import com.vibenotes.util.NoteMarkdown;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Each write records the entries it covers in the same transaction as the notes
+@Service
+public class NoteImportService {
+
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	@Autowired
+	private ImportJobRepository jobRepository;
+
+	@Autowired
+	private ImportJobEntryRepository entryRepository;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private AttachmentService attachmentService;
+
+	@Autowired
+	private NoteSearchIndex searchIndex;
+
+	@Autowired
+	private PublicNoteListCache publicListCache;
+
+	@Autowired
+	private NoteEventBroadcaster eventBroadcaster;
+
+	@Autowired
+	private NoteRevisionService revisionService;
+
+	@Transactional
+	public ImportJobResponse createJob(AuthenticatedUser owner) {
+		ImportJob job = new ImportJob();
+		job.setUserId(owner.getId());
+		return toResponse(jobRepository.save(job));
+	}
+
+	public ImportJobResponse getJob(AuthenticatedUser owner, Long id) {
+		return toResponse(jobRepository.findByIdAndUserId(id, owner.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Import job not found")));
+	}
+
+	// Starts a run unless another one is still making progress on the job
+	@Transactional
+	public ImportJob claim(AuthenticatedUser owner, Long id, LocalDateTime staleBefore) {
+		ImportJob job = jobRepository.findForUpdate(id, owner.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+		if (job.getStatus() == ImportJob.Status.RUNNING && job.getUpdatedAt().isAfter(staleBefore)) {
+			throw new ConflictException("This import is already running");
+		}
+		job.setStatus(ImportJob.Status.RUNNING);
+		job.setBytesRead(0);
+		job.setError(null);
+		job.setCompletedAt(null);
+		return jobRepository.save(job);
+	}
+
+	@Transactional(readOnly = true)
+	public Map<String, ImportJobEntry> findEntries(Long jobId) {
+		return entryRepository.findByJobId(jobId).stream()
+				.collect(Collectors.toMap(ImportJobEntry::getPath, Function.identity()));
+	}
+
+	// Fills in notes created earlier for attachments that came first; returns the note id per path
+	@Transactional
+	public Map<String, Long> saveNotes(AuthenticatedUser owner, Long jobId, List<NoteFile> files,
+			List<ImportJobEntry> skipped, ImportProgress progress) {
+		noteRepository.lockChanges(owner.getId());
+		Map<String, Long> noteIds = new LinkedHashMap<>();
+		boolean publicChanged = false;
+
+		// Entries seen before: notes created early for their attachments, under either outcome
+		List<String> paths = new ArrayList<>();
+		files.forEach(file -> paths.add(file.getPath()));
+		skipped.forEach(entry -> paths.add(entry.getPath()));
+		Map<String, ImportJobEntry> existing = paths.isEmpty() ? new HashMap<>()
+				: entryRepository.findByJobIdAndPathIn(jobId, paths).stream()
+						.collect(Collectors.toMap(ImportJobEntry::getPath, Function.identity()));
+
+		if (!files.isEmpty()) {
+			List<Long> placeholderIds = files.stream()
+					.map(file -> existing.get(file.getPath()))
+					.filter(Objects::nonNull)
+					.map(ImportJobEntry::getNoteId)
+					.collect(Collectors.toList());
+			Map<Long, Note> placeholders = placeholderIds.isEmpty() ? new HashMap<>()
+					: noteRepository.findByUserIdAndIdIn(owner.getId(), placeholderIds).stream()
+							.collect(Collectors.toMap(Note::getId, Function.identity()));
+			Map<Long, Integer> revisionNumbers = revisionService.findLatestNumbers(placeholders.keySet());
+
+			for (NoteFile file : files) {
+				ImportJobEntry entry = existing.get(file.getPath());
+				Note note = entry != null ? placeholders.get(entry.getNoteId()) : null;
+				boolean created = note == null;
+				if (created) {
+					note = new Note();
+					note.setUser(userRepository.getReferenceById(owner.getId()));
+				}
+				boolean wasPublic = !created && note.getIsPublic();
+				NoteRevisionService.Version previous = created ? null : NoteRevisionService.Version.of(note);
+				note.setTitle(file.getNote().getTitle());
+				note.setContent(file.getNote().getContent());
+				note.setIsPublic(file.getNote().isPublic());
+				if (created) {
+					noteRepository.save(note);
+				} else {
+					revisionService.recordRevision(note, previous, revisionNumbers);
+				}
+				searchIndex.indexAfterCommit(note);
+				publicChanged |= wasPublic || note.getIsPublic();
+
+				if (entry == null) {
+					entryRepository.save(new ImportJobEntry(jobId, file.getPath(), ImportJobEntry.Status.IMPORTED,
+							note.getId(), null, null));
+				} else {
+					entry.setStatus(ImportJobEntry.Status.IMPORTED);
+					entry.setNoteId(note.getId());
+				}
+				eventBroadcaster.publishAfterCommit(owner.getId(),
+						NoteEvent.note(created ? NoteEvent.NOTE_CREATED : NoteEvent.NOTE_UPDATED, note.getId()));
+				noteIds.put(file.getPath(), note.getId());
+			}
+		}
+		for (ImportJobEntry entry : skipped) {
+			ImportJobEntry earlier = existing.get(entry.getPath());
+			if (earlier != null) {
+				// The note made for its attachments stays; only the Markdown file is left out
+				earlier.setStatus(ImportJobEntry.Status.SKIPPED);
+				earlier.setMessage(entry.getMessage());
+			} else {
+				entryRepository.save(entry);
+			}
+		}
+		updateProgress(jobId, progress);
+		if (publicChanged) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		return noteIds;
+	}
+
+	// Creates a provisional note when its Markdown file has not been read yet
+	@Transactional
+	public Long importAttachment(AuthenticatedUser owner, Long jobId, String path, String notePath, Long noteId,
+			String provisionalTitle, StoredFile file, ImportProgress progress) {
+		noteRepository.lockChanges(owner.getId());
+		Note note = noteId != null ? noteRepository.findByIdAndUserId(noteId, owner.getId()).orElse(null) : null;
+		if (note == null) {
+			note = new Note();
+			note.setTitle(provisionalTitle);
+			note.setContent("Attachments imported from " + provisionalTitle + "/");
+			note.setIsPublic(false);
+			note.setUser(userRepository.getReferenceById(owner.getId()));
+			noteRepository.save(note);
+			searchIndex.indexAfterCommit(note);
+			List<ImportJobEntry> existing = entryRepository.findByJobIdAndPathIn(jobId, List.of(notePath));
+			if (existing.isEmpty()) {
+				entryRepository.save(new ImportJobEntry(jobId, notePath, ImportJobEntry.Status.PENDING,
+						note.getId(), null, null));
+			} else {
+				existing.get(0).setNoteId(note.getId());
+			}
+			eventBroadcaster.publishAfterCommit(owner.getId(), NoteEvent.note(NoteEvent.NOTE_CREATED, note.getId()));
+		}
+
+		NoteAttachment attachment = attachmentService.addAttachment(note, file);
+		entryRepository.save(new ImportJobEntry(jobId, path, ImportJobEntry.Status.IMPORTED,
+				note.getId(), attachment.getId(), null));
+		updateProgress(jobId, progress);
+		if (note.getIsPublic()) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		eventBroadcaster.publishAfterCommit(owner.getId(),
+				NoteEvent.attachment(NoteEvent.ATTACHMENT_ADDED, note.getId(), attachment.getId()));
+		return note.getId();
+	}
+
+	// Counters are left as last committed: they describe the work that is actually saved
+	@Transactional
+	public void finish(Long jobId, long bytesRead, String error) {
+		ImportJob job = jobRepository.findById(jobId)
+				.orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+		job.setBytesRead(bytesRead);
+		if (error == null) {
+			job.setStatus(ImportJob.Status.COMPLETED);
+			job.setCompletedAt(LocalDateTime.now());
+		} else {
+			job.setStatus(ImportJob.Status.FAILED);
+			job.setError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+		}
+	}
+
+	private void updateProgress(Long jobId, ImportProgress progress) {
+		ImportJob job = jobRepository.findById(jobId)
+				.orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+		progress.applyTo(job);
+		// Also keeps the run from looking abandoned
+		job.setUpdatedAt(LocalDateTime.now());
+	}
+
+	private void invalidatePublicListAfterCommit(String username) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				publicListCache.invalidate(username);
+			}
+		});
+	}
+
+	private static ImportJobResponse toResponse(ImportJob job) {
+		ImportJobResponse response = new ImportJobResponse();
+		response.setId(job.getId());
+		response.setStatus(job.getStatus().name().toLowerCase());
+		response.setBytesRead(job.getBytesRead());
+		response.setEntriesProcessed(job.getEntriesProcessed());
+		response.setNotesImported(job.getNotesImported());
+		response.setAttachmentsImported(job.getAttachmentsImported());
+		response.setEntriesSkipped(job.getEntriesSkipped());
+		response.setError(job.getError());
+		response.setCreatedAt(job.getCreatedAt());
+		response.setUpdatedAt(job.getUpdatedAt());
+		response.setCompletedAt(job.getCompletedAt());
+		return response;
+	}
+
+	// A Markdown entry read from the archive, waiting for the next batch insert
+	public static final class NoteFile {
+
+		private final String path;
+		private final NoteMarkdown.Parsed note;
+
+		public NoteFile(String path, NoteMarkdown.Parsed note) {
+			this.path = path;
+			this.note = note;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public NoteMarkdown.Parsed getNote() {
+			return note;
+		}
+
+	}
+
+}
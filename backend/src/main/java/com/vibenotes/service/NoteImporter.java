@@ -0,0 +1,243 @@
+package com.vibenotes.service;
+
+import com.vibenotes.dto.ImportJobResponse;
+import com.vibenotes.exception.FileStorageException;
+import com.vibenotes.exception.PayloadTooLargeException;
+import com.vibenotes.model.ImportJob;
+import com.vibenotes.model.ImportJobEntry;
+import com.vibenotes.security.AuthenticatedUser;
+import com.vibenotes.util.ArchiveReader;
+import com.vibenotes.util.NoteMarkdown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Imports an archive while it is received. Entries are recorded with the job as they are
+// saved, so uploading the same archive again resumes without duplicates.
+@Component
+public class NoteImporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(NoteImporter.class);
+
+	private static final int MAX_PATH_LENGTH = 1024;
+
+	private static final Map<String, String> ATTACHMENT_TYPES = Map.of(
+			"pdf", "application/pdf",
+			"doc", "application/msword",
+			"docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+			"txt", "text/plain",
+			"csv", "text/csv",
+			"jpg", "image/jpeg",
+			"jpeg", "image/jpeg",
+			"png", "image/png",
+			"gif", "image/gif",
+			"webp", "image/webp");
+
+	@Autowired
+	private NoteImportService importService;
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	@Value("${notes.import.batch-size:50}")
+	private int batchSize;
+
+	@Value("${notes.import.max-note-size:1MB}")
+	private DataSize maxNoteSize;
+
+	@Value("${notes.import.stale-after-ms:300000}")
+	private long staleAfterMs;
+
+	public ImportJobResponse run(AuthenticatedUser owner, Long jobId, InputStream archiveStream) {
+		ImportJob job = importService.claim(owner, jobId, LocalDateTime.now().minusNanos(staleAfterMs * 1_000_000));
+		Run run = new Run(owner, job);
+		try {
+			run.importArchive(ArchiveReader.open(archiveStream));
+			importService.finish(jobId, run.progress.bytesRead, null);
+		} catch (IllegalArgumentException ex) {
+			importService.finish(jobId, run.progress.bytesRead, ex.getMessage());
+			throw ex;
+		} catch (IOException | RuntimeException ex) {
+			// Usually a truncated upload or a corrupt archive; the job is resumed by uploading again
+			logger.warn("Import job {} stopped: {}", jobId, ex.toString());
+			run.flushQuietly();
+			importService.finish(jobId, run.progress.bytesRead,
+					"Import stopped: " + (ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName()));
+		}
+		return importService.getJob(owner, jobId);
+	}
+
+	private final class Run {
+
+		private final AuthenticatedUser owner;
+		private final Long jobId;
+		private final ImportProgress progress;
+		private final Map<String, ImportJobEntry> entries;
+		private final List<NoteImportService.NoteFile> pendingNotes = new ArrayList<>();
+		private final List<ImportJobEntry> pendingSkips = new ArrayList<>();
+
+		Run(AuthenticatedUser owner, ImportJob job) {
+			this.owner = owner;
+			this.jobId = job.getId();
+			this.progress = new ImportProgress(job);
+			this.entries = importService.findEntries(jobId);
+		}
+
+		void importArchive(ArchiveReader archive) throws IOException {
+			String name;
+			while ((name = archive.nextEntry()) != null) {
+				String path = normalize(name);
+				if (path == null) {
+					continue;
+				}
+				ImportJobEntry done = entries.get(path);
+				if (done != null && done.getStatus() != ImportJobEntry.Status.PENDING) {
+					continue;
+				}
+				progress.entriesProcessed++;
+				progress.bytesRead = archive.getBytesRead();
+				if (path.toLowerCase(Locale.ROOT).endsWith(NoteMarkdown.EXTENSION)) {
+					readNote(path, done, archive.entryStream());
+				} else {
+					importAttachment(path, archive.entryStream());
+				}
+				if (pendingNotes.size() + pendingSkips.size() >= batchSize) {
+					flush();
+				}
+			}
+			progress.bytesRead = archive.getBytesRead();
+			flush();
+		}
+
+		private void readNote(String path, ImportJobEntry placeholder, InputStream content) throws IOException {
+			long limit = maxNoteSize.toBytes();
+			byte[] bytes = content.readNBytes((int) Math.min(limit + 1, Integer.MAX_VALUE - 8));
+			if (bytes.length > limit) {
+				skip(path, "Note exceeds the maximum size of " + limit + " bytes");
+				return;
+			}
+			NoteMarkdown.Parsed note = NoteMarkdown.parse(new String(bytes, StandardCharsets.UTF_8), titleOf(path));
+			if (note.getContent().isBlank()) {
+				skip(path, "Note is empty");
+				return;
+			}
+			pendingNotes.add(new NoteImportService.NoteFile(path, note));
+			progress.notesImported++;
+			// Marked done right away so a repeated path in the same archive is not imported twice
+			entries.put(path, new ImportJobEntry(jobId, path, ImportJobEntry.Status.IMPORTED,
+					placeholder != null ? placeholder.getNoteId() : null, null, null));
+		}
+
+		private void importAttachment(String path, InputStream content) {
+			int slash = path.lastIndexOf('/');
+			if (slash < 0) {
+				skip(path, "Attachment is not inside a note directory");
+				return;
+			}
+			String contentType = ATTACHMENT_TYPES.get(extensionOf(path));
+			if (contentType == null) {
+				skip(path, "File type not allowed");
+				return;
+			}
+			String notePath = path.substring(0, slash) + NoteMarkdown.EXTENSION;
+			// The note has to exist before anything can be attached to it
+			flush();
+
+			StoredFile file;
+			try {
+				file = fileStorageService.stageAttachment(content, path.substring(slash + 1), contentType);
+			} catch (FileStorageException | PayloadTooLargeException ex) {
+				if (ex.getCause() instanceof IOException) {
+					// The archive itself broke off; the entry is retried when the job resumes
+					throw ex;
+				}
+				skip(path, ex.getMessage());
+				return;
+			}
+			try {
+				ImportJobEntry noteEntry = entries.get(notePath);
+				progress.attachmentsImported++;
+				Long noteId = importService.importAttachment(owner, jobId, path, notePath,
+						noteEntry != null ? noteEntry.getNoteId() : null, titleOf(notePath), file, progress);
+				if (noteEntry == null || !noteId.equals(noteEntry.getNoteId())) {
+					entries.put(notePath, new ImportJobEntry(jobId, notePath,
+							noteEntry != null ? noteEntry.getStatus() : ImportJobEntry.Status.PENDING, noteId, null, null));
+				}
+				entries.put(path, new ImportJobEntry(jobId, path, ImportJobEntry.Status.IMPORTED, noteId, null, null));
+			} finally {
+				fileStorageService.discardStaged(file);
+			}
+		}
+
+		private void skip(String path, String reason) {
+			pendingSkips.add(new ImportJobEntry(jobId, path, ImportJobEntry.Status.SKIPPED, null, null, reason));
+			progress.entriesSkipped++;
+			entries.put(path, pendingSkips.get(pendingSkips.size() - 1));
+		}
+
+		void flush() {
+			if (pendingNotes.isEmpty() && pendingSkips.isEmpty()) {
+				return;
+			}
+			Map<String, Long> noteIds = importService.saveNotes(owner, jobId, pendingNotes, pendingSkips, progress);
+			noteIds.forEach((path, noteId) -> entries.put(path,
+					new ImportJobEntry(jobId, path, ImportJobEntry.Status.IMPORTED, noteId, null, null)));
+			pendingNotes.clear();
+			pendingSkips.clear();
+		}
+
+		// Saves what was read before the failure, so resuming does not redo it
+		void flushQuietly() {
+			try {
+				flush();
+			} catch (RuntimeException ex) {
+				logger.warn("Could not save the last notes of import job {}", jobId, ex);
+			}
+		}
+
+	}
+
+	// Archive paths with "/" separators; null for entries that are not content (hidden files,
+	// macOS metadata) or that try to leave the archive root
+	private static String normalize(String name) {
+		String path = name.replace('\\', '/');
+		while (path.startsWith("./") || path.startsWith("/")) {
+			path = path.substring(path.startsWith("/") ? 1 : 2);
+		}
+		if (path.isEmpty() || path.length() > MAX_PATH_LENGTH) {
+			return null;
+		}
+		for (String segment : path.split("/")) {
+			if (segment.isEmpty() || segment.startsWith(".") || segment.equals("__MACOSX")) {
+				return null;
+			}
+		}
+		return path;
+	}
+
+	private static String titleOf(String path) {
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		if (name.toLowerCase(Locale.ROOT).endsWith(NoteMarkdown.EXTENSION)) {
+			name = name.substring(0, name.length() - NoteMarkdown.EXTENSION.length());
+		}
+		return name.length() > 200 ? name.substring(0, 200) : name;
+	}
+
+	private static String extensionOf(String path) {
+		int dot = path.lastIndexOf('.');
+		return dot > path.lastIndexOf('/') ? path.substring(dot + 1).toLowerCase(Locale.ROOT) : "";
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.vibenotes.service;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// What PATCH /api/notes/{id} saves over sending the whole note: the request bytes received
+// against the UTF-8 size of the content a full PUT would have carried.
+@Component
+@ManagedResource(objectName = "com.vibenotes:type=Metrics,name=NotePatchMetrics")
+public class NotePatchMetrics {
+
+	private final LongAdder patches = new LongAdder();
+	private final LongAdder conflicts = new LongAdder();
+	private final LongAdder requestBytes = new LongAdder();
+	private final LongAdder contentBytes = new LongAdder();
+
+	public void recordPatch(long requestSize, long contentSize) {
+		patches.increment();
+		requestBytes.add(requestSize);
+		contentBytes.add(contentSize);
+	}
+
+	public void recordConflict() {
+		conflicts.increment();
+	}
+
+	@ManagedAttribute
+	public long getPatchCount() {
+		return patches.sum();
+	}
+
+	@ManagedAttribute
+	public long getConflictCount() {
+		return conflicts.sum();
+	}
+
+	@ManagedAttribute
+	public long getRequestBytes() {
+		return requestBytes.sum();
+	}
+
+	@ManagedAttribute
+	public long getFullContentBytes() {
+		return contentBytes.sum();
+	}
+
+	@ManagedAttribute
+	public long getBytesSaved() {
+		return contentBytes.sum() - requestBytes.sum();
+	}
+
+}
@@ -0,0 +1,240 @@
+package com.vibenotes.service;
+
+import com.vibenotes.dto.NoteRevisionResponse;
+import com.vibenotes.dto.TextEdit;
+import com.vibenotes.exception.ResourceNotFoundException;
+import com.vibenotes.model.Note;
+import com.vibenotes.model.NoteRevision;
+import com.vibenotes.repository.NoteRevisionRepository;
+import com.vibenotes.util.TextDiff;
+import com.vibenotes.util.TextEdits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// Reverse deltas, with every snapshot-interval-th revision stored whole. Callers hold the
+// owner's change lock (NoteRepository.lockChanges), which keeps revision numbers in sequence.
+@Service
+public class NoteRevisionService {
+
+	private static final int FORMAT_VERSION = 1;
+
+	@Autowired
+	private NoteRevisionRepository revisionRepository;
+
+	@Value("${notes.revisions.snapshot-interval:20}")
+	private int snapshotInterval;
+
+	// Records previous as the newest revision of note, whose fields already
+	// hold the new version. Nothing is recorded when neither title nor content changed.
+	public void recordRevision(Note note, Version previous) {
+		if (Objects.equals(previous.title, note.getTitle()) && Objects.equals(previous.content, note.getContent())) {
+			return;
+		}
+		Integer latest = revisionRepository.findLatestNumber(note.getId());
+		saveRevision(note, previous, latest != null ? latest + 1 : 1);
+	}
+
+	// As recordRevision(Note, Version), numbering from latestNumbers (see
+	// findLatestNumbers) instead of a query per note, and advancing it.
+	public void recordRevision(Note note, Version previous, Map<Long, Integer> latestNumbers) {
+		if (Objects.equals(previous.title, note.getTitle()) && Objects.equals(previous.content, note.getContent())) {
+			return;
+		}
+		int number = latestNumbers.merge(note.getId(), 1, Integer::sum);
+		saveRevision(note, previous, number);
+	}
+
+	// Notes without revisions are left out
+	public Map<Long, Integer> findLatestNumbers(Collection<Long> noteIds) {
+		Map<Long, Integer> latestNumbers = new HashMap<>();
+		if (!noteIds.isEmpty()) {
+			revisionRepository.findLatestNumbers(noteIds)
+					.forEach(latest -> latestNumbers.put(latest.getNoteId(), latest.getNumber()));
+		}
+		return latestNumbers;
+	}
+
+	private void saveRevision(Note note, Version previous, int number) {
+
+		NoteRevision revision = new NoteRevision();
+		revision.setNoteId(note.getId());
+		revision.setNumber(number);
+		revision.setTitle(previous.title);
+		revision.setContentLength(previous.content.length());
+		revision.setSavedAt(previous.savedAt);
+		if (number % Math.max(1, snapshotInterval) == 0) {
+			revision.setKind(NoteRevision.Kind.SNAPSHOT);
+			revision.setData(encodeSnapshot(previous.content));
+		} else {
+			byte[] delta = encodeDelta(TextDiff.diff(note.getContent(), previous.content));
+			// A rewrite compresses no better as edits than as text; deflating the whole text is
+			// only worth trying when the delta is not clearly small (text deflates up to ~10:1)
+			byte[] snapshot = delta.length * 16L > TextEdits.utf8Length(previous.content)
+					? encodeSnapshot(previous.content) : null;
+			if (snapshot != null && snapshot.length <= delta.length) {
+				revision.setKind(NoteRevision.Kind.SNAPSHOT);
+				revision.setData(snapshot);
+			} else {
+				revision.setKind(NoteRevision.Kind.DELTA);
+				revision.setData(delta);
+			}
+		}
+		revisionRepository.save(revision);
+	}
+
+	public List<NoteRevisionResponse> findRevisions(Long noteId, int before, int limit) {
+		return revisionRepository.findPageByNoteId(noteId, before, Limit.of(limit));
+	}
+
+	// Rebuilds revision number of note: from the nearest newer snapshot, or from
+	// the current content when there is none, by applying the deltas in between newest first.
+	public NoteRevisionResponse getRevision(Note note, int number) {
+		List<NoteRevision> chain = new ArrayList<>();
+		int from = number;
+		int pageSize = Math.max(1, snapshotInterval);
+		boolean snapshotFound = false;
+		while (!snapshotFound) {
+			List<NoteRevision> page = revisionRepository.findByNoteIdAndNumberGreaterThanEqualOrderByNumberAsc(
+					note.getId(), from, Limit.of(pageSize));
+			for (NoteRevision revision : page) {
+				chain.add(revision);
+				if (revision.getKind() == NoteRevision.Kind.SNAPSHOT) {
+					snapshotFound = true;
+					break;
+				}
+			}
+			if (page.size() < pageSize) {
+				break;
+			}
+			from = page.get(page.size() - 1).getNumber() + 1;
+		}
+		if (chain.isEmpty() || chain.get(0).getNumber() != number) {
+			throw new ResourceNotFoundException("Revision not found");
+		}
+
+		int next = chain.size() - 1;
+		String content;
+		if (snapshotFound) {
+			content = decodeSnapshot(chain.get(next--).getData());
+		} else {
+			content = note.getContent();
+		}
+		for (; next >= 0; next--) {
+			content = TextEdits.apply(content, decodeDelta(chain.get(next).getData()));
+		}
+
+		NoteRevision revision = chain.get(0);
+		NoteRevisionResponse response = new NoteRevisionResponse(revision.getNumber(), revision.getKind(),
+				revision.getTitle(), revision.getContentLength(), revision.getStoredSize(), revision.getSavedAt());
+		response.setContent(content);
+		return response;
+	}
+
+	public void deleteRevisions(Collection<Long> noteIds) {
+		revisionRepository.deleteByNoteIdIn(noteIds);
+	}
+
+	private static byte[] encodeSnapshot(String content) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} finally {
+			deflater.end();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static String decodeSnapshot(byte[] data) {
+		try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	// Format version, edit count, then offset, delete and UTF-8 insert per edit
+	private static byte[] encodeDelta(List<TextEdit> edits) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+			out.writeByte(FORMAT_VERSION);
+			out.writeInt(edits.size());
+			for (TextEdit edit : edits) {
+				byte[] insert = edit.getInsert().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(edit.getOffset());
+				out.writeInt(edit.getDelete());
+				out.writeInt(insert.length);
+				out.write(insert);
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		} finally {
+			deflater.end();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static List<TextEdit> decodeDelta(byte[] data) {
+		try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+			int version = in.readUnsignedByte();
+			if (version != FORMAT_VERSION) {
+				throw new IllegalStateException("Unknown revision format " + version);
+			}
+			int count = in.readInt();
+			List<TextEdit> edits = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				int offset = in.readInt();
+				int delete = in.readInt();
+				byte[] insert = new byte[in.readInt()];
+				in.readFully(insert);
+				edits.add(new TextEdit(offset, delete, new String(insert, StandardCharsets.UTF_8)));
+			}
+			return edits;
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	// The fields of a note a revision keeps, taken before the note is changed
+	public static final class Version {
+
+		private final String title;
+		private final String content;
+		private final LocalDateTime savedAt;
+
+		private Version(String title, String content, LocalDateTime savedAt) {
+			this.title = title;
+			this.content = content;
+			this.savedAt = savedAt;
+		}
+
+		public static Version of(Note note) {
+			return new Version(note.getTitle(), note.getContent(), note.getUpdatedAt());
+		}
+
+	}
+
+}
@@ -1,27 +1,91 @@
 package com.vibenotes.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.vibenotes.cache.PublicNoteListCache;
 import com.vibenotes.dto.AttachmentResponse;
 import com.vibenotes.dto.CreateNoteRequest;
+import com.vibenotes.dto.CursorPage;
+import com.vibenotes.dto.NoteBatchOperation;
+import com.vibenotes.dto.NoteBatchResponse;
+import com.vibenotes.dto.NoteBatchResult;
+import com.vibenotes.dto.NoteChangesResponse;
 import com.vibenotes.dto.NoteResponse;
+import com.vibenotes.dto.NoteRevisionResponse;
+import com.vibenotes.dto.NoteSearchResult;
+import com.vibenotes.dto.NoteSummaryResponse;
+import com.vibenotes.dto.PatchNoteRequest;
+import com.vibenotes.dto.TextEdit;
+import com.vibenotes.dto.TombstoneResponse;
 import com.vibenotes.dto.UpdateNoteRequest;
 import com.vibenotes.model.Note;
 import com.vibenotes.model.NoteAttachment;
-import com.vibenotes.model.User;
+import com.vibenotes.model.NoteTombstone;
+import com.vibenotes.events.NoteEvent;
+import com.vibenotes.events.NoteEventBroadcaster;
+import com.vibenotes.exception.ConflictException;
 import com.vibenotes.exception.ResourceNotFoundException;
+import com.vibenotes.exception.ResyncRequiredException;
 import com.vibenotes.exception.UnauthorizedException;
 import com.vibenotes.repository.NoteAttachmentRepository;
+import com.vibenotes.repository.NoteListVersion;
 import com.vibenotes.repository.NoteRepository;
+import com.vibenotes.repository.NoteSearchRow;
+import com.vibenotes.repository.NoteTombstoneRepository;
+import com.vibenotes.repository.NoteVersion;
 import com.vibenotes.repository.UserRepository;
+import com.vibenotes.security.AuthenticatedUser;
+import com.vibenotes.search.NoteSearchIndex;
+import com.vibenotes.search.SearchHit;
+import com.vibenotes.search.SearchQuery;
+import com.vibenotes.search.Snippets;
+import com.vibenotes.util.ETagUtil;
+import com.vibenotes.util.NoteCursor;
+import com.vibenotes.util.SearchCursor;
+import com.vibenotes.util.TextEdits;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class NoteService {
 
+	// One character past what list views display, so clients can tell the preview was cut short
+	private static final int PREVIEW_LENGTH = 151;
+
+	private static final int MAX_SEARCH_QUERY_LENGTH = 200;
+
+	private static final String BATCH_CREATE = "create";
+	private static final String BATCH_UPDATE = "update";
+	private static final String BATCH_DELETE = "delete";
+
 	@Autowired
 	private NoteRepository noteRepository;
 
@@ -31,36 +95,555 @@ public class NoteService {
 	@Autowired
 	private NoteAttachmentRepository attachmentRepository;
 
-	public NoteResponse createNote(String username, CreateNoteRequest request) {
-		User user = userRepository.findByUsername(username)
-				.orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+	@Autowired
+	private NoteTombstoneRepository tombstoneRepository;
+
+	@Autowired
+	private AttachmentService attachmentService;
+
+	@Autowired
+	private NoteSearchIndex searchIndex;
+
+	@Autowired
+	private PublicNoteListCache publicListCache;
+
+	@Autowired
+	private NoteEventBroadcaster eventBroadcaster;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private NotePatchMetrics patchMetrics;
+
+	@Autowired
+	private NoteRevisionService revisionService;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Value("${notes.page.default-size:50}")
+	private int defaultPageSize;
+
+	@Value("${notes.page.max-size:200}")
+	private int maxPageSize;
 
+	@Value("${notes.batch.max-operations:1000}")
+	private int maxBatchOperations;
+
+	@Transactional
+	public NoteResponse createNote(AuthenticatedUser owner, CreateNoteRequest request) {
+		noteRepository.lockChanges(owner.getId());
 		Note note = new Note();
 		note.setTitle(request.getTitle());
 		note.setContent(request.getContent());
 		note.setIsPublic(request.getIsPublic() != null ? request.getIsPublic() : false);
-		note.setUser(user);
+		// The owner is only needed as a foreign key, so no user row is read
+		note.setUser(userRepository.getReferenceById(owner.getId()));
 
 		Note savedNote = noteRepository.save(note);
-		return mapToNoteResponse(savedNote);
+		searchIndex.indexAfterCommit(savedNote);
+		if (savedNote.getIsPublic()) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		eventBroadcaster.publishAfterCommit(owner.getId(), NoteEvent.note(NoteEvent.NOTE_CREATED, savedNote.getId()));
+		return mapToNoteResponse(savedNote, Collections.emptyList(), owner.getName());
 	}
 
-	public List<NoteResponse> getUserNotes(String username) {
-		return noteRepository.findByUserUsernameOrderByUpdatedAtDesc(username).stream()
-				.map(this::mapToNoteResponse)
-				.collect(Collectors.toList());
+	public CursorPage<NoteResponse> getUserNotes(AuthenticatedUser owner, String cursor, Integer limit) {
+		int pageSize = resolvePageSize(limit);
+		// Fetch one extra row to learn whether another page exists
+		Limit fetchLimit = Limit.of(pageSize + 1);
+
+		List<Note> notes;
+		if (StringUtils.hasText(cursor)) {
+			NoteCursor after = NoteCursor.decode(cursor);
+			notes = noteRepository.findPageByUserIdAfter(owner.getId(), after.getUpdatedAt(), after.getId(), fetchLimit);
+		} else {
+			notes = noteRepository.findByUserIdOrderByUpdatedAtDescIdDesc(owner.getId(), fetchLimit);
+		}
+		return toPage(notes, pageSize, owner.getName());
+	}
+
+	// Notes are detached once written so memory does not grow with the notebook; the connection
+	// stays checked out until the last one is written
+	@Transactional(readOnly = true)
+	public void writeUserNotes(AuthenticatedUser owner, OutputStream out) throws IOException {
+		ObjectWriter writer = objectMapper.writerFor(NoteResponse.class)
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+		List<Note> chunk = new ArrayList<>(NoteRepository.STREAM_FETCH_SIZE);
+		try (Stream<Note> notes = noteRepository.streamByUserId(owner.getId());
+				JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			generator.setRootValueSeparator(null);
+			Iterator<Note> iterator = notes.iterator();
+			while (iterator.hasNext()) {
+				chunk.add(iterator.next());
+				if (chunk.size() < NoteRepository.STREAM_FETCH_SIZE && iterator.hasNext()) {
+					continue;
+				}
+				for (NoteResponse note : mapToNoteResponses(chunk, owner.getName())) {
+					writer.writeValue(generator, note);
+					generator.writeRaw('\n');
+				}
+				generator.flush();
+				chunk.clear();
+				entityManager.clear();
+			}
+		}
+	}
+
+	public NoteResponse getNoteById(AuthenticatedUser owner, Long id) {
+		Note note = noteRepository.findByIdAndUserId(id, owner.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+		return mapToNoteResponse(note, owner.getName());
+	}
+
+	public String getNoteETag(AuthenticatedUser owner, Long id) {
+		NoteVersion version = noteRepository.findVersionByIdAndUserId(id, owner.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+		return ETagUtil.fromParts("note", version.getId(), version.getUpdatedAt(),
+				version.getAttachmentCount(), version.getLastAttachmentId());
+	}
+
+	// Page parameters are part of the tag so each page and view revalidates independently
+	public String getUserNotesETag(AuthenticatedUser owner, String view, String cursor, Integer limit) {
+		NoteListVersion version = noteRepository.findListVersionByUserId(owner.getId());
+		return ETagUtil.fromParts("notes", owner.getId(), view, cursor, resolvePageSize(limit),
+				version.getNoteCount(), version.getLastUpdatedAt(),
+				version.getAttachmentCount(), version.getLastAttachmentId());
+	}
+
+	public String getPublicNotesETag(String username, String view, String cursor, Integer limit) {
+		NoteListVersion version = noteRepository.findPublicListVersionByUsername(username);
+		return ETagUtil.fromParts("public-notes", username, view, cursor, resolvePageSize(limit),
+				version.getNoteCount(), version.getLastUpdatedAt(),
+				version.getAttachmentCount(), version.getLastAttachmentId());
+	}
+
+	@Transactional
+	public NoteResponse updateNote(AuthenticatedUser owner, Long id, UpdateNoteRequest request) {
+		noteRepository.lockChanges(owner.getId());
+		Note note = noteRepository.findByIdAndUserId(id, owner.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+		boolean wasPublic = note.getIsPublic();
+		NoteRevisionService.Version previous = NoteRevisionService.Version.of(note);
+		applyUpdate(note, request);
+		revisionService.recordRevision(note, previous);
+
+		Note updatedNote = noteRepository.save(note);
+		searchIndex.indexAfterCommit(updatedNote);
+		// Flipping visibility either way changes the public listing
+		if (wasPublic || updatedNote.getIsPublic()) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		eventBroadcaster.publishAfterCommit(owner.getId(), NoteEvent.note(NoteEvent.NOTE_UPDATED, id));
+		return mapToNoteResponse(updatedNote, owner.getName());
+	}
+
+	// requestSize only feeds the metrics (-1 when unknown)
+	@Transactional
+	public PatchedNote patchNote(AuthenticatedUser owner, Long id, String ifMatch, PatchNoteRequest request,
+			long requestSize) {
+		if (!StringUtils.hasText(ifMatch)) {
+			throw new IllegalArgumentException("If-Match with the ETag of the base version is required");
+		}
+		// Edit offsets only make sense against a known version
+		if (ETagUtil.isWildcard(ifMatch)) {
+			throw new IllegalArgumentException("If-Match must name the ETag of the base version, not *");
+		}
+		noteRepository.lockChanges(owner.getId());
+		Note note = noteRepository.findByIdAndUserId(id, owner.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+		if (!ETagUtil.matches(ifMatch, getNoteETag(owner, id))) {
+			patchMetrics.recordConflict();
+			throw new ConflictException("The note has changed since the base version");
+		}
+		boolean wasPublic = note.getIsPublic();
+		NoteRevisionService.Version previous = NoteRevisionService.Version.of(note);
+
+		List<TextEdit> edits = request.getEdits() != null ? request.getEdits() : Collections.emptyList();
+		long editBytes = 0;
+		if (!edits.isEmpty()) {
+			String content = TextEdits.apply(note.getContent(), edits);
+			if (!StringUtils.hasText(content)) {
+				throw new IllegalArgumentException("Content must not be empty");
+			}
+			note.setContent(content);
+			for (TextEdit edit : edits) {
+				editBytes += edit.getInsert() != null ? TextEdits.utf8Length(edit.getInsert()) : 0;
+			}
+		}
+		UpdateNoteRequest fields = new UpdateNoteRequest();
+		fields.setTitle(request.getTitle());
+		fields.setIsPublic(request.getIsPublic());
+		applyUpdate(note, fields);
+		revisionService.recordRevision(note, previous);
+
+		// Flushed so the tag is read from the row as committed, not from a later version
+		Note updatedNote = noteRepository.saveAndFlush(note);
+		String etag = getNoteETag(owner, id);
+		searchIndex.indexAfterCommit(updatedNote);
+		if (wasPublic || updatedNote.getIsPublic()) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		eventBroadcaster.publishAfterCommit(owner.getId(), NoteEvent.note(NoteEvent.NOTE_UPDATED, id));
+		patchMetrics.recordPatch(requestSize >= 0 ? requestSize : editBytes,
+				TextEdits.utf8Length(updatedNote.getContent()));
+		return new PatchedNote(mapToNoteResponse(updatedNote, owner.getName()), etag);
+	}
+
+	@Transactional
+	public void deleteNote(AuthenticatedUser owner, Long id) {
+		noteRepository.lockChanges(owner.getId());
+		Note note = noteRepository.findByIdAndUserId(id, owner.getId())
+				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+		attachmentService.deleteAttachments(id);
+		revisionService.deleteRevisions(List.of(id));
+		noteRepository.delete(note);
+		searchIndex.removeAfterCommit(id);
+		if (note.getIsPublic()) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		eventBroadcaster.publishAfterCommit(owner.getId(), NoteEvent.note(NoteEvent.NOTE_DELETED, id));
+	}
+
+	public CursorPage<NoteRevisionResponse> getNoteRevisions(AuthenticatedUser owner, Long id, String cursor, Integer limit) {
+		int pageSize = resolvePageSize(limit);
+		if (!noteRepository.existsByIdAndUserId(id, owner.getId())) {
+			throw new ResourceNotFoundException("Note not found");
+		}
+		int before = Integer.MAX_VALUE;
+		if (StringUtils.hasText(cursor)) {
+			try {
+				before = Integer.parseInt(cursor);
+			} catch (NumberFormatException ex) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+		}
+		List<NoteRevisionResponse> revisions = revisionService.findRevisions(id, before, pageSize + 1);
+		String nextCursor = null;
+		if (revisions.size() > pageSize) {
+			revisions = revisions.subList(0, pageSize);
+			nextCursor = String.valueOf(revisions.get(pageSize - 1).getNumber());
+		}
+		return new CursorPage<>(revisions, nextCursor);
 	}
 
-	public NoteResponse getNoteById(String username, Long id) {
-		Note note = noteRepository.findByIdAndUserUsername(id, username)
+	@Transactional(readOnly = true)
+	public NoteRevisionResponse getNoteRevision(AuthenticatedUser owner, Long id, int number) {
+		Note note = noteRepository.findByIdAndUserId(id, owner.getId())
 				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
-		return mapToNoteResponse(note);
+		return revisionService.getRevision(note, number);
 	}
 
-	public NoteResponse updateNote(String username, Long id, UpdateNoteRequest request) {
-		Note note = noteRepository.findByIdAndUserUsername(id, username)
+	@Transactional
+	public NoteResponse restoreNoteRevision(AuthenticatedUser owner, Long id, int number) {
+		noteRepository.lockChanges(owner.getId());
+		Note note = noteRepository.findByIdAndUserId(id, owner.getId())
 				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
+		NoteRevisionResponse revision = revisionService.getRevision(note, number);
+		NoteRevisionService.Version previous = NoteRevisionService.Version.of(note);
+		note.setTitle(revision.getTitle());
+		note.setContent(revision.getContent());
+		revisionService.recordRevision(note, previous);
+
+		Note updatedNote = noteRepository.save(note);
+		searchIndex.indexAfterCommit(updatedNote);
+		if (updatedNote.getIsPublic()) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		eventBroadcaster.publishAfterCommit(owner.getId(), NoteEvent.note(NoteEvent.NOTE_UPDATED, id));
+		return mapToNoteResponse(updatedNote, owner.getName());
+	}
+
+	// An invalid item fails on its own without undoing the others
+	@Transactional
+	public NoteBatchResponse applyBatch(AuthenticatedUser owner, List<NoteBatchOperation> operations) {
+		if (operations == null || operations.isEmpty()) {
+			throw new IllegalArgumentException("At least one operation is required");
+		}
+		if (operations.size() > maxBatchOperations) {
+			throw new IllegalArgumentException("At most " + maxBatchOperations + " operations are allowed per batch");
+		}
+		noteRepository.lockChanges(owner.getId());
+
+		Set<Long> ids = operations.stream()
+				.filter(Objects::nonNull)
+				.map(NoteBatchOperation::getId)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toSet());
+		Map<Long, Note> notesById = ids.isEmpty() ? new HashMap<>()
+				: noteRepository.findByUserIdAndIdIn(owner.getId(), ids).stream()
+						.collect(Collectors.toMap(Note::getId, Function.identity()));
+		Map<Long, Integer> revisionNumbers = revisionService.findLatestNumbers(notesById.keySet());
 
+		List<NoteBatchResult> results = new ArrayList<>(operations.size());
+		List<Note> deleted = new ArrayList<>();
+		List<NoteEvent> events = new ArrayList<>();
+		boolean publicChanged = false;
+		int failed = 0;
+		for (int i = 0; i < operations.size(); i++) {
+			NoteBatchOperation operation = operations.get(i);
+			String op = operation != null ? operation.getOp() : null;
+			NoteBatchResult result;
+			if (BATCH_CREATE.equals(op)) {
+				CreateNoteRequest request = new CreateNoteRequest();
+				request.setTitle(operation.getTitle());
+				request.setContent(operation.getContent());
+				request.setIsPublic(operation.getIsPublic() != null ? operation.getIsPublic() : false);
+				String error = validate(request);
+				if (error != null) {
+					result = new NoteBatchResult(i, op, 400, null, error);
+				} else {
+					Note note = new Note();
+					note.setTitle(request.getTitle());
+					note.setContent(request.getContent());
+					note.setIsPublic(request.getIsPublic());
+					note.setUser(userRepository.getReferenceById(owner.getId()));
+					noteRepository.save(note);
+					searchIndex.indexAfterCommit(note);
+					publicChanged |= note.getIsPublic();
+					events.add(NoteEvent.note(NoteEvent.NOTE_CREATED, note.getId()));
+					result = new NoteBatchResult(i, op, 201, note.getId(), null);
+				}
+			} else if (BATCH_UPDATE.equals(op) || BATCH_DELETE.equals(op)) {
+				Note note = operation.getId() != null ? notesById.get(operation.getId()) : null;
+				if (operation.getId() == null) {
+					result = new NoteBatchResult(i, op, 400, null, "id is required");
+				} else if (note == null) {
+					result = new NoteBatchResult(i, op, 404, operation.getId(), "Note not found");
+				} else if (BATCH_DELETE.equals(op)) {
+					// Later items in the batch no longer see it
+					notesById.remove(note.getId());
+					deleted.add(note);
+					searchIndex.removeAfterCommit(note.getId());
+					publicChanged |= note.getIsPublic();
+					events.add(NoteEvent.note(NoteEvent.NOTE_DELETED, note.getId()));
+					result = new NoteBatchResult(i, op, 204, note.getId(), null);
+				} else {
+					UpdateNoteRequest request = new UpdateNoteRequest();
+					request.setTitle(operation.getTitle());
+					request.setContent(operation.getContent());
+					request.setIsPublic(operation.getIsPublic());
+					String error = validate(request);
+					if (error != null) {
+						result = new NoteBatchResult(i, op, 400, note.getId(), error);
+					} else {
+						boolean wasPublic = note.getIsPublic();
+						NoteRevisionService.Version previous = NoteRevisionService.Version.of(note);
+						// Written by dirty checking at flush
+						applyUpdate(note, request);
+						revisionService.recordRevision(note, previous, revisionNumbers);
+						searchIndex.indexAfterCommit(note);
+						publicChanged |= wasPublic || note.getIsPublic();
+						events.add(NoteEvent.note(NoteEvent.NOTE_UPDATED, note.getId()));
+						result = new NoteBatchResult(i, op, 200, note.getId(), null);
+					}
+				}
+			} else {
+				result = new NoteBatchResult(i, op, 400, null, "op must be one of create, update, delete");
+			}
+			if (result.getStatus() >= 400) {
+				failed++;
+			}
+			results.add(result);
+		}
+
+		if (!deleted.isEmpty()) {
+			List<Long> deletedIds = deleted.stream().map(Note::getId).collect(Collectors.toList());
+			attachmentService.deleteAttachments(deletedIds);
+			revisionService.deleteRevisions(deletedIds);
+			noteRepository.deleteAll(deleted);
+		}
+		if (publicChanged) {
+			invalidatePublicListAfterCommit(owner.getName());
+		}
+		events.forEach(event -> eventBroadcaster.publishAfterCommit(owner.getId(), event));
+		return new NoteBatchResponse(results, results.size() - failed, failed);
+	}
+
+	// Tombstones are only kept back to the pruned horizon. A full sync paging through notes older
+	// than it gets negated cursors, and a negative since continues it without needing deletions.
+	@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+	public NoteChangesResponse getChanges(AuthenticatedUser owner, Long since, Integer limit) {
+		long requested = since != null ? since : 0;
+		if (requested == Long.MIN_VALUE) {
+			throw new IllegalArgumentException("Invalid since");
+		}
+		boolean fullSync = requested <= 0;
+		long after = Math.abs(requested);
+		int pageSize = resolvePageSize(limit);
+		Limit fetchLimit = Limit.of(pageSize + 1);
+		List<Note> notes = noteRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+				owner.getId(), after, fetchLimit);
+		List<NoteTombstone> tombstones = tombstoneRepository.findByUserIdAndChangeSeqGreaterThanOrderByChangeSeqAsc(
+				owner.getId(), after, fetchLimit);
+		// Read in the same snapshot as the tombstones, so a concurrent prune is seen by both or neither
+		long prunedThrough = tombstoneRepository.findPrunedThrough();
+		if (!fullSync && after < prunedThrough) {
+			throw new ResyncRequiredException("Deletions up to position " + prunedThrough
+					+ " are no longer kept; sync again from the start, without since");
+		}
+
+		List<Note> changed = new ArrayList<>();
+		List<TombstoneResponse> deleted = new ArrayList<>();
+		int n = 0;
+		int t = 0;
+		long cursor = after;
+		while (n + t < pageSize && (n < notes.size() || t < tombstones.size())) {
+			if (t == tombstones.size()
+					|| (n < notes.size() && notes.get(n).getChangeSeq() < tombstones.get(t).getChangeSeq())) {
+				Note note = notes.get(n++);
+				changed.add(note);
+				cursor = note.getChangeSeq();
+			} else {
+				NoteTombstone tombstone = tombstones.get(t++);
+				deleted.add(new TombstoneResponse(
+						tombstone.getEntityType().name().toLowerCase(),
+						tombstone.getEntityId(),
+						tombstone.getNoteId(),
+						tombstone.getDeletedAt()));
+				cursor = tombstone.getChangeSeq();
+			}
+		}
+		boolean hasMore = n < notes.size() || t < tombstones.size();
+		if (cursor < prunedThrough) {
+			cursor = hasMore ? -cursor : prunedThrough;
+		}
+		return new NoteChangesResponse(mapToNoteResponses(changed, owner.getName()), deleted, cursor, hasMore);
+	}
+
+	public CursorPage<NoteResponse> getPublicNotesByUsername(String username, String cursor, Integer limit) {
+		int pageSize = resolvePageSize(limit);
+		Limit fetchLimit = Limit.of(pageSize + 1);
+
+		List<Note> notes;
+		if (StringUtils.hasText(cursor)) {
+			NoteCursor after = NoteCursor.decode(cursor);
+			notes = noteRepository.findPublicPageByUsernameAfter(username, after.getUpdatedAt(), after.getId(), fetchLimit);
+		} else {
+			notes = noteRepository.findByUserUsernameAndIsPublicTrueOrderByUpdatedAtDescIdDesc(username, fetchLimit);
+		}
+		return toPage(notes, pageSize, username);
+	}
+
+	public CursorPage<NoteSummaryResponse> getUserNoteSummaries(AuthenticatedUser owner, String cursor, Integer limit) {
+		int pageSize = resolvePageSize(limit);
+		Limit fetchLimit = Limit.of(pageSize + 1);
+
+		List<NoteSummaryResponse> summaries;
+		if (StringUtils.hasText(cursor)) {
+			NoteCursor after = NoteCursor.decode(cursor);
+			summaries = noteRepository.findSummaryPageByUserIdAfter(
+					owner.getId(), PREVIEW_LENGTH, after.getUpdatedAt(), after.getId(), fetchLimit);
+		} else {
+			summaries = noteRepository.findSummaryPageByUserId(owner.getId(), PREVIEW_LENGTH, fetchLimit);
+		}
+		return toSummaryPage(summaries, pageSize, owner.getName());
+	}
+
+	public CursorPage<NoteSummaryResponse> getPublicNoteSummariesByUsername(String username, String cursor, Integer limit) {
+		int pageSize = resolvePageSize(limit);
+		Limit fetchLimit = Limit.of(pageSize + 1);
+
+		List<NoteSummaryResponse> summaries;
+		if (StringUtils.hasText(cursor)) {
+			NoteCursor after = NoteCursor.decode(cursor);
+			summaries = noteRepository.findPublicSummaryPageByUsernameAfter(
+					username, PREVIEW_LENGTH, after.getUpdatedAt(), after.getId(), fetchLimit);
+		} else {
+			summaries = noteRepository.findPublicSummaryPageByUsername(username, PREVIEW_LENGTH, fetchLimit);
+		}
+		return toSummaryPage(summaries, pageSize, username);
+	}
+
+	public CursorPage<NoteSearchResult> searchUserNotes(AuthenticatedUser owner, String query, String cursor, Integer limit) {
+		validateSearchQuery(query);
+		int pageSize = resolvePageSize(limit);
+		SearchCursor after = StringUtils.hasText(cursor) ? SearchCursor.decode(cursor) : SearchCursor.START;
+
+		if (searchIndex.isEnabled()) {
+			return searchEmbedded(query, owner.getId(), owner.getName(), false, after, pageSize);
+		}
+
+		List<NoteSearchRow> rows = noteRepository.searchByUserId(
+				owner.getId(), query, after.getRank(), after.getId(), pageSize + 1);
+		return toSearchPage(rows, pageSize, owner.getName());
+	}
+
+	public CursorPage<NoteSearchResult> searchPublicNotesByUsername(String username, String query, String cursor, Integer limit) {
+		validateSearchQuery(query);
+		int pageSize = resolvePageSize(limit);
+		SearchCursor after = StringUtils.hasText(cursor) ? SearchCursor.decode(cursor) : SearchCursor.START;
+
+		if (searchIndex.isEnabled()) {
+			Optional<Long> userId = userRepository.findIdByUsername(username);
+			if (userId.isEmpty()) {
+				return new CursorPage<>(Collections.emptyList(), null);
+			}
+			return searchEmbedded(query, userId.get(), username, true, after, pageSize);
+		}
+
+		List<NoteSearchRow> rows = noteRepository.searchPublicByUsername(
+				username, query, after.getRank(), after.getId(), pageSize + 1);
+		return toSearchPage(rows, pageSize, username);
+	}
+
+	// Ranks with the in-process index, then loads only the notes on the page for snippets
+	private CursorPage<NoteSearchResult> searchEmbedded(String query, Long ownerId, String username, boolean publicOnly,
+			SearchCursor after, int pageSize) {
+		SearchQuery parsed = SearchQuery.parse(query);
+		List<SearchHit> hits = searchIndex.search(parsed, ownerId, publicOnly, after, pageSize + 1);
+
+		String nextCursor = null;
+		if (hits.size() > pageSize) {
+			hits = hits.subList(0, pageSize);
+			SearchHit last = hits.get(pageSize - 1);
+			nextCursor = SearchCursor.of(last.getScore(), last.getNoteId()).encode();
+		}
+
+		List<Long> noteIds = hits.stream()
+				.map(SearchHit::getNoteId)
+				.collect(Collectors.toList());
+		Map<Long, Note> notesById = noteRepository.findAllById(noteIds).stream()
+				.collect(Collectors.toMap(Note::getId, Function.identity()));
+
+		List<NoteSearchResult> results = new ArrayList<>();
+		for (SearchHit hit : hits) {
+			Note note = notesById.get(hit.getNoteId());
+			// The index may briefly lag the database; what is shown follows the committed rows
+			if (note == null || !note.getUser().getId().equals(ownerId) || (publicOnly && !note.getIsPublic())) {
+				continue;
+			}
+			results.add(new NoteSearchResult(
+					note.getId(),
+					note.getTitle(),
+					Snippets.highlight(note.getContent(), parsed),
+					username,
+					note.getCreatedAt(),
+					note.getUpdatedAt(),
+					note.getIsPublic(),
+					hit.getScore()));
+		}
+		return new CursorPage<>(results, nextCursor);
+	}
+
+	// A reload that ran before this transaction commits would otherwise cache the old listing
+	private void invalidatePublicListAfterCommit(String username) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				publicListCache.invalidate(username);
+			}
+		});
+	}
+
+	// Blank titles and absent fields leave the current value in place
+	private static void applyUpdate(Note note, UpdateNoteRequest request) {
 		if (request.getTitle() != null && !request.getTitle().isEmpty()) {
 			note.setTitle(request.getTitle());
 		}
@@ -70,25 +653,104 @@ public class NoteService {
 		if (request.getIsPublic() != null) {
 			note.setIsPublic(request.getIsPublic());
 		}
+	}
 
-		Note updatedNote = noteRepository.save(note);
-		return mapToNoteResponse(updatedNote);
+	private String validate(Object request) {
+		Set<ConstraintViolation<Object>> violations = validator.validate(request);
+		if (violations.isEmpty()) {
+			return null;
+		}
+		return violations.stream()
+				.map(ConstraintViolation::getMessage)
+				.sorted()
+				.collect(Collectors.joining("; "));
 	}
 
-	public void deleteNote(String username, Long id) {
-		Note note = noteRepository.findByIdAndUserUsername(id, username)
-				.orElseThrow(() -> new ResourceNotFoundException("Note not found"));
-		noteRepository.delete(note);
+	private void validateSearchQuery(String query) {
+		if (!StringUtils.hasText(query)) {
+			throw new IllegalArgumentException("Search query is required");
+		}
+		if (query.length() > MAX_SEARCH_QUERY_LENGTH) {
+			throw new IllegalArgumentException("Search query is too long");
+		}
+	}
+
+	public int resolvePageSize(Integer limit) {
+		if (limit == null) {
+			return defaultPageSize;
+		}
+		if (limit < 1) {
+			throw new IllegalArgumentException("Page size must be at least 1");
+		}
+		return Math.min(limit, maxPageSize);
+	}
+
+	private CursorPage<NoteResponse> toPage(List<Note> notes, int pageSize, String username) {
+		String nextCursor = null;
+		if (notes.size() > pageSize) {
+			notes = notes.subList(0, pageSize);
+			nextCursor = NoteCursor.of(notes.get(pageSize - 1)).encode();
+		}
+
+		return new CursorPage<>(mapToNoteResponses(notes, username), nextCursor);
 	}
 
-	public List<NoteResponse> getPublicNotesByUsername(String username) {
-		return noteRepository.findByUserUsernameAndIsPublicTrueOrderByUpdatedAtDesc(username).stream()
-				.map(this::mapToNoteResponse)
+	private CursorPage<NoteSummaryResponse> toSummaryPage(List<NoteSummaryResponse> summaries, int pageSize, String username) {
+		String nextCursor = null;
+		if (summaries.size() > pageSize) {
+			summaries = summaries.subList(0, pageSize);
+			NoteSummaryResponse last = summaries.get(pageSize - 1);
+			nextCursor = NoteCursor.of(last.getUpdatedAt(), last.getId()).encode();
+		}
+		summaries.forEach(summary -> summary.setUsername(username));
+		return new CursorPage<>(summaries, nextCursor);
+	}
+
+	private CursorPage<NoteSearchResult> toSearchPage(List<NoteSearchRow> rows, int pageSize, String username) {
+		String nextCursor = null;
+		if (rows.size() > pageSize) {
+			rows = rows.subList(0, pageSize);
+			NoteSearchRow last = rows.get(pageSize - 1);
+			nextCursor = SearchCursor.of(last.getRank(), last.getId()).encode();
+		}
+
+		List<NoteSearchResult> results = rows.stream()
+				.map(row -> new NoteSearchResult(
+						row.getId(),
+						row.getTitle(),
+						row.getSnippet(),
+						username,
+						row.getCreatedAt(),
+						row.getUpdatedAt(),
+						row.getIsPublic(),
+						row.getRank()))
 				.collect(Collectors.toList());
+		return new CursorPage<>(results, nextCursor);
 	}
 
-	private NoteResponse mapToNoteResponse(Note note) {
-		List<NoteAttachment> attachments = attachmentRepository.findByNoteId(note.getId());
+	private List<NoteResponse> mapToNoteResponses(List<Note> notes, String username) {
+		if (notes.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		// Load attachments for the whole page in one query instead of one per note
+		List<Long> noteIds = notes.stream()
+				.map(Note::getId)
+				.collect(Collectors.toList());
+		Map<Long, List<NoteAttachment>> attachmentsByNote = attachmentRepository.findByNoteIdIn(noteIds).stream()
+				.collect(Collectors.groupingBy(attachment -> attachment.getNote().getId()));
+
+		return notes.stream()
+				.map(note -> mapToNoteResponse(note, attachmentsByNote.getOrDefault(note.getId(), Collections.emptyList()), username))
+				.collect(Collectors.toList());
+	}
+
+	private NoteResponse mapToNoteResponse(Note note, String username) {
+		return mapToNoteResponse(note, attachmentRepository.findByNoteId(note.getId()), username);
+	}
+
+	// Notes are loaded without their owner, so the username comes from the caller
+	private NoteResponse mapToNoteResponse(Note note, List<NoteAttachment> attachments, String username) {
 		List<AttachmentResponse> attachmentResponses = attachments.stream()
 				.map(this::mapToAttachmentResponse)
 				.collect(Collectors.toList());
@@ -97,7 +759,7 @@ public class NoteService {
 				note.getId(),
 				note.getTitle(),
 				note.getContent(),
-				note.getUser().getUsername(),
+				username,
 				note.getCreatedAt(),
 				note.getUpdatedAt(),
 				note.getIsPublic(),
@@ -115,5 +777,26 @@ public class NoteService {
 		);
 	}
 
+	// A patched note with the ETag that names its new version
+	public static final class PatchedNote {
+
+		private final NoteResponse note;
+		private final String etag;
+
+		PatchedNote(NoteResponse note, String etag) {
+			this.note = note;
+			this.etag = etag;
+		}
+
+		public NoteResponse getNote() {
+			return note;
+		}
+
+		public String getETag() {
+			return etag;
+		}
+
+	}
+
 }
 
@@ -0,0 +1,59 @@
+package com.vibenotes.service;
+
+import com.vibenotes.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Each whole-notebook stream holds a connection until written, so past the limit they get 503
+@Component
+@ManagedResource(objectName = "com.vibenotes:type=Limits,name=NotebookStreamLimiter")
+public class NotebookStreamLimiter {
+
+	private final int maxConcurrent;
+	private final Semaphore permits;
+
+	public NotebookStreamLimiter(@Value("${notes.export.max-concurrent:4}") int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+		this.permits = new Semaphore(maxConcurrent);
+	}
+
+	// Taken on the request thread before the stream's transaction begins; closed once it is written
+	public Permit acquire() {
+		if (!permits.tryAcquire()) {
+			throw new ServiceBusyException("Too many notebook exports in progress");
+		}
+		return new Permit();
+	}
+
+	@ManagedAttribute(description = "Notebook streams currently being written")
+	public int getActiveStreams() {
+		return maxConcurrent - permits.availablePermits();
+	}
+
+	@ManagedAttribute(description = "Notebook streams allowed at once")
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	public final class Permit implements AutoCloseable {
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit() {
+		}
+
+		@Override
+		public void close() {
+			if (released.compareAndSet(false, true)) {
+				permits.release();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.vibenotes.service;
+
+import java.nio.file.Path;
+
+// An upload as written by FileStorageService; until published it lives at the staged path
+public class StoredFile {
+
+	private final String filename;
+	private final String originalFilename;
+	private final long size;
+	private final String sha256;
+	private final String contentType;
+	private final Path stagedPath;
+
+	public StoredFile(String filename, String originalFilename, long size, String sha256, String contentType,
+			Path stagedPath) {
+		this.filename = filename;
+		this.originalFilename = originalFilename;
+		this.size = size;
+		this.sha256 = sha256;
+		this.contentType = contentType;
+		this.stagedPath = stagedPath;
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	public String getOriginalFilename() {
+		return originalFilename;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	public String getSha256() {
+		return sha256;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public Path getStagedPath() {
+		return stagedPath;
+	}
+
+}
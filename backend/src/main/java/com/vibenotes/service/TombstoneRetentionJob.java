@@ -0,0 +1,61 @@
+package com.vibenotes.service;
+
+import com.vibenotes.repository.NoteTombstoneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Each pruned batch raises the horizon below which GET /api/notes/changes answers 410
+@Component
+@ManagedResource(objectName = "com.vibenotes:type=Job,name=TombstoneRetentionJob")
+public class TombstoneRetentionJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(TombstoneRetentionJob.class);
+	private static final int BATCH_SIZE = 1000;
+
+	@Autowired
+	private NoteTombstoneRepository tombstoneRepository;
+
+	@Value("${notes.tombstones.retention:90d}")
+	private Duration retention;
+
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	@Scheduled(fixedDelayString = "${notes.tombstones.prune-interval-ms:3600000}",
+			initialDelayString = "${notes.tombstones.prune-interval-ms:3600000}")
+	public void pruneOnSchedule() {
+		prune();
+	}
+
+	@ManagedOperation(description = "Delete tombstones past the retention period; returns a summary")
+	public String prune() {
+		if (!running.compareAndSet(false, true)) {
+			return "Pruning is already running";
+		}
+		try {
+			LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+			int batches = 0;
+			while (tombstoneRepository.pruneBatch(cutoff, BATCH_SIZE) > 0) {
+				batches++;
+			}
+			String summary = String.format("Pruned tombstones before %s in %d batches, horizon now %d",
+					cutoff, batches, tombstoneRepository.findPrunedThrough());
+			if (batches > 0) {
+				logger.info("Tombstone retention: {}", summary);
+			}
+			return summary;
+		} finally {
+			running.set(false);
+		}
+	}
+
+}
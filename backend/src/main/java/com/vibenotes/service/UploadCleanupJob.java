@@ -0,0 +1,48 @@
+package com.vibenotes.service;
+
+import com.vibenotes.exception.FileStorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Deletes staging and trashed files a crash left behind
+@Component
+@ManagedResource(objectName = "com.vibenotes:type=Job,name=UploadCleanupJob")
+public class UploadCleanupJob {
+
+	private static final Logger logger = LoggerFactory.getLogger(UploadCleanupJob.class);
+
+	@Autowired
+	private FileStorageService fileStorageService;
+
+	@Value("${file.upload.leftover-max-age:1h}")
+	private Duration leftoverMaxAge;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onStartup() {
+		deleteLeftovers();
+	}
+
+	@ManagedOperation(description = "Delete staging and trashed files older than file.upload.leftover-max-age")
+	public String deleteLeftovers() {
+		try {
+			int deleted = fileStorageService.deleteLeftovers(leftoverMaxAge);
+			if (deleted > 0) {
+				logger.info("Deleted {} leftover upload files", deleted);
+			}
+			return "Deleted " + deleted + " leftover files";
+		} catch (FileStorageException ex) {
+			logger.warn("Could not delete leftover upload files: {}", ex.getMessage());
+			return "Failed: " + ex.getMessage();
+		}
+	}
+
+}
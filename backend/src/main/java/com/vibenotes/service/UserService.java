@@ -4,9 +4,10 @@ import com.vibenotes.dto.UpdateProfileRequest;
 import com.vibenotes.dto.UserProfileResponse;
 import com.vibenotes.exception.ResourceNotFoundException;
 import com.vibenotes.model.User;
+import com.vibenotes.repository.UserListVersion;
 import com.vibenotes.repository.UserRepository;
+import com.vibenotes.util.ETagUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -18,15 +19,36 @@ public class UserService {
 	@Autowired
 	private UserRepository userRepository;
 
-	public UserProfileResponse getCurrentUserProfile(String username) {
-		User user = userRepository.findByUsername(username)
-				.orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+	@Autowired
+	private AvatarImageService avatarImageService;
+
+	public UserProfileResponse getCurrentUserProfile(Long userId) {
+		User user = userRepository.findById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException("User not found"));
 		return mapToProfileResponse(user);
 	}
 
-	public UserProfileResponse updateProfile(String username, UpdateProfileRequest request) {
-		User user = userRepository.findByUsername(username)
-				.orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+	public String getCurrentUserProfileETag(Long userId) {
+		return userRepository.findLastModifiedById(userId)
+				.map(lastModified -> ETagUtil.fromParts("profile", userId, lastModified, avatarImageService.getGeneration()))
+				.orElseThrow(() -> new ResourceNotFoundException("User not found"));
+	}
+
+	public String getUserETag(Long id) {
+		return userRepository.findLastModifiedById(id)
+				.map(lastModified -> ETagUtil.fromParts("user", id, lastModified, avatarImageService.getGeneration()))
+				.orElseThrow(() -> new ResourceNotFoundException("User not found"));
+	}
+
+	public String getAllUsersETag() {
+		UserListVersion version = userRepository.findListVersion();
+		return ETagUtil.fromParts("users", version.getUserCount(), version.getLastModifiedAt(),
+				avatarImageService.getGeneration());
+	}
+
+	public UserProfileResponse updateProfile(Long userId, UpdateProfileRequest request) {
+		User user = userRepository.findById(userId)
+				.orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
 		if (request.getDescription() != null) {
 			user.setDescription(request.getDescription());
@@ -52,13 +74,15 @@ public class UserService {
 	}
 
 	private UserProfileResponse mapToProfileResponse(User user) {
-		return new UserProfileResponse(
+		UserProfileResponse response = new UserProfileResponse(
 				user.getId(),
 				user.getUsername(),
 				user.getDescription(),
 				user.getAvatarUrl(),
 				user.getCreatedAt()
 		);
+		response.setAvatarUrls(avatarImageService.urlsFor(user.getAvatarUrl()));
+		return response;
 	}
 
 }
@@ -0,0 +1,293 @@
+package com.vibenotes.util;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+// Reads ZIP, tar (ustar, pax, GNU) and gzipped tar entries straight from the stream; moving
+// to the next entry skips what was left unread
+public abstract class ArchiveReader {
+
+	private static final int SNIFF_LENGTH = 512;
+	private static final int TAR_MAGIC_OFFSET = 257;
+
+	private final CountingInputStream source;
+
+	private ArchiveReader(CountingInputStream source) {
+		this.source = source;
+	}
+
+	// Throws IllegalArgumentException for anything but ZIP, tar or gzipped tar
+	public static ArchiveReader open(InputStream in) throws IOException {
+		CountingInputStream counting = new CountingInputStream(in);
+		BufferedInputStream buffered = new BufferedInputStream(counting, 64 * 1024);
+		byte[] head = peek(buffered);
+		if (head.length >= 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3 && head[3] == 4) {
+			return new Zip(counting, new ZipInputStream(buffered, StandardCharsets.UTF_8));
+		}
+		if (head.length >= 2 && (head[0] & 0xff) == 0x1f && (head[1] & 0xff) == 0x8b) {
+			BufferedInputStream inflated = new BufferedInputStream(new GZIPInputStream(buffered, 64 * 1024), 64 * 1024);
+			if (isTar(peek(inflated))) {
+				return new Tar(counting, inflated);
+			}
+		} else if (isTar(head)) {
+			return new Tar(counting, buffered);
+		}
+		throw new IllegalArgumentException("Unsupported archive format, expected ZIP, tar or tar.gz");
+	}
+
+	// Path of the next file in the archive, or null after the last one.
+	public abstract String nextEntry() throws IOException;
+
+	// The content of the current entry; closing it does not close the archive.
+	public abstract InputStream entryStream();
+
+	// Archive bytes consumed so far, before decompression.
+	public long getBytesRead() {
+		return source.count;
+	}
+
+	private static byte[] peek(BufferedInputStream in) throws IOException {
+		in.mark(SNIFF_LENGTH);
+		byte[] head = in.readNBytes(SNIFF_LENGTH);
+		in.reset();
+		return head;
+	}
+
+	private static boolean isTar(byte[] head) {
+		return head.length >= TAR_MAGIC_OFFSET + 5
+				&& new String(head, TAR_MAGIC_OFFSET, 5, StandardCharsets.US_ASCII).equals("ustar");
+	}
+
+	private static final class Zip extends ArchiveReader {
+
+		private final ZipInputStream zip;
+
+		Zip(CountingInputStream source, ZipInputStream zip) {
+			super(source);
+			this.zip = zip;
+		}
+
+		@Override
+		public String nextEntry() throws IOException {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				if (!entry.isDirectory()) {
+					return entry.getName();
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public InputStream entryStream() {
+			return new FilterInputStream(zip) {
+				@Override
+				public void close() {
+					// The ZIP stream moves on to the next entry by itself
+				}
+			};
+		}
+
+	}
+
+	private static final class Tar extends ArchiveReader {
+
+		private static final int BLOCK = 512;
+		// Long names and pax records are a few hundred bytes; anything near this is not a real archive
+		private static final int MAX_HEADER_ENTRY = 64 * 1024;
+
+		private final InputStream in;
+		private final byte[] header = new byte[BLOCK];
+		private long remaining;
+		private long padding;
+		private InputStream current;
+
+		Tar(CountingInputStream source, InputStream in) {
+			super(source);
+			this.in = in;
+		}
+
+		@Override
+		public String nextEntry() throws IOException {
+			String longName = null;
+			while (true) {
+				skipFully(remaining + padding);
+				remaining = 0;
+				padding = 0;
+				if (in.readNBytes(header, 0, BLOCK) < BLOCK || isZeroBlock(header)) {
+					return null;
+				}
+				long size = parseSize(header);
+				char type = (char) header[156];
+				remaining = size;
+				padding = (BLOCK - size % BLOCK) % BLOCK;
+
+				if (type == 'L' || type == 'x') {
+					// GNU long name or pax extended header; applies to the entry that follows
+					byte[] data = readEntryBytes(size);
+					String name = type == 'L' ? cString(data, 0, data.length) : paxPath(data);
+					if (name != null) {
+						longName = name;
+					}
+					continue;
+				}
+				if (type != '0' && type != '\0' && type != '7') {
+					// Directories, links, devices and global pax headers carry no file
+					longName = null;
+					continue;
+				}
+				String name = longName != null ? longName : headerName(header);
+				current = new EntryStream();
+				return name;
+			}
+		}
+
+		@Override
+		public InputStream entryStream() {
+			return current;
+		}
+
+		private byte[] readEntryBytes(long size) throws IOException {
+			if (size > MAX_HEADER_ENTRY) {
+				throw new IllegalArgumentException("Tar long name or pax header exceeds " + MAX_HEADER_ENTRY + " bytes");
+			}
+			byte[] data = in.readNBytes((int) size);
+			if (data.length < size) {
+				throw new EOFException("Truncated tar archive");
+			}
+			remaining = 0;
+			return data;
+		}
+
+		private void skipFully(long count) throws IOException {
+			in.skipNBytes(count);
+		}
+
+		private static boolean isZeroBlock(byte[] block) {
+			for (byte b : block) {
+				if (b != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static String headerName(byte[] header) {
+			String name = cString(header, 0, 100);
+			String prefix = cString(header, 345, 155);
+			boolean ustar = new String(header, TAR_MAGIC_OFFSET, 5, StandardCharsets.US_ASCII).equals("ustar");
+			return ustar && !prefix.isEmpty() ? prefix + "/" + name : name;
+		}
+
+		// Octal, or base-256 with the high bit set for entries of 8 GB and more
+		private static long parseSize(byte[] header) throws IOException {
+			if ((header[124] & 0x80) != 0) {
+				long size = header[124] & 0x7f;
+				for (int i = 125; i < 136; i++) {
+					size = (size << 8) | (header[i] & 0xff);
+				}
+				return size;
+			}
+			String octal = cString(header, 124, 12).trim();
+			try {
+				return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+			} catch (NumberFormatException ex) {
+				throw new IOException("Invalid tar header", ex);
+			}
+		}
+
+		// Records are "<length> <key>=<value>\n"
+		private static String paxPath(byte[] data) {
+			String records = new String(data, StandardCharsets.UTF_8);
+			for (String record : records.split("\n")) {
+				int space = record.indexOf(' ');
+				if (space > 0 && record.startsWith("path=", space + 1)) {
+					return record.substring(space + 1 + "path=".length());
+				}
+			}
+			return null;
+		}
+
+		private static String cString(byte[] data, int offset, int length) {
+			int end = offset;
+			while (end < offset + length && data[end] != 0) {
+				end++;
+			}
+			return new String(data, offset, end - offset, StandardCharsets.UTF_8);
+		}
+
+		private final class EntryStream extends InputStream {
+
+			@Override
+			public int read() throws IOException {
+				if (remaining <= 0) {
+					return -1;
+				}
+				int b = in.read();
+				if (b < 0) {
+					throw new EOFException("Truncated tar archive");
+				}
+				remaining--;
+				return b;
+			}
+
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException {
+				if (remaining <= 0) {
+					return -1;
+				}
+				int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+				if (read < 0) {
+					throw new EOFException("Truncated tar archive");
+				}
+				remaining -= read;
+				return read;
+			}
+
+		}
+
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int read = super.read(buffer, offset, length);
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+
+	}
+
+}
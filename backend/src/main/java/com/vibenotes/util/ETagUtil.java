@@ -0,0 +1,54 @@
+package com.vibenotes.util;
+
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public final class ETagUtil {
+
+	private ETagUtil() {
+	}
+
+	// Builds an opaque strong validator from the values a response depends on.
+	// Callers pass version data (timestamps, counts, ids) and request parameters, never the body.
+	public static String fromParts(Object... parts) {
+		String joined = Arrays.stream(parts)
+				.map(String::valueOf)
+				.collect(Collectors.joining("|"));
+		return DigestUtils.md5DigestAsHex(joined.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// Whether an If-Match header names the given tag: one of its comma-separated entries, quoted
+	// or not, or "*". Weak tags never match, as If-Match uses strong comparison.
+	public static boolean matches(String ifMatch, String etag) {
+		for (String candidate : ifMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.equals("*")) {
+				return true;
+			}
+			if (tag.startsWith("W/")) {
+				continue;
+			}
+			if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+				tag = tag.substring(1, tag.length() - 1);
+			}
+			if (tag.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Whether an If-Match header is or includes "*", which matches any version
+	public static boolean isWildcard(String ifMatch) {
+		for (String candidate : ifMatch.split(",")) {
+			if (candidate.trim().equals("*")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
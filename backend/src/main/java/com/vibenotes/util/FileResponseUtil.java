@@ -0,0 +1,236 @@
+package com.vibenotes.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+// Serves stored files with conditional GET and byte ranges, through sendfile or
+// FileChannel.transferTo so bodies never pass through a heap buffer
+public final class FileResponseUtil {
+
+	// Request attributes of Tomcat's sendfile support (org.apache.coyote.Constants)
+	private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+	// Below this size a plain write is cheaper than setting up sendfile (Tomcat's own default)
+	private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+	private static final String CRLF = "\r\n";
+
+	private FileResponseUtil() {
+	}
+
+	public static void write(HttpServletRequest request, HttpServletResponse response, Path file,
+			String contentType, String contentDisposition) throws IOException {
+		write(request, response, file, null, contentType, contentDisposition);
+	}
+
+	public static void write(HttpServletRequest request, HttpServletResponse response, Path file,
+			Path gzipVariant, String contentType, String contentDisposition) throws IOException {
+		if (gzipVariant != null) {
+			response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			if (request.getHeader(HttpHeaders.RANGE) == null && acceptsGzip(request)) {
+				file = gzipVariant;
+				response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+			}
+		}
+
+		long length = Files.size(file);
+		// HTTP dates have second precision, so compare and send the truncated value
+		long lastModified = Files.getLastModifiedTime(file).toMillis() / 1000 * 1000;
+		String eTag = "\"" + ETagUtil.fromParts(file.getFileName(), length, lastModified) + "\"";
+
+		// Sets ETag and Last-Modified, and answers 304 or 412 for the conditional headers
+		if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+			return;
+		}
+
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+
+		String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+		if (rangeHeader == null || !ifRangeMatches(request, eTag, lastModified)) {
+			response.setContentType(contentType);
+			send(request, response, file, 0, length);
+			return;
+		}
+
+		List<long[]> ranges = satisfiableRanges(rangeHeader, length);
+		if (ranges.isEmpty()) {
+			response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+			response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+			return;
+		}
+
+		response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+		if (ranges.size() == 1) {
+			long[] range = ranges.get(0);
+			response.setContentType(contentType);
+			response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(range, length));
+			send(request, response, file, range[0], range[1] + 1);
+		} else {
+			sendMultipart(request, response, file, ranges, contentType, length);
+		}
+	}
+
+	// True unless gzip is absent or refused with q=0 (a "*" entry covers it when not listed)
+	private static boolean acceptsGzip(HttpServletRequest request) {
+		Double gzip = null;
+		Double any = null;
+		for (Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING); headers.hasMoreElements(); ) {
+			for (String coding : headers.nextElement().split(",")) {
+				String[] parts = coding.trim().split(";");
+				double quality = 1.0;
+				for (int i = 1; i < parts.length; i++) {
+					String param = parts[i].trim();
+					if (param.startsWith("q=")) {
+						try {
+							quality = Double.parseDouble(param.substring(2));
+						} catch (NumberFormatException ex) {
+							quality = 0;
+						}
+					}
+				}
+				String name = parts[0].trim().toLowerCase();
+				if (name.equals("gzip") || name.equals("x-gzip")) {
+					gzip = quality;
+				} else if (name.equals("*")) {
+					any = quality;
+				}
+			}
+		}
+		Double quality = gzip != null ? gzip : any;
+		return quality != null && quality > 0;
+	}
+
+	// A Range guarded by a stale If-Range validator is ignored and the whole file is sent
+	private static boolean ifRangeMatches(HttpServletRequest request, String eTag, long lastModified) {
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (ifRange == null) {
+			return true;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			// Only a strong validator can guard a range request
+			return ifRange.equals(eTag);
+		}
+		try {
+			return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+		} catch (IllegalArgumentException ex) {
+			return false;
+		}
+	}
+
+	// Inclusive [first, last] pairs; unsatisfiable ranges are dropped. Malformed headers, more than
+	// 100 ranges, or ranges adding up to more than the file itself (overlap abuse) yield none.
+	private static List<long[]> satisfiableRanges(String rangeHeader, long length) {
+		List<long[]> ranges = new ArrayList<>();
+		try {
+			long total = 0;
+			for (HttpRange range : HttpRange.parseRanges(rangeHeader)) {
+				long first = range.getRangeStart(length);
+				long last = range.getRangeEnd(length);
+				if (first >= length || first > last) {
+					continue;
+				}
+				total += last - first + 1;
+				ranges.add(new long[] {first, last});
+			}
+			if (total > length) {
+				ranges.clear();
+			}
+		} catch (IllegalArgumentException ex) {
+			ranges.clear();
+		}
+		return ranges;
+	}
+
+	private static void send(HttpServletRequest request, HttpServletResponse response, Path file,
+			long start, long end) throws IOException {
+		response.setContentLengthLong(end - start);
+		if ("HEAD".equals(request.getMethod())) {
+			return;
+		}
+		if (end - start >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+			request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+			request.setAttribute(SENDFILE_START_ATTR, start);
+			request.setAttribute(SENDFILE_END_ATTR, end);
+			return;
+		}
+		OutputStream out = response.getOutputStream();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			transfer(channel, start, end - start, Channels.newChannel(out));
+		}
+		out.flush();
+	}
+
+	private static void sendMultipart(HttpServletRequest request, HttpServletResponse response, Path file,
+			List<long[]> ranges, String contentType, long length) throws IOException {
+		String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+		response.setContentType("multipart/byteranges; boundary=" + boundary);
+
+		List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+		long contentLength = 0;
+		for (long[] range : ranges) {
+			byte[] header = (CRLF + "--" + boundary + CRLF +
+					HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF +
+					HttpHeaders.CONTENT_RANGE + ": " + contentRange(range, length) + CRLF + CRLF)
+					.getBytes(StandardCharsets.US_ASCII);
+			partHeaders.add(header);
+			contentLength += header.length + range[1] - range[0] + 1;
+		}
+		byte[] closing = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+		response.setContentLengthLong(contentLength + closing.length);
+		if ("HEAD".equals(request.getMethod())) {
+			return;
+		}
+
+		OutputStream out = response.getOutputStream();
+		WritableByteChannel target = Channels.newChannel(out);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			for (int i = 0; i < ranges.size(); i++) {
+				long[] range = ranges.get(i);
+				out.write(partHeaders.get(i));
+				transfer(channel, range[0], range[1] - range[0] + 1, target);
+			}
+		}
+		out.write(closing);
+		out.flush();
+	}
+
+	private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target)
+			throws IOException {
+		while (count > 0) {
+			long written = channel.transferTo(position, count, target);
+			if (written <= 0) {
+				// File shrank underneath us; the declared Content-Length can no longer be met
+				throw new IOException("Unexpected end of file");
+			}
+			position += written;
+			count -= written;
+		}
+	}
+
+	private static String contentRange(long[] range, long length) {
+		return "bytes " + range[0] + "-" + range[1] + "/" + length;
+	}
+
+}
@@ -0,0 +1,64 @@
+package com.vibenotes.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Checks a declared upload content type against the leading bytes of the content, so a file
+// cannot claim to be an image or a PDF when it is something else.
+public final class FileTypeSniffer {
+
+	// Bytes of the upload inspected before the rest is accepted
+	public static final int SNIFF_LENGTH = 8192;
+
+	private static final byte[] PDF = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+	private static final byte[] GIF87 = "GIF87a".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] GIF89 = "GIF89a".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] RIFF = "RIFF".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] WEBP = "WEBP".getBytes(StandardCharsets.US_ASCII);
+	// OLE compound file (legacy .doc) and ZIP container (.docx)
+	private static final byte[] OLE = {(byte) 0xD0, (byte) 0xCF, 0x11, (byte) 0xE0, (byte) 0xA1, (byte) 0xB1, 0x1A, (byte) 0xE1};
+	private static final byte[] ZIP = {'P', 'K', 0x03, 0x04};
+
+	private FileTypeSniffer() {
+	}
+
+	// head holds the first length bytes of the content, at most SNIFF_LENGTH
+	public static boolean matches(String contentType, byte[] head, int length) {
+		switch (contentType) {
+			case "application/pdf":
+				return startsWith(head, length, 0, PDF);
+			case "image/png":
+				return startsWith(head, length, 0, PNG);
+			case "image/jpeg":
+			case "image/jpg":
+				return startsWith(head, length, 0, JPEG);
+			case "image/gif":
+				return startsWith(head, length, 0, GIF87) || startsWith(head, length, 0, GIF89);
+			case "image/webp":
+				return startsWith(head, length, 0, RIFF) && startsWith(head, length, 8, WEBP);
+			case "application/msword":
+				return startsWith(head, length, 0, OLE);
+			case "application/vnd.openxmlformats-officedocument.wordprocessingml.document":
+				return startsWith(head, length, 0, ZIP);
+			case "text/plain":
+			case "text/csv":
+				// No signature to check; binary content gives itself away with NUL bytes
+				for (int i = 0; i < length; i++) {
+					if (head[i] == 0) {
+						return false;
+					}
+				}
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	private static boolean startsWith(byte[] head, int length, int offset, byte[] signature) {
+		return length >= offset + signature.length
+				&& Arrays.equals(head, offset, offset + signature.length, signature, 0, signature.length);
+	}
+
+}
@@ -1,6 +1,8 @@
 package com.vibenotes.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -9,66 +11,141 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
 
-	@Value("${jwt.secret}")
-	private String secret;
+	public static final String USER_ID_CLAIM = "uid";
+	public static final String TOKEN_VERSION_CLAIM = "ver";
+	// Set only on single-purpose tokens, which are refused as bearer tokens
+	public static final String PURPOSE_CLAIM = "use";
+	public static final String EVENTS_PURPOSE = "events";
 
-	@Value("${jwt.expiration}")
-	private Long expiration;
+	private final SecretKey signingKey;
+	private final JwtParser parser;
+	private final Long expiration;
+	private final long eventsTokenExpiration;
 
-	private SecretKey getSigningKey() {
+	// Verified tokens keyed by a SHA-256 digest of the token, so raw tokens are never kept
+	private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+	private final int maxCachedTokens;
+
+	public JwtUtil(
+			@Value("${jwt.secret}") String secret,
+			@Value("${jwt.expiration}") Long expiration,
+			@Value("${jwt.cache.max-entries:10000}") int maxCachedTokens,
+			@Value("${jwt.events-token.expiration:60000}") long eventsTokenExpiration) {
 		if (secret == null || secret.length() < 64) {
 			throw new IllegalArgumentException("JWT secret must be at least 64 characters long");
 		}
-		return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+		this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+		this.parser = Jwts.parserBuilder()
+				.setSigningKey(signingKey)
+				.build();
+		this.expiration = expiration;
+		this.maxCachedTokens = maxCachedTokens;
+		this.eventsTokenExpiration = eventsTokenExpiration;
+	}
+
+	public String generateToken(Long userId, String username, int tokenVersion) {
+		return buildToken(userId, username, tokenVersion, null, expiration);
 	}
 
-	public String generateToken(String username) {
+	// For opening GET /api/notes/events, where EventSource cannot send an Authorization header
+	public String generateEventsToken(Long userId, String username, int tokenVersion) {
+		return buildToken(userId, username, tokenVersion, EVENTS_PURPOSE, eventsTokenExpiration);
+	}
+
+	private String buildToken(Long userId, String username, int tokenVersion, String purpose, long validity) {
 		Date now = new Date();
-		Date expiryDate = new Date(now.getTime() + expiration);
+		Date expiryDate = new Date(now.getTime() + validity);
 
 		return Jwts.builder()
 				.setSubject(username)
+				.claim(USER_ID_CLAIM, userId)
+				.claim(TOKEN_VERSION_CLAIM, tokenVersion)
+				.claim(PURPOSE_CLAIM, purpose)
 				.setIssuedAt(now)
 				.setExpiration(expiryDate)
-				.signWith(getSigningKey(), SignatureAlgorithm.HS512)
+				.signWith(signingKey, SignatureAlgorithm.HS512)
 				.compact();
 	}
 
-	public String getUsernameFromToken(String token) {
-		Claims claims = Jwts.parserBuilder()
-				.setSigningKey(getSigningKey())
-				.build()
-				.parseClaimsJws(token)
-				.getBody();
+	// Verifies the token's signature and expiry and returns its claims, or an empty
+	// result if the token is missing, malformed, forged or expired.
+	public Optional<Claims> parseToken(String token) {
+		if (token == null || token.isEmpty()) {
+			return Optional.empty();
+		}
 
-		return claims.getSubject();
-	}
+		long now = System.currentTimeMillis();
+		String digest = maxCachedTokens > 0 ? digest(token) : null;
+		if (digest != null) {
+			VerifiedToken cached = verifiedTokens.get(digest);
+			if (cached != null) {
+				if (cached.expiresAt > now) {
+					return Optional.of(cached.claims);
+				}
+				verifiedTokens.remove(digest, cached);
+				return Optional.empty();
+			}
+		}
 
-	public boolean validateToken(String token) {
+		Claims claims;
 		try {
-			if (token == null || token.isEmpty()) {
-				return false;
+			claims = parser.parseClaimsJws(token).getBody();
+		} catch (JwtException | IllegalArgumentException e) {
+			return Optional.empty();
+		}
+
+		// Tokens without an expiry are never cached, so the cache cannot outlive a token
+		if (digest != null && claims.getExpiration() != null) {
+			cacheVerified(digest, new VerifiedToken(claims, claims.getExpiration().getTime()), now);
+		}
+		return Optional.of(claims);
+	}
+
+	private void cacheVerified(String digest, VerifiedToken token, long now) {
+		if (verifiedTokens.size() >= maxCachedTokens) {
+			verifiedTokens.values().removeIf(entry -> entry.expiresAt <= now);
+			// Still full of live tokens: drop arbitrary entries, they are simply re-verified
+			Iterator<String> keys = verifiedTokens.keySet().iterator();
+			while (verifiedTokens.size() >= maxCachedTokens && keys.hasNext()) {
+				keys.next();
+				keys.remove();
 			}
-			Jwts.parserBuilder()
-					.setSigningKey(getSigningKey())
-					.build()
-					.parseClaimsJws(token);
-			return true;
-		} catch (io.jsonwebtoken.ExpiredJwtException e) {
-			return false;
-		} catch (io.jsonwebtoken.MalformedJwtException e) {
-			return false;
-		} catch (io.jsonwebtoken.security.SignatureException e) {
-			return false;
-		} catch (Exception e) {
-			return false;
 		}
+		verifiedTokens.put(digest, token);
 	}
 
-}
+	private static String digest(String token) {
+		try {
+			MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+			byte[] hash = sha256.digest(token.getBytes(StandardCharsets.US_ASCII));
+			return Base64.getEncoder().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not available", e);
+		}
+	}
+
+	private static final class VerifiedToken {
 
+		private final Claims claims;
+		private final long expiresAt;
+
+		private VerifiedToken(Claims claims, long expiresAt) {
+			this.claims = claims;
+			this.expiresAt = expiresAt;
+		}
+
+	}
+
+}
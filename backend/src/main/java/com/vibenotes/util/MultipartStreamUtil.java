@@ -0,0 +1,50 @@
+package com.vibenotes.util;
+
+import com.vibenotes.exception.FileStorageException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.fileupload2.core.DiskFileItem;
+import org.apache.commons.fileupload2.core.DiskFileItemFactory;
+import org.apache.commons.fileupload2.core.FileItemInput;
+import org.apache.commons.fileupload2.core.FileItemInputIterator;
+import org.apache.commons.fileupload2.core.FileUploadException;
+import org.apache.commons.fileupload2.jakarta.servlet6.JakartaServletFileUpload;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Reads a file part straight off the request body; with multipart.resolve-lazily the container
+// never spools the upload to disk first
+public final class MultipartStreamUtil {
+
+	private MultipartStreamUtil() {
+	}
+
+	@FunctionalInterface
+	public interface FilePartHandler<T> {
+		T handle(InputStream content, String originalFilename, String contentType) throws IOException;
+	}
+
+	public static <T> T readFilePart(HttpServletRequest request, String fieldName, FilePartHandler<T> handler) {
+		if (!JakartaServletFileUpload.isMultipartContent(request)) {
+			throw new IllegalArgumentException("Expected a multipart/form-data request");
+		}
+		JakartaServletFileUpload<DiskFileItem, DiskFileItemFactory> upload = new JakartaServletFileUpload<>();
+		try {
+			FileItemInputIterator parts = upload.getItemIterator(request);
+			while (parts.hasNext()) {
+				FileItemInput part = parts.next();
+				if (!part.isFormField() && fieldName.equals(part.getFieldName())) {
+					try (InputStream content = part.getInputStream()) {
+						return handler.handle(content, part.getName(), part.getContentType());
+					}
+				}
+			}
+		} catch (FileUploadException ex) {
+			throw new FileStorageException("Malformed multipart request", ex);
+		} catch (IOException ex) {
+			throw new FileStorageException("Could not read the upload", ex);
+		}
+		throw new IllegalArgumentException("Missing file part '" + fieldName + "'");
+	}
+
+}
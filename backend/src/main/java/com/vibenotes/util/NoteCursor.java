@@ -0,0 +1,60 @@
+package com.vibenotes.util;
+
+import com.vibenotes.model.Note;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Opaque keyset position in a note listing ordered by (updatedAt DESC, id DESC).
+// Clients only ever see the encoded token and hand it back unchanged.
+public final class NoteCursor {
+
+	private static final String SEPARATOR = "|";
+
+	private final LocalDateTime updatedAt;
+	private final Long id;
+
+	private NoteCursor(LocalDateTime updatedAt, Long id) {
+		this.updatedAt = updatedAt;
+		this.id = id;
+	}
+
+	public static NoteCursor of(Note note) {
+		return new NoteCursor(note.getUpdatedAt(), note.getId());
+	}
+
+	public static NoteCursor of(LocalDateTime updatedAt, Long id) {
+		return new NoteCursor(updatedAt, id);
+	}
+
+	public static NoteCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.lastIndexOf(SEPARATOR);
+			if (separator < 0) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			LocalDateTime updatedAt = LocalDateTime.parse(raw.substring(0, separator));
+			Long id = Long.valueOf(raw.substring(separator + 1));
+			return new NoteCursor(updatedAt, id);
+		} catch (DateTimeParseException | NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid cursor", ex);
+		}
+	}
+
+	public String encode() {
+		String raw = updatedAt.toString() + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+}
@@ -0,0 +1,202 @@
+package com.vibenotes.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vibenotes.model.Note;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A note in notebook archives; its attachments live in {@code <name>/} next to {@code <name>.md}.
+ *
+ * <pre>
+ * ---
+ * title: "Groceries"
+ * public: false
+ * created: 2024-01-05T10:15:30
+ * updated: 2024-01-06T08:00:00
+ * attachments:
+ *   - "12-groceries/7-list.csv"
+ * ---
+ * content
+ * </pre>
+ */
+public final class NoteMarkdown {
+
+	public static final String EXTENSION = ".md";
+
+	private static final String FENCE = "---";
+	private static final int MAX_SLUG_LENGTH = 50;
+	private static final int MAX_TITLE_LENGTH = 200;
+	private static final ObjectMapper JSON = new ObjectMapper();
+
+	private NoteMarkdown() {
+	}
+
+	// Unique per note, stable across exports and safe on every file system
+	public static String baseName(Note note) {
+		String slug = slug(note.getTitle());
+		return slug.isEmpty() ? String.valueOf(note.getId()) : note.getId() + "-" + slug;
+	}
+
+	public static String render(Note note, List<String> attachmentPaths) {
+		StringBuilder out = new StringBuilder();
+		out.append(FENCE).append('\n');
+		out.append("title: ").append(quote(note.getTitle())).append('\n');
+		out.append("public: ").append(Boolean.TRUE.equals(note.getIsPublic())).append('\n');
+		if (note.getCreatedAt() != null) {
+			out.append("created: ").append(note.getCreatedAt()).append('\n');
+		}
+		if (note.getUpdatedAt() != null) {
+			out.append("updated: ").append(note.getUpdatedAt()).append('\n');
+		}
+		if (!attachmentPaths.isEmpty()) {
+			out.append("attachments:\n");
+			for (String path : attachmentPaths) {
+				out.append("  - ").append(quote(path)).append('\n');
+			}
+		}
+		out.append(FENCE).append('\n');
+		if (note.getContent() != null) {
+			out.append(note.getContent());
+		}
+		return out.toString();
+	}
+
+	public static Parsed parse(String text, String fallbackTitle) {
+		if (text.startsWith("\uFEFF")) {
+			text = text.substring(1);
+		}
+		String title = null;
+		boolean isPublic = false;
+		String content = text;
+
+		if (text.startsWith(FENCE + "\n") || text.startsWith(FENCE + "\r\n")) {
+			int start = text.indexOf('\n') + 1;
+			int end = start;
+			int close = -1;
+			while (end < text.length()) {
+				int lineEnd = text.indexOf('\n', end);
+				String line = (lineEnd < 0 ? text.substring(end) : text.substring(end, lineEnd)).stripTrailing();
+				if (line.equals(FENCE)) {
+					close = lineEnd < 0 ? text.length() : lineEnd + 1;
+					break;
+				}
+				int colon = line.indexOf(':');
+				if (colon > 0 && !line.startsWith(" ")) {
+					String key = line.substring(0, colon).trim();
+					String value = line.substring(colon + 1).trim();
+					if (key.equals("title")) {
+						title = unquote(value);
+					} else if (key.equals("public")) {
+						isPublic = Boolean.parseBoolean(value);
+					}
+				}
+				if (lineEnd < 0) {
+					break;
+				}
+				end = lineEnd + 1;
+			}
+			if (close >= 0) {
+				content = text.substring(close);
+			} else {
+				// No closing fence: not front matter after all
+				title = null;
+				isPublic = false;
+			}
+		}
+
+		if (title == null || title.isBlank()) {
+			title = firstHeading(content);
+		}
+		if (title == null || title.isBlank()) {
+			title = fallbackTitle;
+		}
+		title = title.strip();
+		if (title.length() > MAX_TITLE_LENGTH) {
+			title = title.substring(0, MAX_TITLE_LENGTH);
+		}
+		return new Parsed(title, content, isPublic);
+	}
+
+	// Keeps the name readable but drops anything a ZIP tool could read as a path
+	public static String safeFileName(String name) {
+		String cleaned = name == null ? "" : name.replaceAll("[\\\\/:*?\"<>|\\p{Cntrl}]", "_").trim();
+		if (cleaned.isEmpty() || cleaned.equals(".") || cleaned.equals("..")) {
+			return "file";
+		}
+		return cleaned;
+	}
+
+	private static String slug(String title) {
+		if (title == null) {
+			return "";
+		}
+		String slug = title.toLowerCase(Locale.ROOT)
+				.replaceAll("[^a-z0-9]+", "-")
+				.replaceAll("^-+|-+$", "");
+		if (slug.length() > MAX_SLUG_LENGTH) {
+			slug = slug.substring(0, MAX_SLUG_LENGTH).replaceAll("-+$", "");
+		}
+		return slug;
+	}
+
+	private static String firstHeading(String content) {
+		for (String line : content.split("\n", 50)) {
+			if (line.startsWith("# ")) {
+				return line.substring(2);
+			}
+		}
+		return null;
+	}
+
+	private static String unquote(String value) {
+		if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+			try {
+				return JSON.readValue(value, String.class);
+			} catch (JsonProcessingException ex) {
+				return value.substring(1, value.length() - 1);
+			}
+		}
+		if (value.length() >= 2 && value.startsWith("'") && value.endsWith("'")) {
+			return value.substring(1, value.length() - 1).replace("''", "'");
+		}
+		return value;
+	}
+
+	private static String quote(String value) {
+		try {
+			return JSON.writeValueAsString(value == null ? "" : value);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	public static final class Parsed {
+
+		private final String title;
+		private final String content;
+		private final boolean isPublic;
+
+		Parsed(String title, String content, boolean isPublic) {
+			this.title = title;
+			this.content = content;
+			this.isPublic = isPublic;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public String getContent() {
+			return content;
+		}
+
+		public boolean isPublic() {
+			return isPublic;
+		}
+
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.vibenotes.util;
+
+import com.vibenotes.dto.CursorPage;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+public final class PaginationUtil {
+
+	private PaginationUtil() {
+	}
+
+	// Fills in the next link of a page by re-issuing the current request
+	// with the page's cursor. Pages without a next cursor are left untouched.
+	public static <T> CursorPage<T> withNextLink(CursorPage<T> page) {
+		if (page.getNextCursor() != null) {
+			page.setNext(ServletUriComponentsBuilder.fromCurrentRequest()
+					.replaceQueryParam("cursor", page.getNextCursor())
+					.build()
+					.toUriString());
+		}
+		return page;
+	}
+
+	// Like withNextLink(CursorPage), but the link carries only params (null
+	// values left out) besides the cursor, whatever else the current request had.
+	public static <T> CursorPage<T> withNextLink(CursorPage<T> page, Map<String, ?> params) {
+		if (page.getNextCursor() != null) {
+			UriComponentsBuilder next = ServletUriComponentsBuilder.fromCurrentRequestUri();
+			params.forEach((name, value) -> {
+				if (value != null) {
+					next.queryParam(name, value);
+				}
+			});
+			page.setNext(next.queryParam("cursor", page.getNextCursor()).build().toUriString());
+		}
+		return page;
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.vibenotes.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaque keyset position in a search result list ordered by (rank DESC, id DESC).
+// The rank is kept as the exact float Postgres returned so ties resolve by id.
+public final class SearchCursor {
+
+	private static final String SEPARATOR = "|";
+
+	// Sorts ahead of every real result, used when no cursor was supplied
+	public static final SearchCursor START = new SearchCursor(Float.POSITIVE_INFINITY, Long.MAX_VALUE);
+
+	private final float rank;
+	private final Long id;
+
+	private SearchCursor(float rank, Long id) {
+		this.rank = rank;
+		this.id = id;
+	}
+
+	public static SearchCursor of(float rank, Long id) {
+		return new SearchCursor(rank, id);
+	}
+
+	public static SearchCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.lastIndexOf(SEPARATOR);
+			if (separator < 0) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			float rank = Float.parseFloat(raw.substring(0, separator));
+			Long id = Long.valueOf(raw.substring(separator + 1));
+			return new SearchCursor(rank, id);
+		} catch (NumberFormatException ex) {
+			throw new IllegalArgumentException("Invalid cursor", ex);
+		}
+	}
+
+	public String encode() {
+		String raw = Float.toString(rank) + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public float getRank() {
+		return rank;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+}
@@ -0,0 +1,175 @@
+package com.vibenotes.util;
+
+import com.vibenotes.dto.TextEdit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Trims the common prefix and suffix, then diffs the middle line by line (Myers)
+public final class TextDiff {
+
+	// Beyond this many differing lines the search gets costly and the edits are hardly smaller
+	private static final int MAX_LINE_CHANGES = 500;
+
+	private TextDiff() {
+	}
+
+	public static List<TextEdit> diff(String from, String to) {
+		int prefix = 0;
+		int limit = Math.min(from.length(), to.length());
+		while (prefix < limit && from.charAt(prefix) == to.charAt(prefix)) {
+			prefix++;
+		}
+		if (prefix == from.length() && prefix == to.length()) {
+			return Collections.emptyList();
+		}
+		// Never split a surrogate pair between the shared part and an edit
+		if (prefix > 0 && Character.isHighSurrogate(from.charAt(prefix - 1))) {
+			prefix--;
+		}
+		int suffix = 0;
+		limit -= prefix;
+		while (suffix < limit && from.charAt(from.length() - 1 - suffix) == to.charAt(to.length() - 1 - suffix)) {
+			suffix++;
+		}
+		if (suffix > 0 && Character.isLowSurrogate(from.charAt(from.length() - suffix))) {
+			suffix--;
+		}
+
+		String a = from.substring(prefix, from.length() - suffix);
+		String b = to.substring(prefix, to.length() - suffix);
+		List<TextEdit> edits = lineEdits(a, b, prefix);
+		return edits != null ? edits : List.of(new TextEdit(prefix, a.length(), b));
+	}
+
+	// Null when the texts differ in more lines than are worth aligning
+	private static List<TextEdit> lineEdits(String a, String b, int base) {
+		List<String> aLines = lines(a);
+		List<String> bLines = lines(b);
+		if (aLines.size() <= 1 || bLines.size() <= 1) {
+			return null;
+		}
+		char[] script = script(aLines, bLines);
+		if (script == null) {
+			return null;
+		}
+
+		List<TextEdit> edits = new ArrayList<>();
+		int offset = base;
+		int aIndex = 0;
+		int bIndex = 0;
+		int editOffset = -1;
+		int deleted = 0;
+		StringBuilder inserted = new StringBuilder();
+		for (char step : script) {
+			if (step == '=') {
+				if (editOffset >= 0) {
+					edits.add(new TextEdit(editOffset, deleted, inserted.toString()));
+					editOffset = -1;
+					deleted = 0;
+					inserted.setLength(0);
+				}
+				offset += aLines.get(aIndex++).length();
+				bIndex++;
+				continue;
+			}
+			if (editOffset < 0) {
+				editOffset = offset;
+			}
+			if (step == '-') {
+				int length = aLines.get(aIndex++).length();
+				deleted += length;
+				offset += length;
+			} else {
+				inserted.append(bLines.get(bIndex++));
+			}
+		}
+		if (editOffset >= 0) {
+			edits.add(new TextEdit(editOffset, deleted, inserted.toString()));
+		}
+		return edits;
+	}
+
+	// Shortest edit script from a to b: '=' keeps a line, '-' drops a line of
+	// a, '+' adds a line of b. Null past MAX_LINE_CHANGES.
+	private static char[] script(List<String> a, List<String> b) {
+		int n = a.size();
+		int m = b.size();
+		int maxD = Math.min(n + m, MAX_LINE_CHANGES);
+		int offset = maxD + 1;
+		int[] v = new int[2 * maxD + 3];
+		// trace.get(d) holds v for diagonals -d..d as it was before step d
+		List<int[]> trace = new ArrayList<>();
+
+		for (int d = 0; d <= maxD; d++) {
+			int[] snapshot = new int[2 * d + 1];
+			System.arraycopy(v, offset - d, snapshot, 0, 2 * d + 1);
+			trace.add(snapshot);
+			for (int k = -d; k <= d; k += 2) {
+				int x;
+				if (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])) {
+					x = v[offset + k + 1];
+				} else {
+					x = v[offset + k - 1] + 1;
+				}
+				int y = x - k;
+				while (x < n && y < m && a.get(x).equals(b.get(y))) {
+					x++;
+					y++;
+				}
+				v[offset + k] = x;
+				if (x >= n && y >= m) {
+					return backtrack(trace, n, m, d);
+				}
+			}
+		}
+		return null;
+	}
+
+	private static char[] backtrack(List<int[]> trace, int n, int m, int steps) {
+		StringBuilder reversed = new StringBuilder(n + m);
+		int x = n;
+		int y = m;
+		for (int d = steps; d > 0; d--) {
+			int[] previous = trace.get(d);
+			int k = x - y;
+			int previousK;
+			if (k == -d || (k != d && previous[k - 1 + d] < previous[k + 1 + d])) {
+				previousK = k + 1;
+			} else {
+				previousK = k - 1;
+			}
+			int previousX = previous[previousK + d];
+			int previousY = previousX - previousK;
+			while (x > previousX && y > previousY) {
+				reversed.append('=');
+				x--;
+				y--;
+			}
+			reversed.append(x == previousX ? '+' : '-');
+			x = previousX;
+			y = previousY;
+		}
+		while (x > 0 && y > 0) {
+			reversed.append('=');
+			x--;
+			y--;
+		}
+		return reversed.reverse().toString().toCharArray();
+	}
+
+	// Lines with their terminators, so the lengths add up to the text
+	private static List<String> lines(String text) {
+		List<String> lines = new ArrayList<>();
+		int start = 0;
+		while (start < text.length()) {
+			int end = text.indexOf('\n', start);
+			end = end < 0 ? text.length() : end + 1;
+			lines.add(text.substring(start, end));
+			start = end;
+		}
+		return lines;
+	}
+
+}
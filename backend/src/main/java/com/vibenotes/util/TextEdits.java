@@ -0,0 +1,62 @@
+package com.vibenotes.util;
+
+import com.vibenotes.dto.TextEdit;
+
+import java.util.List;
+
+public final class TextEdits {
+
+	private TextEdits() {
+	}
+
+	// Edits must be in ascending order and not overlap
+	public static String apply(String base, List<TextEdit> edits) {
+		int growth = 0;
+		for (TextEdit edit : edits) {
+			if (edit == null) {
+				continue;
+			}
+			String insert = edit.getInsert();
+			growth += (insert != null ? insert.length() : 0) - (edit.getDelete() != null ? edit.getDelete() : 0);
+		}
+		StringBuilder out = new StringBuilder(Math.max(0, base.length() + growth));
+		int position = 0;
+		for (TextEdit edit : edits) {
+			if (edit == null || edit.getOffset() == null) {
+				throw new IllegalArgumentException("Every edit needs an offset");
+			}
+			int offset = edit.getOffset();
+			int delete = edit.getDelete() != null ? edit.getDelete() : 0;
+			if (offset < position || delete < 0 || offset > base.length() - delete) {
+				throw new IllegalArgumentException("Edits must lie within the base text, in ascending order, without overlapping");
+			}
+			out.append(base, position, offset);
+			if (edit.getInsert() != null) {
+				out.append(edit.getInsert());
+			}
+			position = offset + delete;
+		}
+		out.append(base, position, base.length());
+		return out.toString();
+	}
+
+	// Bytes the text takes up as UTF-8, without encoding it
+	public static long utf8Length(CharSequence text) {
+		long length = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,84 @@
+-- Brings a database created by an earlier release up to the current entity mappings.
+-- Runs before Hibernate validates the schema (SchemaUpgradeConfig), only when the users table
+-- already exists, and must stay idempotent. Rows already present keep their serial ids; schema.sql
+-- moves the new sequences past them.
+
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS notes_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS note_attachments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS note_revisions_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS import_jobs_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS import_job_entries_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS updated_at timestamp(6);
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version integer DEFAULT 0 NOT NULL;
+
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS change_seq bigint;
+CREATE INDEX IF NOT EXISTS idx_notes_user_updated ON notes (user_id, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_notes_user_public_updated ON notes (user_id, is_public, updated_at, id);
+CREATE INDEX IF NOT EXISTS idx_notes_user_change_seq ON notes (user_id, change_seq);
+
+ALTER TABLE note_attachments ADD COLUMN IF NOT EXISTS sha256 varchar(64);
+CREATE INDEX IF NOT EXISTS idx_note_attachments_note ON note_attachments (note_id);
+
+CREATE TABLE IF NOT EXISTS note_tombstones (
+	change_seq bigint NOT NULL,
+	deleted_at timestamp(6) NOT NULL,
+	entity_id bigint NOT NULL,
+	note_id bigint NOT NULL,
+	user_id bigint NOT NULL,
+	entity_type varchar(16) NOT NULL CHECK (entity_type IN ('NOTE', 'ATTACHMENT')),
+	PRIMARY KEY (change_seq)
+);
+CREATE INDEX IF NOT EXISTS idx_note_tombstones_user_change_seq ON note_tombstones (user_id, change_seq);
+
+CREATE TABLE IF NOT EXISTS attachment_blobs (
+	ref_count integer NOT NULL,
+	created_at timestamp(6),
+	size bigint NOT NULL,
+	sha256 varchar(64) NOT NULL,
+	PRIMARY KEY (sha256)
+);
+
+CREATE TABLE IF NOT EXISTS note_revisions (
+	content_length integer NOT NULL,
+	number integer NOT NULL,
+	stored_size integer NOT NULL,
+	id bigint NOT NULL,
+	note_id bigint NOT NULL,
+	saved_at timestamp(6),
+	kind varchar(16) NOT NULL CHECK (kind IN ('SNAPSHOT', 'DELTA')),
+	title varchar(200) NOT NULL,
+	data bytea NOT NULL,
+	PRIMARY KEY (id),
+	CONSTRAINT uk_note_revisions_note_number UNIQUE (note_id, number)
+);
+
+CREATE TABLE IF NOT EXISTS import_jobs (
+	attachments_imported integer NOT NULL,
+	entries_skipped integer NOT NULL,
+	notes_imported integer NOT NULL,
+	bytes_read bigint NOT NULL,
+	completed_at timestamp(6),
+	created_at timestamp(6),
+	entries_processed bigint NOT NULL,
+	id bigint NOT NULL,
+	updated_at timestamp(6),
+	user_id bigint NOT NULL,
+	status varchar(16) NOT NULL CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED')),
+	error varchar(500),
+	PRIMARY KEY (id)
+);
+CREATE INDEX IF NOT EXISTS idx_import_jobs_user_id ON import_jobs (user_id);
+
+CREATE TABLE IF NOT EXISTS import_job_entries (
+	attachment_id bigint,
+	id bigint NOT NULL,
+	job_id bigint NOT NULL,
+	note_id bigint,
+	status varchar(16) NOT NULL CHECK (status IN ('PENDING', 'IMPORTED', 'SKIPPED')),
+	message varchar(500),
+	path varchar(1024) NOT NULL,
+	PRIMARY KEY (id),
+	CONSTRAINT uk_import_job_entries_job_path UNIQUE (job_id, path)
+);
@@ -0,0 +1,81 @@
+-- Schema objects Hibernate cannot express through entity mappings.
+-- Runs after Hibernate's DDL step (spring.jpa.defer-datasource-initialization) and must stay idempotent.
+
+-- Entity ids come from pooled sequences (allocationSize 50) so inserts can be batched. Rows
+-- inserted before that were numbered by the tables' serial columns, so move each sequence past
+-- them once.
+SELECT setval('users_seq', (SELECT MAX(id) FROM users) + 50)
+	WHERE (SELECT last_value FROM users_seq) <= (SELECT COALESCE(MAX(id), 0) FROM users);
+SELECT setval('notes_seq', (SELECT MAX(id) FROM notes) + 50)
+	WHERE (SELECT last_value FROM notes_seq) <= (SELECT COALESCE(MAX(id), 0) FROM notes);
+SELECT setval('note_attachments_seq', (SELECT MAX(id) FROM note_attachments) + 50)
+	WHERE (SELECT last_value FROM note_attachments_seq) <= (SELECT COALESCE(MAX(id), 0) FROM note_attachments);
+
+-- Full-text search over note titles (weight A) and bodies (weight B)
+ALTER TABLE notes ADD COLUMN IF NOT EXISTS search_vector tsvector
+	GENERATED ALWAYS AS (
+		setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+		setweight(to_tsvector('english', coalesce(content, '')), 'B')
+	) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_notes_search_vector ON notes USING GIN (search_vector);
+
+-- Change feed (GET /api/notes/changes). Every write to a note, including adding or removing one
+-- of its attachments, moves notes.change_seq to the next value of note_change_seq; deletions
+-- leave a row in note_tombstones numbered from the same sequence. Attachment changes touch
+-- their note's row and leave the numbering to the notes trigger. Writers take the per-user
+-- lock in NoteRepository.lockChanges first, so numbers commit in order for each user.
+-- Function bodies are single-quoted because the script is split on semicolons.
+CREATE SEQUENCE IF NOT EXISTS note_change_seq;
+
+UPDATE notes SET change_seq = nextval('note_change_seq') WHERE change_seq IS NULL;
+
+CREATE OR REPLACE FUNCTION notes_next_change_seq() RETURNS trigger AS '
+BEGIN
+	NEW.change_seq := nextval(''note_change_seq'');
+	RETURN NEW;
+END
+' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS notes_change_seq ON notes;
+CREATE TRIGGER notes_change_seq BEFORE INSERT OR UPDATE ON notes
+	FOR EACH ROW EXECUTE FUNCTION notes_next_change_seq();
+
+CREATE OR REPLACE FUNCTION notes_record_deletion() RETURNS trigger AS '
+BEGIN
+	INSERT INTO note_tombstones (change_seq, user_id, entity_type, entity_id, note_id, deleted_at)
+	VALUES (nextval(''note_change_seq''), OLD.user_id, ''NOTE'', OLD.id, OLD.id, now());
+	RETURN NULL;
+END
+' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS notes_tombstone ON notes;
+CREATE TRIGGER notes_tombstone AFTER DELETE ON notes
+	FOR EACH ROW EXECUTE FUNCTION notes_record_deletion();
+
+CREATE OR REPLACE FUNCTION note_attachments_record_change() RETURNS trigger AS '
+BEGIN
+	IF TG_OP = ''DELETE'' THEN
+		INSERT INTO note_tombstones (change_seq, user_id, entity_type, entity_id, note_id, deleted_at)
+		SELECT nextval(''note_change_seq''), n.user_id, ''ATTACHMENT'', OLD.id, OLD.note_id, now()
+		FROM notes n WHERE n.id = OLD.note_id;
+		UPDATE notes SET change_seq = NULL WHERE id = OLD.note_id;
+	ELSE
+		UPDATE notes SET change_seq = NULL WHERE id = NEW.note_id;
+	END IF;
+	RETURN NULL;
+END
+' LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS note_attachments_change ON note_attachments;
+CREATE TRIGGER note_attachments_change AFTER INSERT OR DELETE ON note_attachments
+	FOR EACH ROW EXECUTE FUNCTION note_attachments_record_change();
+
+-- Tombstones older than notes.tombstones.retention are pruned by TombstoneRetentionJob. The
+-- highest change_seq pruned so far is kept in this single row; a feed position below it may
+-- have missed a deletion, so the change feed answers it with 410 and the client syncs afresh.
+CREATE TABLE IF NOT EXISTS note_change_horizon (
+	id int PRIMARY KEY CHECK (id = 1),
+	pruned_through bigint NOT NULL
+);
+INSERT INTO note_change_horizon (id, pruned_through) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
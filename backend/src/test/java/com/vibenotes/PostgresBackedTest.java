@@ -0,0 +1,46 @@
+package com.vibenotes;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Full application context on a throwaway Postgres, shared by every subclass in the run
+@SpringBootTest
+public abstract class PostgresBackedTest {
+
+	private static final EmbeddedPostgres POSTGRES = start();
+	private static final Path FILES = tempDir();
+
+	@DynamicPropertySource
+	static void postgresProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+		registry.add("spring.datasource.username", () -> "postgres");
+		registry.add("spring.datasource.password", () -> "postgres");
+		registry.add("file.upload.avatar.dir", () -> FILES.resolve("avatars").toString());
+		registry.add("file.upload.attachment.dir", () -> FILES.resolve("attachments").toString());
+		registry.add("search.index.dir", () -> FILES.resolve("search-index").toString());
+	}
+
+	private static EmbeddedPostgres start() {
+		try {
+			return EmbeddedPostgres.start();
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+	private static Path tempDir() {
+		try {
+			return Files.createTempDirectory("vibenotes-test");
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,187 @@
+package com.vibenotes.service;
+
+import com.vibenotes.PostgresBackedTest;
+import com.vibenotes.dto.CreateNoteRequest;
+import com.vibenotes.dto.NoteChangesResponse;
+import com.vibenotes.dto.NoteResponse;
+import com.vibenotes.dto.TombstoneResponse;
+import com.vibenotes.dto.UpdateNoteRequest;
+import com.vibenotes.exception.ResyncRequiredException;
+import com.vibenotes.model.User;
+import com.vibenotes.repository.NoteTombstoneRepository;
+import com.vibenotes.repository.UserRepository;
+import com.vibenotes.security.AuthenticatedUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteChangesTest extends PostgresBackedTest {
+
+	private static final AtomicInteger USERS = new AtomicInteger();
+
+	@Autowired
+	private NoteService noteService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private NoteTombstoneRepository tombstoneRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private AuthenticatedUser owner;
+
+	@BeforeEach
+	void createOwner() {
+		User user = new User();
+		user.setUsername("changes-" + USERS.incrementAndGet() + "-" + System.nanoTime());
+		user.setPassword("unused");
+		userRepository.save(user);
+		owner = new AuthenticatedUser(user.getId(), user.getUsername());
+	}
+
+	@Test
+	void mergesNotesAndTombstonesInChangeOrder() {
+		Long a = create("a");
+		Long b = create("b");
+		Long c = create("c");
+		noteService.deleteNote(owner, b);
+		update(a, "a2");
+
+		// One change per page: c, then the deletion of b, then a, which moved past both
+		List<String> seen = new ArrayList<>();
+		long since = 0;
+		long previous = 0;
+		NoteChangesResponse page;
+		do {
+			page = noteService.getChanges(owner, since, 1);
+			assertEquals(1, page.getNotes().size() + page.getDeleted().size());
+			page.getNotes().forEach(note -> seen.add("changed " + note.getId()));
+			page.getDeleted().forEach(tombstone -> seen.add("deleted " + tombstone.getType() + " " + tombstone.getId()));
+			assertTrue(page.getCursor() > previous);
+			previous = page.getCursor();
+			since = page.getCursor();
+		} while (page.isHasMore());
+		assertEquals(List.of("changed " + c, "deleted note " + b, "changed " + a), seen);
+
+		NoteChangesResponse rest = noteService.getChanges(owner, since, 10);
+		assertTrue(rest.getNotes().isEmpty());
+		assertTrue(rest.getDeleted().isEmpty());
+		assertEquals(since, rest.getCursor());
+		assertFalse(rest.isHasMore());
+	}
+
+	@Test
+	void reportsOnlyChangesAfterSince() {
+		Long kept = create("kept");
+		long since = noteService.getChanges(owner, 0L, 10).getCursor();
+		Long added = create("added");
+		noteService.deleteNote(owner, kept);
+
+		NoteChangesResponse changes = noteService.getChanges(owner, since, 10);
+		assertEquals(List.of(added), changes.getNotes().stream().map(NoteResponse::getId).toList());
+		assertEquals(1, changes.getDeleted().size());
+		TombstoneResponse tombstone = changes.getDeleted().get(0);
+		assertEquals("note", tombstone.getType());
+		assertEquals(kept, tombstone.getId());
+		assertEquals(kept, tombstone.getNoteId());
+	}
+
+	@Test
+	void attachmentChangesMoveTheirNote() {
+		Long noteId = create("with attachment");
+		long since = noteService.getChanges(owner, 0L, 10).getCursor();
+
+		Long attachmentId = jdbcTemplate.queryForObject(
+				"INSERT INTO note_attachments (id, note_id, filename, original_filename, file_size, uploaded_at) " +
+				"VALUES (nextval('note_attachments_seq'), ?, 'stored.txt', 'a.txt', 1, now()) RETURNING id",
+				Long.class, noteId);
+		NoteChangesResponse added = noteService.getChanges(owner, since, 10);
+		assertEquals(List.of(noteId), added.getNotes().stream().map(NoteResponse::getId).toList());
+		assertTrue(added.getCursor() > since);
+
+		jdbcTemplate.update("DELETE FROM note_attachments WHERE id = ?", attachmentId);
+		NoteChangesResponse removed = noteService.getChanges(owner, added.getCursor(), 10);
+		assertEquals(List.of(noteId), removed.getNotes().stream().map(NoteResponse::getId).toList());
+		assertEquals(1, removed.getDeleted().size());
+		TombstoneResponse tombstone = removed.getDeleted().get(0);
+		assertEquals("attachment", tombstone.getType());
+		assertEquals(attachmentId, tombstone.getId());
+		assertEquals(noteId, tombstone.getNoteId());
+	}
+
+	@Test
+	void fullSyncPagesPastThePrunedHorizon() {
+		Long first = create("first");
+		Long second = create("second");
+		long sinceBeforePrune = noteService.getChanges(owner, 0L, 10).getCursor();
+		long horizon = pruneOneDeletion();
+
+		// Positions below the horizon may have missed a deletion
+		assertThrows(ResyncRequiredException.class, () -> noteService.getChanges(owner, sinceBeforePrune, 10));
+
+		// A full sync still pages through notes older than the horizon, with negative cursors
+		NoteChangesResponse page1 = noteService.getChanges(owner, 0L, 1);
+		assertEquals(List.of(first), page1.getNotes().stream().map(NoteResponse::getId).toList());
+		assertTrue(page1.isHasMore());
+		assertTrue(page1.getCursor() < 0);
+
+		NoteChangesResponse page2 = noteService.getChanges(owner, page1.getCursor(), 1);
+		assertEquals(List.of(second), page2.getNotes().stream().map(NoteResponse::getId).toList());
+		assertFalse(page2.isHasMore());
+		// The last page lifts the cursor to the horizon, so the next incremental sync is accepted
+		assertEquals(horizon, page2.getCursor());
+
+		Long later = create("later");
+		NoteChangesResponse next = noteService.getChanges(owner, page2.getCursor(), 10);
+		assertEquals(List.of(later), next.getNotes().stream().map(NoteResponse::getId).toList());
+	}
+
+	@Test
+	void rejectsTheSmallestLong() {
+		assertThrows(IllegalArgumentException.class, () -> noteService.getChanges(owner, Long.MIN_VALUE, 10));
+	}
+
+	// Deletes a note of another user and prunes its tombstone; returns the new horizon
+	private long pruneOneDeletion() {
+		AuthenticatedUser tested = owner;
+		createOwner();
+		Long doomed = create("doomed");
+		noteService.deleteNote(owner, doomed);
+		owner = tested;
+		jdbcTemplate.update("UPDATE note_tombstones SET deleted_at = ? WHERE entity_id = ? AND entity_type = 'NOTE'",
+				LocalDateTime.now().minusDays(2), doomed);
+		while (tombstoneRepository.pruneBatch(LocalDateTime.now().minusDays(1), 1000) > 0) {
+			// Batches until nothing older is left
+		}
+		return tombstoneRepository.findPrunedThrough();
+	}
+
+	private Long create(String title) {
+		CreateNoteRequest request = new CreateNoteRequest();
+		request.setTitle(title);
+		request.setContent(title + " body");
+		request.setIsPublic(false);
+		return noteService.createNote(owner, request).getId();
+	}
+
+	private void update(Long id, String title) {
+		UpdateNoteRequest request = new UpdateNoteRequest();
+		request.setTitle(title);
+		noteService.updateNote(owner, id, request);
+	}
+
+}
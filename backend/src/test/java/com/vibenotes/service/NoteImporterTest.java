@@ -0,0 +1,176 @@
+package com.vibenotes.service;
+
+import com.vibenotes.PostgresBackedTest;
+import com.vibenotes.dto.ImportJobResponse;
+import com.vibenotes.model.ImportJobEntry;
+import com.vibenotes.model.Note;
+import com.vibenotes.model.User;
+import com.vibenotes.repository.NoteRepository;
+import com.vibenotes.repository.UserRepository;
+import com.vibenotes.security.AuthenticatedUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteImporterTest extends PostgresBackedTest {
+
+	private static final AtomicInteger USERS = new AtomicInteger();
+
+	@Autowired
+	private NoteImporter importer;
+
+	@Autowired
+	private NoteImportService importService;
+
+	@Autowired
+	private NoteRepository noteRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private AuthenticatedUser owner;
+
+	@BeforeEach
+	void createOwner() {
+		User user = new User();
+		user.setUsername("import-" + USERS.incrementAndGet() + "-" + System.nanoTime());
+		user.setPassword("unused");
+		userRepository.save(user);
+		owner = new AuthenticatedUser(user.getId(), user.getUsername());
+	}
+
+	@Test
+	void importsOnlyPathsInsideTheArchiveRoot() throws IOException {
+		byte[] archive = zip(
+				"../escape.md", "x",
+				"notes/../../escape2.md", "x",
+				".hidden.md", "x",
+				"notes/.git/config.md", "x",
+				"__MACOSX/notes/._kept.md", "x",
+				"./dot-slash.md", "kept",
+				"/absolute.md", "kept",
+				"windows\\style.md", "kept",
+				"notes/kept.md", "kept");
+		ImportJobResponse job = run(archive);
+
+		assertEquals("completed", job.getStatus());
+		assertEquals(List.of("absolute", "dot-slash", "kept", "style"), titles());
+		Map<String, ImportJobEntry> entries = importService.findEntries(job.getId());
+		assertEquals(4, entries.size());
+		assertTrue(entries.containsKey("windows/style.md"));
+		assertTrue(entries.containsKey("absolute.md"));
+	}
+
+	@Test
+	void resumesAfterABrokenUpload() throws IOException {
+		byte[] archive = zip(
+				"a.md", "first",
+				"b.md", "second",
+				"c.md", HexFormat.of().formatHex(randomBytes(4000)),
+				"d.md", "fourth");
+		Long jobId = importService.createJob(owner).getId();
+
+		// Cut inside c.md: a and b are saved before the run stops
+		int cut = indexOf(archive, "c.md".getBytes(StandardCharsets.UTF_8)) + 200;
+		ImportJobResponse broken = importer.run(owner, jobId,
+				new ByteArrayInputStream(Arrays.copyOf(archive, cut)));
+		assertEquals("failed", broken.getStatus());
+		assertNotNull(broken.getError());
+		assertEquals(List.of("a", "b"), titles());
+
+		// Uploading again skips the entries already recorded
+		ImportJobResponse resumed = importer.run(owner, jobId, new ByteArrayInputStream(archive));
+		assertEquals("completed", resumed.getStatus());
+		assertNull(resumed.getError());
+		assertEquals(4, resumed.getNotesImported());
+		assertEquals(List.of("a", "b", "c", "d"), titles());
+
+		// A third upload finds everything done
+		ImportJobResponse again = importer.run(owner, jobId, new ByteArrayInputStream(archive));
+		assertEquals("completed", again.getStatus());
+		assertEquals(List.of("a", "b", "c", "d"), titles());
+	}
+
+	@Test
+	void fillsInANoteCreatedForItsAttachment() throws IOException {
+		byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("trip/photo.png"));
+			zip.write(png);
+			zip.closeEntry();
+			zip.putNextEntry(new ZipEntry("trip.md"));
+			zip.write("---\ntitle: \"Trip\"\npublic: false\n---\nNotes".getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+		ImportJobResponse job = run(bytes.toByteArray());
+
+		assertEquals("completed", job.getStatus());
+		assertEquals(1, job.getNotesImported());
+		assertEquals(1, job.getAttachmentsImported());
+		List<Note> notes = noteRepository.findByUserIdOrderByUpdatedAtDescIdDesc(owner.getId(), Limit.of(10));
+		assertEquals(1, notes.size());
+		assertEquals("Trip", notes.get(0).getTitle());
+		assertEquals("Notes", notes.get(0).getContent());
+	}
+
+	private ImportJobResponse run(byte[] archive) {
+		Long jobId = importService.createJob(owner).getId();
+		return importer.run(owner, jobId, new ByteArrayInputStream(archive));
+	}
+
+	private List<String> titles() {
+		return noteRepository.findByUserIdOrderByUpdatedAtDescIdDesc(owner.getId(), Limit.of(100)).stream()
+				.map(Note::getTitle)
+				.sorted()
+				.toList();
+	}
+
+	// Alternating names and contents
+	private static byte[] zip(String... entries) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			for (int i = 0; i < entries.length; i += 2) {
+				zip.putNextEntry(new ZipEntry(entries[i]));
+				zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+				zip.closeEntry();
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static byte[] randomBytes(int count) {
+		byte[] bytes = new byte[count];
+		new Random(1).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static int indexOf(byte[] data, byte[] part) {
+		for (int i = 0; i + part.length <= data.length; i++) {
+			if (Arrays.equals(data, i, i + part.length, part, 0, part.length)) {
+				return i;
+			}
+		}
+		throw new IllegalArgumentException("Not found");
+	}
+
+}
@@ -0,0 +1,164 @@
+package com.vibenotes.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveReaderTest {
+
+	@Test
+	void readsZipFilesAndSkipsDirectories() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("notes/"));
+			zip.closeEntry();
+			addZipEntry(zip, "notes/a.md", "first");
+			addZipEntry(zip, "notes/a/ünïcode.txt", "second");
+		}
+		Map<String, String> expected = new LinkedHashMap<>();
+		expected.put("notes/a.md", "first");
+		expected.put("notes/a/ünïcode.txt", "second");
+		assertEquals(expected, readAll(bytes.toByteArray()));
+	}
+
+	@Test
+	void readsUstarNames() throws IOException {
+		byte[] tar = new TarBuilder()
+				.directory("notes/")
+				.file("notes/a.md", "first")
+				.prefixedFile("deeply/nested/notes", "b.md", "second")
+				.symlink("notes/link.md")
+				.file("empty.md", "")
+				.build();
+		Map<String, String> expected = new LinkedHashMap<>();
+		expected.put("notes/a.md", "first");
+		expected.put("deeply/nested/notes/b.md", "second");
+		expected.put("empty.md", "");
+		assertEquals(expected, readAll(tar));
+	}
+
+	@Test
+	void readsGnuLongNamesPaxPathsAndBase256Sizes() throws IOException {
+		String longName = "notes/" + "x".repeat(150) + ".md";
+		String paxName = "notes/" + "ü".repeat(80) + "/picture.png";
+		byte[] tar = new TarBuilder()
+				.gnuLongName(longName, "long")
+				.paxPath(paxName, "pax")
+				.base256File("big.md", "sized in base-256")
+				.file("after.md", "plain")
+				.build();
+		Map<String, String> expected = new LinkedHashMap<>();
+		expected.put(longName, "long");
+		expected.put(paxName, "pax");
+		expected.put("big.md", "sized in base-256");
+		expected.put("after.md", "plain");
+		assertEquals(expected, readAll(tar));
+	}
+
+	@Test
+	void readsGzippedTar() throws IOException {
+		byte[] tarGz = new TarBuilder()
+				.file("a.md", "first")
+				.paxPath("b/" + "y".repeat(120) + ".md", "second")
+				.buildGzipped();
+		Map<String, String> entries = readAll(tarGz);
+		assertEquals(2, entries.size());
+		assertEquals("first", entries.get("a.md"));
+		assertEquals("second", entries.get("b/" + "y".repeat(120) + ".md"));
+	}
+
+	@Test
+	void paxHeaderWithoutPathKeepsTheHeaderName() throws IOException {
+		byte[] tar = new TarBuilder()
+				.paxHeader(TarBuilder.paxRecord("mtime", "1700000000"))
+				.file("plain.md", "content")
+				.build();
+		assertEquals(Map.of("plain.md", "content"), readAll(tar));
+	}
+
+	@Test
+	void skipsWhatWasLeftUnread() throws IOException {
+		String large = "z".repeat(5000);
+		byte[] tar = new TarBuilder().file("large.md", large).file("next.md", "next").build();
+		ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(tar));
+		assertEquals("large.md", reader.nextEntry());
+		assertEquals('z', reader.entryStream().read());
+		assertEquals("next.md", reader.nextEntry());
+		assertEquals("next", new String(reader.entryStream().readAllBytes(), StandardCharsets.UTF_8));
+		assertNull(reader.nextEntry());
+		assertEquals(tar.length, reader.getBytesRead());
+	}
+
+	@Test
+	void rejectsOversizedPaxHeaders() throws IOException {
+		byte[] records = TarBuilder.paxRecord("comment", "c".repeat(70 * 1024));
+		byte[] tar = new TarBuilder().paxHeader(records).file("a.md", "content").build();
+		ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(tar));
+		assertThrows(IllegalArgumentException.class, reader::nextEntry);
+	}
+
+	@Test
+	void reportsTruncatedTar() throws IOException {
+		byte[] tar = new TarBuilder().file("a.md", "x".repeat(2000)).build();
+		byte[] truncated = Arrays.copyOf(tar, 1024);
+		ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(truncated));
+		assertEquals("a.md", reader.nextEntry());
+		assertThrows(EOFException.class, () -> reader.entryStream().readAllBytes());
+	}
+
+	@Test
+	void rejectsOtherFormats() {
+		assertThrows(IllegalArgumentException.class,
+				() -> ArchiveReader.open(new ByteArrayInputStream("just text".getBytes(StandardCharsets.UTF_8))));
+		assertThrows(IllegalArgumentException.class, () -> ArchiveReader.open(new ByteArrayInputStream(new byte[0])));
+	}
+
+	@Test
+	void entryStreamCloseLeavesTheArchiveOpen() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			addZipEntry(zip, "a.md", "first");
+			addZipEntry(zip, "b.md", "second");
+		}
+		ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(bytes.toByteArray()));
+		assertEquals("a.md", reader.nextEntry());
+		reader.entryStream().close();
+		assertEquals("b.md", reader.nextEntry());
+		assertEquals("second", new String(reader.entryStream().readAllBytes(), StandardCharsets.UTF_8));
+		assertTrue(reader.getBytesRead() > 0);
+	}
+
+	private static Map<String, String> readAll(byte[] archive) throws IOException {
+		ArchiveReader reader = ArchiveReader.open(new ByteArrayInputStream(archive));
+		Map<String, String> entries = new LinkedHashMap<>();
+		String name;
+		while ((name = reader.nextEntry()) != null) {
+			try (InputStream entry = reader.entryStream()) {
+				entries.put(name, new String(entry.readAllBytes(), StandardCharsets.UTF_8));
+			}
+		}
+		return entries;
+	}
+
+	private static void addZipEntry(ZipOutputStream zip, String name, String content) throws IOException {
+		zip.putNextEntry(new ZipEntry(name));
+		zip.write(content.getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+	}
+
+}
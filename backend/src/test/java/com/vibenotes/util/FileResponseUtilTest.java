@@ -0,0 +1,174 @@
+package com.vibenotes.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileResponseUtilTest {
+
+	// 100 bytes: "0123456789" ten times
+	private static final String CONTENT = "0123456789".repeat(10);
+
+	@TempDir
+	Path dir;
+
+	private Path file;
+
+	@BeforeEach
+	void writeFile() throws IOException {
+		file = dir.resolve("file.txt");
+		Files.writeString(file, CONTENT, StandardCharsets.US_ASCII);
+	}
+
+	@Test
+	void sendsTheWholeFileWithoutRange() throws IOException {
+		MockHttpServletResponse response = get(null, null);
+		assertEquals(200, response.getStatus());
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertEquals(CONTENT, response.getContentAsString());
+	}
+
+	@Test
+	void sendsASingleRange() throws IOException {
+		MockHttpServletResponse response = get("bytes=10-14", null);
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 10-14/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("01234", response.getContentAsString());
+		assertEquals(5, response.getContentLengthLong());
+	}
+
+	@Test
+	void sendsSuffixAndOpenEndedRanges() throws IOException {
+		MockHttpServletResponse suffix = get("bytes=-3", null);
+		assertEquals(206, suffix.getStatus());
+		assertEquals("bytes 97-99/100", suffix.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("789", suffix.getContentAsString());
+
+		MockHttpServletResponse longSuffix = get("bytes=-500", null);
+		assertEquals(206, longSuffix.getStatus());
+		assertEquals("bytes 0-99/100", longSuffix.getHeader(HttpHeaders.CONTENT_RANGE));
+
+		MockHttpServletResponse openEnded = get("bytes=95-", null);
+		assertEquals("bytes 95-99/100", openEnded.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("56789", openEnded.getContentAsString());
+
+		MockHttpServletResponse pastEnd = get("bytes=98-1000", null);
+		assertEquals("bytes 98-99/100", pastEnd.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void sendsSeveralRangesAsMultipart() throws IOException {
+		MockHttpServletResponse response = get("bytes=0-1, 50-52", null);
+		assertEquals(206, response.getStatus());
+		String contentType = response.getContentType();
+		assertTrue(contentType.startsWith("multipart/byteranges; boundary="), contentType);
+		String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+		String body = response.getContentAsString();
+		assertEquals(body.getBytes(StandardCharsets.US_ASCII).length, response.getContentLengthLong());
+		String expected = "\r\n--" + boundary + "\r\n" +
+				"Content-Type: text/plain\r\nContent-Range: bytes 0-1/100\r\n\r\n01" +
+				"\r\n--" + boundary + "\r\n" +
+				"Content-Type: text/plain\r\nContent-Range: bytes 50-52/100\r\n\r\n012" +
+				"\r\n--" + boundary + "--\r\n";
+		assertEquals(expected, body);
+	}
+
+	@Test
+	void allowsOverlapUpToTheFileSize() throws IOException {
+		MockHttpServletResponse response = get("bytes=0-9, 5-14", null);
+		assertEquals(206, response.getStatus());
+		assertTrue(response.getContentType().startsWith("multipart/byteranges"));
+	}
+
+	@Test
+	void refusesOverlappingRangesAddingUpToMoreThanTheFile() throws IOException {
+		MockHttpServletResponse response = get("bytes=0-99, 0-99", null);
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+
+		MockHttpServletResponse manySmall = get("bytes=" + "0-59,".repeat(2) + "60-61", null);
+		assertEquals(416, manySmall.getStatus());
+	}
+
+	@Test
+	void refusesUnsatisfiableRanges() throws IOException {
+		MockHttpServletResponse response = get("bytes=100-200", null);
+		assertEquals(416, response.getStatus());
+		assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(0, response.getContentAsByteArray().length);
+
+		assertEquals(416, get("bytes=-0", null).getStatus());
+		assertEquals(416, get("bytes=0-1," + "2-2,".repeat(100) + "3-3", null).getStatus());
+	}
+
+	@Test
+	void dropsUnsatisfiableRangesFromASet() throws IOException {
+		MockHttpServletResponse response = get("bytes=200-300, 0-2", null);
+		assertEquals(206, response.getStatus());
+		assertEquals("bytes 0-2/100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals("012", response.getContentAsString());
+	}
+
+	@Test
+	void honoursIfRangeWithTheCurrentStrongETag() throws IOException {
+		String eTag = get(null, null).getHeader(HttpHeaders.ETAG);
+		MockHttpServletResponse response = get("bytes=0-1", eTag);
+		assertEquals(206, response.getStatus());
+		assertEquals("01", response.getContentAsString());
+	}
+
+	@Test
+	void sendsTheWholeFileForAWeakOrStaleIfRange() throws IOException {
+		String eTag = get(null, null).getHeader(HttpHeaders.ETAG);
+
+		MockHttpServletResponse weak = get("bytes=0-1", "W/" + eTag);
+		assertEquals(200, weak.getStatus());
+		assertNull(weak.getHeader(HttpHeaders.CONTENT_RANGE));
+		assertEquals(CONTENT, weak.getContentAsString());
+
+		MockHttpServletResponse stale = get("bytes=0-1", "\"not-the-current-tag\"");
+		assertEquals(200, stale.getStatus());
+		assertEquals(CONTENT, stale.getContentAsString());
+	}
+
+	@Test
+	void honoursIfRangeWithTheLastModifiedDate() throws IOException {
+		Instant modified = Files.getLastModifiedTime(file).toInstant();
+		assertEquals(206, get("bytes=0-1", httpDate(modified)).getStatus());
+		assertEquals(200, get("bytes=0-1", httpDate(modified.minusSeconds(60))).getStatus());
+	}
+
+	private MockHttpServletResponse get(String range, String ifRange) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/file.txt");
+		if (range != null) {
+			request.addHeader(HttpHeaders.RANGE, range);
+		}
+		if (ifRange != null) {
+			request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FileResponseUtil.write(request, response, file, "text/plain", "inline");
+		return response;
+	}
+
+	private static String httpDate(Instant instant) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atOffset(ZoneOffset.UTC));
+	}
+
+}
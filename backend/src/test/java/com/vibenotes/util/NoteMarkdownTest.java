@@ -0,0 +1,105 @@
+package com.vibenotes.util;
+
+import com.vibenotes.model.Note;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NoteMarkdownTest {
+
+	@Test
+	void renderedNotesParseBack() {
+		String[][] samples = {
+			{"Groceries", "- milk\n- bread\n"},
+			{"Quotes \"inside\" and: colons", "body"},
+			{"Ünïcödé 😀 title", "content with 😀\r\nand CRLF\r\n"},
+			{"  padded  ", "---\nnot front matter, just content that looks like it\n---\n"},
+			{"# not a heading", "# A heading in the body\n"},
+			{"Backslash \\ and tab \t", "\n\nleading blank lines"}
+		};
+		for (String[] sample : samples) {
+			for (boolean isPublic : new boolean[] {false, true}) {
+				Note note = note(sample[0], sample[1], isPublic);
+				NoteMarkdown.Parsed parsed = NoteMarkdown.parse(NoteMarkdown.render(note, List.of()), "fallback");
+				assertEquals(sample[0].strip(), parsed.getTitle());
+				assertEquals(sample[1], parsed.getContent());
+				assertEquals(isPublic, parsed.isPublic());
+			}
+		}
+	}
+
+	@Test
+	void attachmentListDoesNotLeakIntoTheContent() {
+		Note note = note("With files", "text", false);
+		String rendered = NoteMarkdown.render(note, List.of("7-with-files/a.png", "7-with-files/b \"c\".pdf"));
+		assertTrue(rendered.contains("attachments:\n  - \"7-with-files/a.png\"\n"));
+		NoteMarkdown.Parsed parsed = NoteMarkdown.parse(rendered, "fallback");
+		assertEquals("With files", parsed.getTitle());
+		assertEquals("text", parsed.getContent());
+	}
+
+	@Test
+	void titleFallsBackToFirstHeadingThenFileName() {
+		assertEquals("Heading", NoteMarkdown.parse("intro\n# Heading\nbody", "file").getTitle());
+		assertEquals("file", NoteMarkdown.parse("no heading here", "file").getTitle());
+		assertEquals("Heading", NoteMarkdown.parse("---\npublic: true\n---\n# Heading\n", "file").getTitle());
+	}
+
+	@Test
+	void readsHandWrittenFrontMatter() {
+		NoteMarkdown.Parsed parsed = NoteMarkdown.parse(
+				"﻿---\r\ntitle: 'It''s mine'\r\npublic: true\r\nextra: ignored\r\n---\r\nbody", "file");
+		assertEquals("It's mine", parsed.getTitle());
+		assertTrue(parsed.isPublic());
+		assertEquals("body", parsed.getContent());
+	}
+
+	@Test
+	void unclosedFrontMatterIsContent() {
+		String text = "---\ntitle: Not really\npublic: true\n";
+		NoteMarkdown.Parsed parsed = NoteMarkdown.parse(text, "file");
+		assertEquals("file", parsed.getTitle());
+		assertFalse(parsed.isPublic());
+		assertEquals(text, parsed.getContent());
+	}
+
+	@Test
+	void longTitlesAreCut() {
+		String title = "t".repeat(300);
+		assertEquals(200, NoteMarkdown.parse("---\ntitle: " + title + "\n---\nbody", "file").getTitle().length());
+	}
+
+	@Test
+	void baseNamesAreSlugsPrefixedWithTheId() {
+		Note note = note("Hello, World! Ünïcode", "x", false);
+		note.setId(42L);
+		assertEquals("42-hello-world-n-code", NoteMarkdown.baseName(note));
+		note.setTitle("😀");
+		assertEquals("42", NoteMarkdown.baseName(note));
+	}
+
+	@Test
+	void safeFileNamesCannotBePaths() {
+		assertEquals("_etc_passwd", NoteMarkdown.safeFileName("/etc/passwd"));
+		assertEquals(".._x", NoteMarkdown.safeFileName("..\\x"));
+		assertEquals("file", NoteMarkdown.safeFileName(".."));
+		assertEquals("file", NoteMarkdown.safeFileName(null));
+	}
+
+	private static Note note(String title, String content, boolean isPublic) {
+		Note note = new Note();
+		note.setId(7L);
+		note.setTitle(title);
+		note.setContent(content);
+		note.setIsPublic(isPublic);
+		note.setCreatedAt(LocalDateTime.of(2024, 1, 5, 10, 15, 30));
+		note.setUpdatedAt(LocalDateTime.of(2024, 1, 6, 8, 0));
+		return note;
+	}
+
+}
@@ -0,0 +1,49 @@
+package com.vibenotes.util;
+
+import java.util.Random;
+
+// Text for round-trip tests: words, LF and CRLF line breaks, accents and surrogate pairs
+final class RandomText {
+
+	private static final String[] PIECES = {
+		"a", "b", "note", "the", " ", " ", "\n", "\n", "\r\n", "é", "€", "中",
+		"😀", "😃", "🎉", "#", "- "
+	};
+
+	private RandomText() {
+	}
+
+	static String of(Random random, int pieces) {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < pieces; i++) {
+			text.append(PIECES[random.nextInt(PIECES.length)]);
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Changes a few spots of {@code base}, each an insertion, deletion or replacement of up to
+	 * a few pieces, with cuts placed so no surrogate pair is split.
+	 */
+	static String mutate(Random random, String base, int changes) {
+		StringBuilder text = new StringBuilder(base);
+		for (int i = 0; i < changes; i++) {
+			int start = boundary(text, random.nextInt(text.length() + 1));
+			int end = boundary(text, Math.min(text.length(), start + random.nextInt(12)));
+			switch (random.nextInt(3)) {
+				case 0 -> text.insert(start, of(random, 1 + random.nextInt(4)));
+				case 1 -> text.delete(start, end);
+				default -> text.replace(start, end, of(random, 1 + random.nextInt(4)));
+			}
+		}
+		return text.toString();
+	}
+
+	private static int boundary(CharSequence text, int index) {
+		if (index > 0 && index < text.length() && Character.isLowSurrogate(text.charAt(index))) {
+			return index - 1;
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.vibenotes.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+// Writes tar archives header by header, so tests control the exact header variants
+final class TarBuilder {
+
+	private static final int BLOCK = 512;
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	TarBuilder file(String name, String content) {
+		return entry(name, '0', content.getBytes(StandardCharsets.UTF_8), false, null);
+	}
+
+	// Name split over the ustar prefix and name fields
+	TarBuilder prefixedFile(String prefix, String name, String content) {
+		return entry(name, '0', content.getBytes(StandardCharsets.UTF_8), false, prefix);
+	}
+
+	// Size field in base-256 instead of octal, as tools write it for entries of 8 GB and more
+	TarBuilder base256File(String name, String content) {
+		return entry(name, '0', content.getBytes(StandardCharsets.UTF_8), true, null);
+	}
+
+	TarBuilder directory(String name) {
+		return entry(name, '5', new byte[0], false, null);
+	}
+
+	TarBuilder symlink(String name) {
+		return entry(name, '2', new byte[0], false, null);
+	}
+
+	TarBuilder gnuLongName(String name, String content) {
+		byte[] longName = (name + "\0").getBytes(StandardCharsets.UTF_8);
+		entry("././@LongLink", 'L', longName, false, null);
+		return entry(name.substring(0, Math.min(99, name.length())), '0',
+				content.getBytes(StandardCharsets.UTF_8), false, null);
+	}
+
+	TarBuilder paxPath(String path, String content) {
+		return paxHeader(paxRecord("path", path)).entry("PaxHeaders/short", '0',
+				content.getBytes(StandardCharsets.UTF_8), false, null);
+	}
+
+	TarBuilder paxHeader(byte[] records) {
+		return entry("PaxHeaders/entry", 'x', records, false, null);
+	}
+
+	byte[] build() {
+		byte[] end = new byte[BLOCK * 2];
+		out.writeBytes(end);
+		return out.toByteArray();
+	}
+
+	byte[] buildGzipped() {
+		ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+		try (GZIPOutputStream gzip = new GZIPOutputStream(gzipped)) {
+			gzip.write(build());
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return gzipped.toByteArray();
+	}
+
+	// "<length> <key>=<value>\n", where length counts the whole record including itself
+	static byte[] paxRecord(String key, String value) {
+		String body = " " + key + "=" + value + "\n";
+		int bodyLength = body.getBytes(StandardCharsets.UTF_8).length;
+		int length = bodyLength + String.valueOf(bodyLength).length();
+		if (String.valueOf(length).length() != String.valueOf(bodyLength).length()) {
+			length++;
+		}
+		return (length + body).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private TarBuilder entry(String name, char type, byte[] data, boolean base256, String prefix) {
+		byte[] header = new byte[BLOCK];
+		put(header, 0, 100, name);
+		put(header, 100, 8, "0000644");
+		put(header, 108, 8, "0000000");
+		put(header, 116, 8, "0000000");
+		if (base256) {
+			header[124] = (byte) 0x80;
+			long size = data.length;
+			for (int i = 135; i > 124; i--) {
+				header[i] = (byte) (size & 0xff);
+				size >>>= 8;
+			}
+		} else {
+			put(header, 124, 12, String.format("%011o", data.length));
+		}
+		put(header, 136, 12, "00000000000");
+		header[156] = (byte) type;
+		put(header, 257, 6, "ustar");
+		put(header, 263, 2, "00");
+		if (prefix != null) {
+			put(header, 345, 155, prefix);
+		}
+		for (int i = 148; i < 156; i++) {
+			header[i] = ' ';
+		}
+		int checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xff;
+		}
+		put(header, 148, 8, String.format("%06o", checksum) + "\0 ");
+		out.writeBytes(header);
+		out.writeBytes(data);
+		out.writeBytes(new byte[(BLOCK - data.length % BLOCK) % BLOCK]);
+		return this;
+	}
+
+	private static void put(byte[] header, int offset, int length, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(bytes, 0, header, offset, Math.min(length, bytes.length));
+	}
+
+}
@@ -0,0 +1,143 @@
+package com.vibenotes.util;
+
+import com.vibenotes.dto.TextEdit;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TextDiffTest {
+
+	@Test
+	void equalTextsGiveNoEdits() {
+		assertTrue(TextDiff.diff("", "").isEmpty());
+		assertTrue(TextDiff.diff("same\ntext\n", "same\ntext\n").isEmpty());
+	}
+
+	@Test
+	void roundTripsWithoutCommonPrefixOrSuffix() {
+		assertRoundTrip("", "new text");
+		assertRoundTrip("old text", "");
+		assertRoundTrip("abc", "xyz");
+		assertRoundTrip("first\nsecond\n", "other\nlines\nhere");
+		assertRoundTrip("x", "xy");
+		assertRoundTrip("yx", "x");
+	}
+
+	@Test
+	void roundTripsCrlfText() {
+		assertRoundTrip("one\r\ntwo\r\nthree\r\n", "one\r\n2\r\nthree\r\n");
+		assertRoundTrip("one\r\ntwo\r\nthree\r\n", "one\ntwo\nthree\n");
+		assertRoundTrip("one\ntwo\nthree", "one\r\ntwo\r\nthree");
+		assertRoundTrip("a\r\nb\r\n", "a\r\nb\r\nc\r\n");
+		assertRoundTrip("a\r\nb", "a\rb");
+	}
+
+	@Test
+	void keepsSurrogatePairsWhole() {
+		// Same high surrogate, different low surrogate: the shared prefix must not take half a pair
+		String[][] pairs = {
+			{"a😀b", "a😃b"},
+			{"😀", "😃"},
+			{"😀x", "😃x"},
+			{"x😀", "x😃"},
+			{"😀😀", "😀"},
+			{"🎉 done\n", "🎉🎉 done\n"},
+			{"line 😀\nnext\n", "line 😃\nnext\n"}
+		};
+		for (String[] pair : pairs) {
+			assertRoundTrip(pair[0], pair[1]);
+			assertRoundTrip(pair[1], pair[0]);
+		}
+	}
+
+	@Test
+	void scatteredLineChangesGiveSmallEdits() {
+		StringBuilder base = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			base.append("line ").append(i).append('\n');
+		}
+		String target = base.toString()
+				.replace("line 10\n", "line ten\n")
+				.replace("line 500\n", "")
+				.replace("line 900\n", "line 900\nadded\n");
+		List<TextEdit> edits = assertRoundTrip(base.toString(), target);
+		assertEquals(3, edits.size());
+		for (TextEdit edit : edits) {
+			assertTrue(edit.getDelete() + edit.getInsert().length() < 40, edit.getInsert());
+		}
+	}
+
+	@Test
+	void fallsBackToOneEditPastTheLineChangeLimit() {
+		StringBuilder from = new StringBuilder("head\n");
+		StringBuilder to = new StringBuilder("head\n");
+		for (int i = 0; i < 600; i++) {
+			from.append("old ").append(i).append('\n');
+			to.append("new ").append(i).append('\n');
+		}
+		from.append("tail\n");
+		to.append("tail\n");
+		List<TextEdit> edits = assertRoundTrip(from.toString(), to.toString());
+		assertEquals(1, edits.size());
+	}
+
+	@Test
+	void roundTripsRandomEdits() {
+		Random random = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			String base = RandomText.of(random, random.nextInt(120));
+			String target = RandomText.mutate(random, base, 1 + random.nextInt(6));
+			assertRoundTrip(base, target);
+			assertRoundTrip(target, base);
+		}
+	}
+
+	@Test
+	void roundTripsUnrelatedRandomTexts() {
+		Random random = new Random(1234);
+		for (int i = 0; i < 500; i++) {
+			assertRoundTrip(RandomText.of(random, random.nextInt(60)), RandomText.of(random, random.nextInt(60)));
+		}
+	}
+
+	private static List<TextEdit> assertRoundTrip(String from, String to) {
+		List<TextEdit> edits = TextDiff.diff(from, to);
+		assertEquals(to, TextEdits.apply(from, edits), () -> "diff(" + escape(from) + ", " + escape(to) + ")");
+		for (TextEdit edit : edits) {
+			assertFalse(splitsPair(from, edit.getOffset()), "edit starts inside a surrogate pair");
+			assertFalse(splitsPair(from, edit.getOffset() + edit.getDelete()), "edit ends inside a surrogate pair");
+			assertFalse(hasLoneSurrogate(edit.getInsert()), "insert carries half a surrogate pair");
+		}
+		return edits;
+	}
+
+	private static boolean splitsPair(String text, int index) {
+		return index > 0 && index < text.length()
+				&& Character.isHighSurrogate(text.charAt(index - 1)) && Character.isLowSurrogate(text.charAt(index));
+	}
+
+	private static boolean hasLoneSurrogate(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (Character.isHighSurrogate(c)) {
+				if (i + 1 >= text.length() || !Character.isLowSurrogate(text.charAt(i + 1))) {
+					return true;
+				}
+				i++;
+			} else if (Character.isLowSurrogate(c)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String escape(String text) {
+		return "\"" + text.replace("\r", "\\r").replace("\n", "\\n") + "\"";
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.vibenotes.util;
+
+import com.vibenotes.dto.TextEdit;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TextEditsTest {
+
+	@Test
+	void appliesEditsInOnePass() {
+		List<TextEdit> edits = List.of(
+				new TextEdit(0, 5, "Goodbye"),
+				new TextEdit(7, 5, "notes"),
+				new TextEdit(12, 1, "?"));
+		assertEquals("Goodbye, notes?", TextEdits.apply("Hello, world!", edits));
+	}
+
+	@Test
+	void noEditsLeaveTheTextAlone() {
+		assertEquals("text", TextEdits.apply("text", List.of()));
+		assertEquals("", TextEdits.apply("", List.of()));
+	}
+
+	@Test
+	void missingDeleteAndInsertMeanNone() {
+		assertEquals("abXc", TextEdits.apply("abc", List.of(new TextEdit(2, null, "X"))));
+		assertEquals("ac", TextEdits.apply("abc", List.of(new TextEdit(1, 1, null))));
+	}
+
+	@Test
+	void editsAtBothEnds() {
+		List<TextEdit> edits = List.of(new TextEdit(0, 0, "<"), new TextEdit(3, 0, ">"));
+		assertEquals("<abc>", TextEdits.apply("abc", edits));
+		assertEquals("new", TextEdits.apply("", List.of(new TextEdit(0, 0, "new"))));
+		assertEquals("", TextEdits.apply("old", List.of(new TextEdit(0, 3, ""))));
+	}
+
+	@Test
+	void rejectsEditsOutsideTheText() {
+		assertThrows(IllegalArgumentException.class,
+				() -> TextEdits.apply("abc", List.of(new TextEdit(4, 0, "x"))));
+		assertThrows(IllegalArgumentException.class,
+				() -> TextEdits.apply("abc", List.of(new TextEdit(2, 2, ""))));
+		assertThrows(IllegalArgumentException.class,
+				() -> TextEdits.apply("abc", List.of(new TextEdit(-1, 0, "x"))));
+		assertThrows(IllegalArgumentException.class,
+				() -> TextEdits.apply("abc", List.of(new TextEdit(1, -1, "x"))));
+		assertThrows(IllegalArgumentException.class,
+				() -> TextEdits.apply("abc", List.of(new TextEdit(null, 0, "x"))));
+	}
+
+	@Test
+	void rejectsUnorderedOrOverlappingEdits() {
+		assertThrows(IllegalArgumentException.class,
+				() -> TextEdits.apply("abcdef", List.of(new TextEdit(3, 0, "x"), new TextEdit(1, 0, "y"))));
+		assertThrows(IllegalArgumentException.class,
+				() -> TextEdits.apply("abcdef", List.of(new TextEdit(1, 3, ""), new TextEdit(2, 1, ""))));
+	}
+
+	@Test
+	void utf8LengthMatchesEncodedLength() {
+		String[] samples = {"", "plain ascii", "café", "€ 5", "😀 smile", "line\r\nbreak",
+				"中文 🎉🎉"};
+		for (String sample : samples) {
+			assertEquals(sample.getBytes(StandardCharsets.UTF_8).length, TextEdits.utf8Length(sample), sample);
+		}
+
+		Random random = new Random(7);
+		for (int i = 0; i < 200; i++) {
+			String text = RandomText.of(random, random.nextInt(200));
+			assertEquals(text.getBytes(StandardCharsets.UTF_8).length, TextEdits.utf8Length(text), text);
+		}
+	}
+
+}
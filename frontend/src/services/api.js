@@ -36,6 +36,9 @@ export default {
 	login(username, password) {
 		return api.post('/auth/login', { username, password })
 	},
+	logout() {
+		return api.post('/auth/logout')
+	},
 	test() {
 		return api.get('/auth/test')
 	},
@@ -69,8 +72,8 @@ export default {
 	createNote(title, content, isPublic) {
 		return api.post('/notes', { title, content, isPublic })
 	},
-	getUserNotes() {
-		return api.get('/notes')
+	getUserNotes(cursor) {
+		return api.get('/notes', { params: { view: 'summary', cursor } })
 	},
 	getNoteById(id) {
 		return api.get(`/notes/${id}`)
@@ -81,8 +84,8 @@ export default {
 	deleteNote(id) {
 		return api.delete(`/notes/${id}`)
 	},
-	getPublicNotesByUsername(username) {
-		return api.get(`/public/users/${username}/notes`)
+	getPublicNotesByUsername(username, cursor) {
+		return api.get(`/public/users/${username}/notes`, { params: { view: 'summary', cursor } })
 	},
 
 	// Note attachment endpoints
@@ -102,6 +105,34 @@ export default {
 	},
 	deleteNoteAttachment(noteId, attachmentId) {
 		return api.delete(`/notes/${noteId}/attachments/${attachmentId}`)
+	},
+
+	// EventSource cannot send Authorization, so each connection opens with a stream token
+	openNoteEvents(handlers, retryMillis = 3000) {
+		let source = null
+		let closed = false
+		const connect = async () => {
+			try {
+				const response = await api.post('/notes/events/token')
+				if (closed) return
+				source = new EventSource(`${API_URL}/notes/events?token=${encodeURIComponent(response.data.token)}`)
+				Object.entries(handlers).forEach(([name, handler]) => {
+					source.addEventListener(name, (event) => handler(JSON.parse(event.data || '{}')))
+				})
+				// Stream tokens expire within a minute, so reconnect with a fresh one
+				source.onerror = () => {
+					source.close()
+					if (!closed) setTimeout(connect, retryMillis)
+				}
+			} catch (error) {
+				if (!closed) setTimeout(connect, retryMillis)
+			}
+		}
+		connect()
+		return () => {
+			closed = true
+			if (source) source.close()
+		}
 	}
 }
 